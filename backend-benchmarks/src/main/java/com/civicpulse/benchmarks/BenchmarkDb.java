@@ -0,0 +1,43 @@
+package com.civicpulse.benchmarks;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Database settings shared by the seeder and the query benchmark. Uses the same environment
+ * variables as the backend and falls back to the local defaults in {@code application.properties}.
+ */
+final class BenchmarkDb {
+
+    private BenchmarkDb() {
+    }
+
+    static Connection connect() throws SQLException {
+        String url = env("SPRING_DATASOURCE_URL", "jdbc:mysql://localhost:3306/civic_pulse?useSSL=false"
+                + "&allowPublicKeyRetrieval=true&serverTimezone=UTC&rewriteBatchedStatements=true");
+        return DriverManager.getConnection(url, env("SPRING_DATASOURCE_USERNAME", "root"),
+                env("SPRING_DATASOURCE_PASSWORD", "root"));
+    }
+
+    /** Parses {@code key=value} arguments; unknown keys are rejected so typos do not go unnoticed. */
+    static Map<String, String> args(String[] args, Map<String, String> defaults) {
+        Map<String, String> out = new HashMap<>(defaults);
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0 || !defaults.containsKey(arg.substring(0, eq))) {
+                throw new IllegalArgumentException("Unknown argument " + arg + "; expected key=value with key in "
+                        + defaults.keySet());
+            }
+            out.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        return out;
+    }
+
+    private static String env(String name, String fallback) {
+        String v = System.getenv(name);
+        return v == null || v.isBlank() ? fallback : v;
+    }
+}
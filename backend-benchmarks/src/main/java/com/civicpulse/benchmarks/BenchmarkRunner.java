@@ -0,0 +1,26 @@
+package com.civicpulse.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the shaded jar. Accepts the usual JMH command line and always adds the GC
+ * profiler, so every run reports allocation rate ({@code gc.alloc.rate.norm}) next to throughput.
+ */
+public class BenchmarkRunner {
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        if (cli.shouldHelp()) {
+            cli.showHelp();
+            return;
+        }
+        Runner runner = new Runner(new OptionsBuilder().parent(cli).addProfiler(GCProfiler.class).build());
+        if (cli.shouldList()) {
+            runner.list();
+        } else {
+            runner.run();
+        }
+    }
+}
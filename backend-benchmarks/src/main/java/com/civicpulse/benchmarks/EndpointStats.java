@@ -0,0 +1,72 @@
+package com.civicpulse.benchmarks;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency samples and error counts per endpoint. Every sample is kept (in microseconds), so the
+ * percentiles are exact rather than bucketed; a run of a few minutes holds well under a million.
+ */
+final class EndpointStats {
+
+    private static final class Samples {
+        private long[] micros = new long[1024];
+        private int size;
+        final AtomicLong errors = new AtomicLong();
+
+        synchronized void add(long value) {
+            if (size == micros.length) micros = Arrays.copyOf(micros, size * 2);
+            micros[size++] = value;
+        }
+
+        synchronized long[] sorted() {
+            long[] copy = Arrays.copyOf(micros, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+
+    private final Map<String, Samples> byEndpoint = new ConcurrentHashMap<>();
+
+    void record(String endpoint, long nanos) {
+        samples(endpoint).add(nanos / 1_000);
+    }
+
+    void error(String endpoint) {
+        samples(endpoint).errors.incrementAndGet();
+    }
+
+    private Samples samples(String endpoint) {
+        return byEndpoint.computeIfAbsent(endpoint, k -> new Samples());
+    }
+
+    void print(double seconds) {
+        System.out.printf("%-34s %8s %7s %9s %9s %9s %9s %9s%n",
+                "endpoint", "count", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        long total = 0;
+        long errors = 0;
+        for (Map.Entry<String, Samples> e : new TreeMap<>(byEndpoint).entrySet()) {
+            long[] s = e.getValue().sorted();
+            long err = e.getValue().errors.get();
+            total += s.length;
+            errors += err;
+            System.out.printf("%-34s %8d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n", e.getKey(), s.length, err,
+                    s.length / seconds, ms(percentile(s, 0.50)), ms(percentile(s, 0.99)), ms(percentile(s, 0.999)),
+                    ms(s.length == 0 ? 0 : s[s.length - 1]));
+        }
+        System.out.printf("%-34s %8d %7d %9.1f%n", "total", total, errors, total / seconds);
+    }
+
+    static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.ceil(sorted.length * p) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static double ms(long micros) {
+        return micros / 1_000.0;
+    }
+}
@@ -0,0 +1,79 @@
+package com.civicpulse.benchmarks;
+
+import com.civicpulse.entity.User;
+import com.civicpulse.repository.UserRepository;
+import com.civicpulse.security.AuthenticationCache;
+import com.civicpulse.security.JwtAuthenticationFilter;
+import com.civicpulse.security.JwtProvider;
+import com.civicpulse.service.AuthService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The JWT filter end to end with an in-memory user repository: {@code cached} is the steady
+ * state with warm token and principal caches, {@code uncached} verifies the signature and loads
+ * the user on every call, as before the caches existed.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtAuthenticationFilterBenchmark {
+    @Param({"cached", "uncached"})
+    public String mode;
+
+    private JwtAuthenticationFilter filter;
+    private String header;
+    private final FilterChain chain = (req, res) -> { };
+
+    @Setup
+    public void setup() {
+        JwtProvider provider = new JwtProvider();
+        provider.setJwtSecret(JwtProviderBenchmark.SECRET);
+        provider.setJwtExpirationMs(3_600_000);
+
+        User user = new User();
+        user.setId(1L);
+        user.setEmail("citizen@example.com");
+        user.setPassword("$2a$10$abcdefghijklmnopqrstuu3uLRgJ6bSxH7kGfFdmCtDqOQp5E9W1m");
+        user.setRole("ROLE_USER");
+        UserRepository users = Mockito.mock(UserRepository.class);
+        Mockito.when(users.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+
+        AuthService authService = new AuthService();
+        ReflectionTestUtils.setField(authService, "userRepository", users);
+
+        AuthenticationCache cache = new AuthenticationCache();
+        // a zero TTL makes every put a no-op, i.e. no caching
+        ReflectionTestUtils.setField(cache, "ttlMillis", "cached".equals(mode) ? 300_000L : 0L);
+        cache.init();
+
+        filter = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "jwtProvider", provider);
+        ReflectionTestUtils.setField(filter, "authService", authService);
+        ReflectionTestUtils.setField(filter, "authenticationCache", cache);
+        ReflectionTestUtils.setField(filter, "meterRegistry", new SimpleMeterRegistry());
+        header = "Bearer " + provider.generateToken(user);
+    }
+
+    @Benchmark
+    public Object authenticate() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/reports");
+        request.addHeader("Authorization", header);
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        Object auth = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return auth;
+    }
+}
@@ -0,0 +1,55 @@
+package com.civicpulse.benchmarks;
+
+import com.civicpulse.entity.User;
+import com.civicpulse.security.JwtProvider;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token signing and verification as done on login and on every authenticated request.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtProviderBenchmark {
+    static final String SECRET = "4pBUKF5x77owe1ANzDa6yAxtHZFySrjD2fEhSmTbeu4u";
+
+    private JwtProvider provider;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setup() {
+        provider = new JwtProvider();
+        provider.setJwtSecret(SECRET);
+        provider.setJwtExpirationMs(3_600_000);
+        user = new User();
+        user.setEmail("citizen@example.com");
+        user.setRole("ROLE_USER");
+        token = provider.generateToken(user);
+    }
+
+    @Benchmark
+    public String generate() {
+        return provider.generateToken(user);
+    }
+
+    @Benchmark
+    public boolean validate() {
+        return provider.validateToken(token);
+    }
+
+    @Benchmark
+    public Object parseClaims() {
+        return provider.parseClaims(token);
+    }
+
+    @Benchmark
+    public String subject() {
+        return provider.getEmailFromToken(token);
+    }
+}
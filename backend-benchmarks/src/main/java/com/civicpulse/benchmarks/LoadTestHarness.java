@@ -0,0 +1,333 @@
+package com.civicpulse.benchmarks;
+
+import com.civicpulse.CivicPulseApplication;
+import com.civicpulse.service.AuthService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.store.StoredMessage;
+import com.icegreen.greenmail.user.GreenMailUser;
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * End-to-end load test of the backend with local stand-ins: the {@code loadtest} profile runs it
+ * on an in-memory H2 database with blobs on the local filesystem, and mail goes to an in-process
+ * GreenMail server, where OTP codes are read back. Virtual users sign in by OTP and then loop over
+ * the traffic mix (report submission with images, list/detail/"my reports" reads and admin status
+ * changes) with no think time. After a warm-up that also fills the table, it prints throughput and
+ * p50/p99/p999 latency per endpoint.
+ *
+ * <pre>
+ * java -Xmx1g -cp backend-benchmarks/target/benchmarks.jar com.civicpulse.benchmarks.LoadTestHarness \
+ *     users=50 duration=60 warmup=15 images=2 mix=signin:2,submit:10,list:35,detail:35,my:10,admin:8
+ * </pre>
+ *
+ * The driver shares the JVM with the server; compare runs on the same machine and settings.
+ */
+public class LoadTestHarness {
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final Pattern OTP = Pattern.compile("<b>(\\d{6})</b>");
+    private static final String[] CATEGORIES = {"Roads", "Sanitation", "Street Lighting", "Water Systems", "Parks"};
+    private static final String[] STATUSES = {"IN_PROGRESS", "RESOLVED"};
+
+    private record Session(String token, long userId) {
+    }
+
+    private final GreenMail mail;
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final String base;
+    private final EndpointStats stats = new EndpointStats();
+    private final List<Long> reportIds = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicLong signIns = new AtomicLong();
+    private final byte[][] images;
+    private volatile boolean measuring;
+    private Session admin;
+
+    LoadTestHarness(GreenMail mail, int port, byte[][] images) {
+        this.mail = mail;
+        this.base = "http://127.0.0.1:" + port;
+        this.images = images;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> a = BenchmarkDb.args(args, Map.of("users", "50", "duration", "60", "warmup", "15",
+                "images", "2", "mix", "signin:2,submit:10,list:35,detail:35,my:10,admin:8", "seed", "1"));
+        int users = Integer.parseInt(a.get("users"));
+        int duration = Integer.parseInt(a.get("duration"));
+        int warmup = Integer.parseInt(a.get("warmup"));
+        Map<String, Integer> mix = mix(a.get("mix"));
+
+        GreenMail mail = new GreenMail(ServerSetupTest.SMTP.dynamicPort())
+                .withConfiguration(GreenMailConfiguration.aConfig().withDisabledAuthentication());
+        mail.start();
+        ConfigurableApplicationContext ctx = null;
+        int exit = 0;
+        try {
+            ctx = new SpringApplicationBuilder(CivicPulseApplication.class)
+                    .profiles("loadtest")
+                    .run("--server.port=0", "--spring.mail.port=" + mail.getSmtp().getPort());
+            int port = ((WebServerApplicationContext) ctx).getWebServer().getPort();
+            LoadTestHarness harness = new LoadTestHarness(mail, port, jpegs(Integer.parseInt(a.get("images")),
+                    Long.parseLong(a.get("seed"))));
+            Session admin = harness.signIn("admin@loadtest.local");
+            // admin routes only need a token today; promote anyway so role checks added later still pass
+            ctx.getBean(AuthService.class).updateRole(admin.userId(), "ROLE_ADMIN");
+            harness.admin = admin;
+            System.out.printf("users=%d warmup=%ds duration=%ds images/report=%d mix=%s%n",
+                    users, warmup, duration, harness.images.length, mix);
+            harness.run(users, warmup, duration, mix, Long.parseLong(a.get("seed")));
+            harness.stats.print(duration);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            exit = 1;
+        } finally {
+            if (ctx != null) ctx.close();
+            mail.stop();
+        }
+        System.exit(exit);
+    }
+
+    private void run(int users, int warmup, int duration, Map<String, Integer> mix, long seed)
+            throws InterruptedException {
+        long start = System.nanoTime();
+        long measureFrom = start + Duration.ofSeconds(warmup).toNanos();
+        long end = measureFrom + Duration.ofSeconds(duration).toNanos();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            int n = i;
+            Thread t = new Thread(() -> user(n, end, mix, new Random(seed + n)), "vu-" + i);
+            t.start();
+            threads.add(t);
+        }
+        Thread.sleep(Math.max(0, (measureFrom - System.nanoTime()) / 1_000_000));
+        measuring = true;
+        for (Thread t : threads) t.join();
+    }
+
+    private void user(int n, long end, Map<String, Integer> mix, Random random) {
+        Session session;
+        try {
+            session = signIn("vu" + n + "@loadtest.local");
+        } catch (Exception ex) {
+            System.err.println("Virtual user " + n + " could not sign in: " + ex);
+            return;
+        }
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        while (System.nanoTime() < end) {
+            int pick = random.nextInt(total);
+            String op = null;
+            for (Map.Entry<String, Integer> e : mix.entrySet()) {
+                pick -= e.getValue();
+                if (pick < 0) {
+                    op = e.getKey();
+                    break;
+                }
+            }
+            try {
+                switch (op) {
+                    case "signin" -> signIn("user" + signIns.incrementAndGet() + "@loadtest.local");
+                    case "submit" -> submit(session, random);
+                    case "list" -> list(session, random);
+                    case "detail" -> detail(session, random);
+                    case "my" -> send("GET /reports/my", get("/api/v1/reports/my?userId=" + session.userId(), session));
+                    case "admin" -> changeStatus(random);
+                    default -> throw new IllegalArgumentException("Unknown operation " + op);
+                }
+            } catch (IOException | RuntimeException ex) {
+                // already counted against the endpoint; keep the user going
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private Session signIn(String email) throws IOException, InterruptedException {
+        send("POST /auth/send-otp", post("/api/v1/auth/send-otp", Map.of("email", email), null));
+        long start = System.nanoTime();
+        String code = awaitOtp(email);
+        if (measuring) stats.record("(otp mail delivery)", System.nanoTime() - start);
+        JsonNode auth = JSON.readTree(send("POST /auth/verify-otp",
+                post("/api/v1/auth/verify-otp", Map.of("email", email, "otp", code), null)));
+        return new Session(auth.get("token").asText(), auth.get("user").get("id").asLong());
+    }
+
+    private String awaitOtp(String email) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        while (System.nanoTime() < deadline) {
+            GreenMailUser user = mail.getUserManager().getUserByEmail(email);
+            if (user != null) {
+                try {
+                    List<StoredMessage> messages = mail.getManagers().getImapHostManager().getInbox(user).getMessages();
+                    if (!messages.isEmpty()) {
+                        Matcher m = OTP.matcher(GreenMailUtil.getBody(messages.get(messages.size() - 1).getMimeMessage()));
+                        if (m.find()) return m.group(1);
+                    }
+                } catch (Exception ex) {
+                    throw new IllegalStateException("Could not read the OTP mail for " + email, ex);
+                }
+            }
+            Thread.sleep(5);
+        }
+        stats.error("(otp mail delivery)");
+        throw new IllegalStateException("No OTP mail for " + email);
+    }
+
+    private void submit(Session session, Random random) throws IOException, InterruptedException {
+        String boundary = "civicpulse-" + Long.toHexString(random.nextLong());
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        field(body, boundary, "userId", String.valueOf(session.userId()));
+        field(body, boundary, "title", "Pothole on street " + random.nextInt(5000));
+        field(body, boundary, "description", "Deep pothole near the bus stop, reported by load test");
+        field(body, boundary, "category", CATEGORIES[random.nextInt(CATEGORIES.length)]);
+        field(body, boundary, "latitude", String.valueOf(12.90 + random.nextDouble() * 0.2));
+        field(body, boundary, "longitude", String.valueOf(77.50 + random.nextDouble() * 0.2));
+        for (int i = 0; i < images.length; i++) {
+            body.writeBytes(("--" + boundary + "\r\nContent-Disposition: form-data; name=\"images\"; filename=\"photo"
+                    + i + ".jpg\"\r\nContent-Type: image/jpeg\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+            body.writeBytes(images[i]);
+            body.writeBytes("\r\n".getBytes(StandardCharsets.UTF_8));
+        }
+        body.writeBytes(("--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        HttpRequest req = request("/api/v1/reports", session)
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build();
+        reportIds.add(JSON.readTree(send("POST /reports", req)).get("id").asLong());
+    }
+
+    private static void field(ByteArrayOutputStream body, String boundary, String name, String value) {
+        body.writeBytes(("--" + boundary + "\r\nContent-Disposition: form-data; name=\"" + name + "\"\r\n\r\n"
+                + value + "\r\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void list(Session session, Random random) throws IOException, InterruptedException {
+        String query = random.nextInt(3) == 0 ? "&status=NEW" : "";
+        JsonNode page = JSON.readTree(send("GET /reports", get("/api/v1/reports?limit=20" + query, session)));
+        // about a third of readers go on to the next page
+        JsonNode cursor = page.get("nextCursor");
+        if (cursor != null && !cursor.isNull() && random.nextInt(3) == 0) {
+            send("GET /reports", get("/api/v1/reports?limit=20" + query + "&cursor="
+                    + URLEncoder.encode(cursor.asText(), StandardCharsets.UTF_8), session));
+        }
+    }
+
+    private void detail(Session session, Random random) throws IOException, InterruptedException {
+        Long id = randomReport(random);
+        if (id != null) send("GET /reports/{id}", get("/api/v1/reports/" + id, session));
+    }
+
+    private void changeStatus(Random random) throws IOException, InterruptedException {
+        Long id = randomReport(random);
+        if (id == null) return;
+        HttpRequest req = request("/api/v1/admin/reports/" + id + "/status", admin)
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(JSON.writeValueAsString(
+                        Map.of("status", STATUSES[random.nextInt(STATUSES.length)], "note", "load test"))))
+                .build();
+        send("PUT /admin/reports/{id}/status", req);
+    }
+
+    private Long randomReport(Random random) {
+        synchronized (reportIds) {
+            return reportIds.isEmpty() ? null : reportIds.get(random.nextInt(reportIds.size()));
+        }
+    }
+
+    private String send(String endpoint, HttpRequest req) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        HttpResponse<String> resp;
+        try {
+            resp = http.send(req, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException ex) {
+            if (measuring) stats.error(endpoint);
+            throw ex;
+        }
+        long elapsed = System.nanoTime() - start;
+        if (resp.statusCode() >= 400) {
+            if (measuring) stats.error(endpoint);
+            throw new IOException(endpoint + " returned " + resp.statusCode());
+        }
+        if (measuring) stats.record(endpoint, elapsed);
+        return resp.body();
+    }
+
+    private HttpRequest.Builder request(String path, Session session) {
+        HttpRequest.Builder b = HttpRequest.newBuilder(URI.create(base + path)).timeout(Duration.ofSeconds(60));
+        if (session != null) b.header("Authorization", "Bearer " + session.token());
+        return b;
+    }
+
+    private HttpRequest get(String path, Session session) {
+        return request(path, session).GET().build();
+    }
+
+    private HttpRequest post(String path, Map<String, String> json, Session session) throws IOException {
+        return request(path, session)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(JSON.writeValueAsString(json)))
+                .build();
+    }
+
+    private static Map<String, Integer> mix(String spec) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String part : spec.split(",")) {
+            String[] kv = part.split(":");
+            mix.put(kv[0].trim(), Integer.parseInt(kv[1].trim()));
+        }
+        return mix;
+    }
+
+    // phone-sized photos with enough detail that re-encoding them costs what a real one does
+    private static byte[][] jpegs(int count, long seed) throws IOException {
+        Random random = new Random(seed);
+        byte[][] out = new byte[count][];
+        for (int i = 0; i < count; i++) {
+            BufferedImage img = new BufferedImage(2000, 1500, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = img.createGraphics();
+            try {
+                for (int j = 0; j < 400; j++) {
+                    g.setColor(new Color(random.nextInt(0xFFFFFF)));
+                    g.fillRect(random.nextInt(2000), random.nextInt(1500), 20 + random.nextInt(300), 20 + random.nextInt(300));
+                }
+            } finally {
+                g.dispose();
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ImageIO.write(img, "jpg", bytes);
+            out[i] = bytes.toByteArray();
+        }
+        return out;
+    }
+}
@@ -0,0 +1,84 @@
+package com.civicpulse.benchmarks;
+
+import com.civicpulse.controller.ReportController;
+import com.civicpulse.dto.ReportDtos;
+import com.civicpulse.entity.Report;
+import com.civicpulse.entity.ReportImage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.web.util.HtmlUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request-side sanitization and response-side mapping of {@code POST /api/v1/reports}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReportMappingBenchmark {
+    @Param({"0", "3"})
+    public int images;
+
+    private final String title = "Large pothole near the bus stop on 5th Cross";
+    private final String description = "The pothole is about 1m wide & <30cm> deep; two-wheelers swerve into "
+            + "oncoming traffic to avoid it. It's been there since the \"rains\" last month.";
+    private final String category = "Roads & Footpaths";
+    private final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private Report report;
+    private ReportDtos.ReportResponse response;
+
+    @Setup
+    public void setup() {
+        report = new Report();
+        report.setId(42L);
+        report.setTitle(HtmlUtils.htmlEscape(title));
+        report.setDescription(HtmlUtils.htmlEscape(description));
+        report.setCategory(HtmlUtils.htmlEscape(category));
+        report.setLatitude(12.9716);
+        report.setLongitude(77.5946);
+        report.setCreatedAt(LocalDateTime.now());
+        List<ReportImage> list = new ArrayList<>();
+        for (int i = 0; i < images; i++) {
+            ReportImage img = new ReportImage();
+            img.setId(100L + i);
+            img.setReport(report);
+            img.setUploadStatus(ReportImage.STATUS_UPLOADED);
+            img.setStorageBackend("local");
+            img.setStorageKey("2024/05/01/" + i + ".jpg");
+            img.setUrl("/api/v1/files/2024/05/01/" + i + ".jpg");
+            list.add(img);
+        }
+        report.setImages(list);
+        response = ReportController.toResponse(report);
+    }
+
+    @Benchmark
+    public int sanitize() {
+        return HtmlUtils.htmlEscape(title).length()
+                + HtmlUtils.htmlEscape(description).length()
+                + HtmlUtils.htmlEscape(category).length();
+    }
+
+    @Benchmark
+    public ReportDtos.ReportResponse map() {
+        return ReportController.toResponse(report);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return mapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] mapAndSerialize() throws Exception {
+        return mapper.writeValueAsBytes(ReportController.toResponse(report));
+    }
+}
@@ -0,0 +1,243 @@
+package com.civicpulse.benchmarks;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Times the SQL behind the repository methods on hot paths against a seeded database (see
+ * {@link SyntheticDataSeeder}). The SQL has the same shape Hibernate generates for
+ * {@code ReportRepository}, {@code UserRepository} and {@code OtpTokenRepository}, including the
+ * {@code ? IS NULL OR ...} optional filters. Parameters come from a fixed seed, so runs repeat.
+ * <p>
+ * When the {@code V8__report_query_indexes} indexes exist, every query runs twice: first with
+ * {@code IGNORE INDEX} for them ("before") and then as is ("after"). The plan MySQL picked is
+ * printed next to the timings. Note that V7 also had the implicit single-column index on
+ * {@code reports.user_id} that V8 replaces; for an exact V7 baseline, run against a database
+ * migrated with {@code spring.flyway.target=7}.
+ *
+ * <pre>
+ * java -cp backend-benchmarks/target/benchmarks.jar com.civicpulse.benchmarks.ReportQueryBenchmark \
+ *     iterations=200 warmup=20
+ * </pre>
+ */
+public class ReportQueryBenchmark {
+    private static final Map<String, List<String>> V8_INDEXES = Map.of(
+            "reports", List.of("idx_reports_user_created", "idx_reports_created", "idx_reports_status_created",
+                    "idx_reports_category_created", "idx_reports_stats"),
+            "otp_tokens", List.of("idx_otp_tokens_email"));
+    private static final String[] STATUSES = {"NEW", "IN_PROGRESS", "RESOLVED"};
+    private static final String SUMMARY = "r.id, r.title, r.category, r.status, r.latitude, r.longitude, "
+            + "r.assigned_department, r.created_at";
+    private static final String FILTER = "(? IS NULL OR r.status = ?) AND (? IS NULL OR r.category = ?)";
+
+    /** One repository query; {@code {reports}} and {@code {otp_tokens}} mark where index hints go. */
+    private record Query(String name, String sql, Binder binder, boolean forUpdate) {
+    }
+
+    @FunctionalInterface
+    private interface Binder {
+        void bind(PreparedStatement ps, Random random) throws SQLException;
+    }
+
+    private final Connection c;
+    private final long[] heavyUsers;
+    private final String[] emails;
+    private final String[] otpEmails;
+    private final Timestamp[] cursors;
+
+    ReportQueryBenchmark(Connection c, long seed) throws SQLException {
+        this.c = c;
+        Random random = new Random(seed);
+        // the users with the most reports: the worst case for "my reports"
+        heavyUsers = longs("SELECT user_id FROM reports GROUP BY user_id ORDER BY COUNT(*) DESC LIMIT 50");
+        emails = strings("SELECT email FROM users ORDER BY id LIMIT 1000 OFFSET " + random.nextInt(1000));
+        otpEmails = strings("SELECT email FROM otp_tokens ORDER BY id LIMIT 1000");
+        // keyset cursors spread over the table, so "next page" is not always near the top
+        List<Timestamp> ts = new ArrayList<>();
+        try (Statement st = c.createStatement();
+             ResultSet rs = st.executeQuery("SELECT MIN(created_at), MAX(created_at) FROM reports")) {
+            rs.next();
+            long min = rs.getTimestamp(1) != null ? rs.getTimestamp(1).getTime() : 0;
+            long max = rs.getTimestamp(2) != null ? rs.getTimestamp(2).getTime() : 0;
+            for (int i = 0; i < 100; i++) ts.add(new Timestamp(min + (long) (random.nextDouble() * (max - min))));
+        }
+        cursors = ts.toArray(new Timestamp[0]);
+        if (heavyUsers.length == 0 || emails.length == 0) {
+            throw new IllegalStateException("No reports or users; run SyntheticDataSeeder first");
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> a = BenchmarkDb.args(args, Map.of("iterations", "200", "warmup", "20", "seed", "7"));
+        int iterations = Integer.parseInt(a.get("iterations"));
+        int warmup = Integer.parseInt(a.get("warmup"));
+        long seed = Long.parseLong(a.get("seed"));
+        try (Connection c = BenchmarkDb.connect()) {
+            ReportQueryBenchmark bench = new ReportQueryBenchmark(c, seed);
+            Map<String, List<String>> present = bench.presentIndexes();
+            System.out.printf("reports=%d users=%d otp_tokens=%d iterations=%d%n", bench.count("reports"),
+                    bench.count("users"), bench.count("otp_tokens"), iterations);
+            System.out.printf("%-22s %-7s %9s %9s %9s  %s%n", "query", "pass", "p50 ms", "p95 ms", "max ms", "plan");
+            for (Query q : bench.queries()) {
+                if (!present.isEmpty()) bench.run(q, "before", present, iterations, warmup, seed);
+                bench.run(q, present.isEmpty() ? "current" : "after", Map.of(), iterations, warmup, seed);
+            }
+        }
+    }
+
+    private List<Query> queries() {
+        return List.of(
+                new Query("my-reports", "SELECT r.*, i.* FROM reports r {reports} LEFT JOIN report_images i "
+                        + "ON i.report_id = r.id WHERE r.user_id = ? ORDER BY r.created_at DESC, r.id DESC",
+                        (ps, rnd) -> ps.setLong(1, heavyUsers[rnd.nextInt(heavyUsers.length)]), false),
+                new Query("first-page", page(""), (ps, rnd) -> filter(ps, null, null), false),
+                new Query("first-page-status", page(""),
+                        (ps, rnd) -> filter(ps, STATUSES[rnd.nextInt(STATUSES.length)], null), false),
+                new Query("first-page-category", page(""),
+                        (ps, rnd) -> filter(ps, null, category(rnd)), false),
+                new Query("page-after-status",
+                        page(" AND (r.created_at < ? OR (r.created_at = ? AND r.id < ?))"), (ps, rnd) -> {
+                            filter(ps, STATUSES[rnd.nextInt(STATUSES.length)], null);
+                            Timestamp cursor = cursors[rnd.nextInt(cursors.length)];
+                            ps.setTimestamp(5, cursor);
+                            ps.setTimestamp(6, cursor);
+                            ps.setLong(7, Long.MAX_VALUE);
+                        }, false),
+                new Query("count-by-status", "SELECT COUNT(*) FROM reports r {reports} WHERE r.status = ?",
+                        (ps, rnd) -> ps.setString(1, STATUSES[rnd.nextInt(STATUSES.length)]), false),
+                new Query("dashboard-stats", "SELECT r.status, r.category, r.assigned_department, DATE(r.created_at), "
+                        + "COUNT(*) FROM reports r {reports} "
+                        + "GROUP BY r.status, r.category, r.assigned_department, DATE(r.created_at)",
+                        (ps, rnd) -> { }, false),
+                new Query("user-by-email", "SELECT * FROM users u WHERE u.email = ?",
+                        (ps, rnd) -> ps.setString(1, emails[rnd.nextInt(emails.length)]), false),
+                new Query("otp-for-update", "SELECT * FROM otp_tokens t {otp_tokens} WHERE t.email = ? FOR UPDATE",
+                        (ps, rnd) -> ps.setString(1, otpEmails.length > 0
+                                ? otpEmails[rnd.nextInt(otpEmails.length)] : "none@example.com"), true));
+    }
+
+    private static String page(String extra) {
+        return "SELECT " + SUMMARY + " FROM reports r {reports} WHERE " + FILTER + extra
+                + " ORDER BY r.created_at DESC, r.id DESC LIMIT 20";
+    }
+
+    private static void filter(PreparedStatement ps, String status, String category) throws SQLException {
+        ps.setString(1, status);
+        ps.setString(2, status);
+        ps.setString(3, category);
+        ps.setString(4, category);
+    }
+
+    // the rarer categories, where an index pays off most
+    private static String category(Random rnd) {
+        String[] all = SyntheticDataSeeder.CATEGORIES;
+        return all[all.length / 2 + rnd.nextInt(all.length - all.length / 2)];
+    }
+
+    private void run(Query q, String pass, Map<String, List<String>> ignore, int iterations, int warmup, long seed)
+            throws SQLException {
+        String sql = hints(q.sql(), ignore);
+        // the same parameter sequence for both passes
+        Random random = new Random(seed);
+        long[] nanos = new long[iterations];
+        c.setAutoCommit(!q.forUpdate());
+        try (PreparedStatement ps = c.prepareStatement(sql)) {
+            for (int i = 0; i < warmup + iterations; i++) {
+                q.binder().bind(ps, random);
+                long start = System.nanoTime();
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        // read every row, as the repository would
+                    }
+                }
+                if (i >= warmup) nanos[i - warmup] = System.nanoTime() - start;
+                // release the row locks of the locking read, as the OTP transaction would on commit
+                if (q.forUpdate()) c.rollback();
+            }
+            Arrays.sort(nanos);
+            System.out.printf("%-22s %-7s %9.2f %9.2f %9.2f  %s%n", q.name(), pass, ms(nanos[iterations / 2]),
+                    ms(nanos[(int) Math.min(iterations - 1, Math.ceil(iterations * 0.95) - 1)]), ms(nanos[iterations - 1]),
+                    explain(sql, q, seed));
+        } finally {
+            c.setAutoCommit(true);
+        }
+    }
+
+    // EXPLAIN of the first parameter set: access type and index per table
+    private String explain(String sql, Query q, long seed) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement("EXPLAIN " + sql)) {
+            q.binder().bind(ps, new Random(seed));
+            StringBuilder sb = new StringBuilder();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (sb.length() > 0) sb.append("; ");
+                    sb.append(rs.getString("table")).append(':').append(rs.getString("type"))
+                            .append('/').append(rs.getString("key"));
+                    String extra = rs.getString("Extra");
+                    if (extra != null && extra.contains("filesort")) sb.append(" filesort");
+                    if (extra != null && extra.contains("Using index") && !extra.contains("condition")) sb.append(" covering");
+                }
+            }
+            return sb.toString();
+        }
+    }
+
+    private static String hints(String sql, Map<String, List<String>> ignore) {
+        for (String table : List.of("reports", "otp_tokens")) {
+            List<String> idx = ignore.get(table);
+            sql = sql.replace("{" + table + "}", idx == null || idx.isEmpty() ? "" : "IGNORE INDEX (" + String.join(", ", idx) + ")");
+        }
+        return sql;
+    }
+
+    private Map<String, List<String>> presentIndexes() throws SQLException {
+        Map<String, List<String>> present = new LinkedHashMap<>();
+        try (PreparedStatement ps = c.prepareStatement("SELECT DISTINCT table_name, index_name FROM "
+                + "information_schema.statistics WHERE table_schema = DATABASE()")) {
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    String table = rs.getString(1);
+                    String index = rs.getString(2);
+                    if (V8_INDEXES.getOrDefault(table, List.of()).contains(index)) {
+                        present.computeIfAbsent(table, t -> new ArrayList<>()).add(index);
+                    }
+                }
+            }
+        }
+        return present;
+    }
+
+    private long count(String table) throws SQLException {
+        return longs("SELECT COUNT(*) FROM " + table)[0];
+    }
+
+    private long[] longs(String sql) throws SQLException {
+        List<Long> out = new ArrayList<>();
+        try (Statement st = c.createStatement(); ResultSet rs = st.executeQuery(sql)) {
+            while (rs.next()) out.add(rs.getLong(1));
+        }
+        return out.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private String[] strings(String sql) throws SQLException {
+        List<String> out = new ArrayList<>();
+        try (Statement st = c.createStatement(); ResultSet rs = st.executeQuery(sql)) {
+            while (rs.next()) out.add(rs.getString(1));
+        }
+        return out.toArray(new String[0]);
+    }
+
+    private static double ms(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,250 @@
+package com.civicpulse.benchmarks;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Fills a migrated CivicPulse schema with synthetic users, reports, status history and OTP rows
+ * for query benchmarks. The data is shaped like production: a few users file most reports,
+ * categories and statuses are skewed, older reports are further along, and creation times spread
+ * over {@code days}. The same {@code seed} gives the same data, so runs are comparable.
+ * Rows are appended; point it at a scratch database, never at production.
+ *
+ * <pre>
+ * SPRING_DATASOURCE_URL=jdbc:mysql://localhost:3306/civic_pulse_bench?rewriteBatchedStatements=true \
+ * java -cp backend-benchmarks/target/benchmarks.jar com.civicpulse.benchmarks.SyntheticDataSeeder \
+ *     users=1000000 reports=5000000 history=3 otp=100000
+ * </pre>
+ */
+public class SyntheticDataSeeder {
+    static final String[] CATEGORIES = {"Roads", "Sanitation", "Street Lighting", "Water Systems", "Parks",
+            "Drainage", "Traffic", "Electricity", "Noise", "Other"};
+    // roughly how often each category is reported; the long tail is what category filters hit
+    private static final double[] CATEGORY_WEIGHTS = {30, 22, 14, 10, 7, 6, 5, 3, 2, 1};
+    private static final String[] DEPARTMENTS = {"Public Works", "Sanitation Dept", "Electrical Dept",
+            "Water Board", "Parks & Recreation", "Traffic Police"};
+    private static final String[] WORDS = {"pothole", "broken", "streetlight", "garbage", "overflowing", "leak",
+            "pipe", "water", "drain", "blocked", "tree", "fallen", "signal", "noise", "park", "bench", "road",
+            "crack", "flooding", "wire", "sewage", "damaged", "near", "school", "market", "bus", "stop", "corner"};
+    private static final String[] STATUSES = {"NEW", "IN_PROGRESS", "RESOLVED", "CLOSED", "REJECTED"};
+    // every synthetic account shares one hash of "password"; hashing millions would dominate the run
+    private static final String PASSWORD_HASH = new BCryptPasswordEncoder().encode("password");
+
+    private final Random random;
+    private final int batch;
+
+    SyntheticDataSeeder(long seed, int batch) {
+        this.random = new Random(seed);
+        this.batch = batch;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> a = BenchmarkDb.args(args, Map.of("users", "100000", "reports", "500000",
+                "history", "3", "otp", "10000", "days", "730", "seed", "42", "batch", "5000"));
+        SyntheticDataSeeder seeder = new SyntheticDataSeeder(Long.parseLong(a.get("seed")),
+                Integer.parseInt(a.get("batch")));
+        try (Connection c = BenchmarkDb.connect()) {
+            c.setAutoCommit(false);
+            long start = System.nanoTime();
+            long[] users = seeder.users(c, Integer.parseInt(a.get("users")));
+            long history = seeder.reports(c, users, Integer.parseInt(a.get("reports")),
+                    Integer.parseInt(a.get("history")), Integer.parseInt(a.get("days")));
+            seeder.otpTokens(c, Integer.parseInt(a.get("otp")));
+            System.out.printf("Seeded %d users, %s reports, %d history rows and %s OTP rows in %d s%n",
+                    users.length, a.get("reports"), history, a.get("otp"), (System.nanoTime() - start) / 1_000_000_000);
+            analyze(c);
+        }
+    }
+
+    long[] users(Connection c, int count) throws SQLException {
+        long before = maxId(c, "users");
+        // a run-unique prefix keeps emails unique when seeding into a database that already has data
+        String prefix = "seed" + Long.toString(System.currentTimeMillis(), 36) + ".";
+        try (PreparedStatement ps = c.prepareStatement(
+                "INSERT INTO users (name, email, password, role, is_active, created_at) VALUES (?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < count; i++) {
+                ps.setString(1, "User " + i);
+                ps.setString(2, prefix + i + "@example.com");
+                ps.setString(3, PASSWORD_HASH);
+                ps.setString(4, i % 1000 == 0 ? "ROLE_ADMIN" : "ROLE_USER");
+                ps.setBoolean(5, random.nextInt(50) != 0);
+                ps.setTimestamp(6, Timestamp.valueOf(LocalDateTime.now().minusDays(random.nextInt(1000))));
+                ps.addBatch();
+                if ((i + 1) % batch == 0) flush(c, ps, "users", i + 1, count);
+            }
+            flush(c, ps, "users", count, count);
+        }
+        return ids(c, "users", before);
+    }
+
+    /** @return history rows written */
+    long reports(Connection c, long[] users, int count, int maxHistory, int days) throws SQLException {
+        long before = maxId(c, "reports");
+        LocalDateTime now = LocalDateTime.now();
+        long window = days * 86_400L;
+        // kept for the history rows; primitive arrays because there may be millions
+        byte[] statuses = new byte[count];
+        long[] ageSeconds = new long[count];
+        try (PreparedStatement ps = c.prepareStatement("INSERT INTO reports (user_id, title, description, category, "
+                + "latitude, longitude, status, assigned_department, created_at, updated_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < count; i++) {
+                // squaring skews towards the front: a small share of users files most reports
+                long user = users[(int) (users.length * Math.pow(random.nextDouble(), 2))];
+                long age = (long) (random.nextDouble() * window);
+                LocalDateTime at = now.minusSeconds(age);
+                byte code = status((double) age / window);
+                String status = STATUSES[code];
+                statuses[i] = code;
+                ageSeconds[i] = age;
+                ps.setLong(1, user);
+                ps.setString(2, sentence(3 + random.nextInt(5)));
+                ps.setString(3, sentence(15 + random.nextInt(40)));
+                ps.setString(4, CATEGORIES[weighted(CATEGORY_WEIGHTS)]);
+                ps.setDouble(5, 12.90 + random.nextDouble() * 0.2);
+                ps.setDouble(6, 77.50 + random.nextDouble() * 0.2);
+                ps.setString(7, status);
+                ps.setString(8, code == 0 ? null : DEPARTMENTS[random.nextInt(DEPARTMENTS.length)]);
+                ps.setTimestamp(9, Timestamp.valueOf(at));
+                ps.setTimestamp(10, Timestamp.valueOf(at.plusHours(random.nextInt(24 * 14))));
+                ps.addBatch();
+                if ((i + 1) % batch == 0) flush(c, ps, "reports", i + 1, count);
+            }
+            flush(c, ps, "reports", count, count);
+        }
+        long[] reportIds = ids(c, "reports", before);
+        return history(c, reportIds, statuses, ageSeconds, now, maxHistory);
+    }
+
+    private long history(Connection c, long[] reportIds, byte[] statuses, long[] ageSeconds, LocalDateTime now,
+                         int maxHistory) throws SQLException {
+        long rows = 0;
+        try (PreparedStatement ps = c.prepareStatement("INSERT INTO report_status_history (report_id, "
+                + "previous_status, new_status, changed_by, note, created_at) VALUES (?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < reportIds.length && i < statuses.length; i++) {
+                int steps = statuses[i] == 0 ? 0 : 1 + random.nextInt(Math.max(1, maxHistory));
+                LocalDateTime created = now.minusSeconds(ageSeconds[i]);
+                String previous = "NEW";
+                for (int s = 0; s < steps; s++) {
+                    String next = s == steps - 1 ? STATUSES[statuses[i]] : "IN_PROGRESS";
+                    ps.setLong(1, reportIds[i]);
+                    ps.setString(2, previous);
+                    ps.setString(3, next);
+                    ps.setString(4, "admin@example.com");
+                    ps.setString(5, s == steps - 1 ? null : "Work started");
+                    ps.setTimestamp(6, Timestamp.valueOf(created.plusHours(6L * (s + 1))));
+                    ps.addBatch();
+                    previous = next;
+                    if (++rows % batch == 0) flush(c, ps, "report_status_history", rows, -1);
+                }
+            }
+            flush(c, ps, "report_status_history", rows, rows);
+        }
+        // rows above were numbered by AUTO_INCREMENT; move the application's id block past them
+        try (Statement st = c.createStatement()) {
+            st.executeUpdate("UPDATE id_generators SET next_val = GREATEST(next_val, "
+                    + "(SELECT COALESCE(MAX(id), 0) + 100 FROM report_status_history)) "
+                    + "WHERE name = 'report_status_history'");
+        }
+        c.commit();
+        return rows;
+    }
+
+    void otpTokens(Connection c, int count) throws SQLException {
+        LocalDateTime now = LocalDateTime.now();
+        try (PreparedStatement ps = c.prepareStatement(
+                "INSERT INTO otp_tokens (email, otp_code, expires_at, attempts, created_at) VALUES (?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < count; i++) {
+                ps.setString(1, "otp" + i + "@example.com");
+                ps.setString(2, String.format("%06d", random.nextInt(1_000_000)));
+                ps.setTimestamp(3, Timestamp.valueOf(now.plusMinutes(5)));
+                ps.setInt(4, random.nextInt(3));
+                ps.setTimestamp(5, Timestamp.valueOf(now));
+                ps.addBatch();
+                if ((i + 1) % batch == 0) flush(c, ps, "otp_tokens", i + 1, count);
+            }
+            flush(c, ps, "otp_tokens", count, count);
+        }
+    }
+
+    // index into STATUSES; fresh reports are mostly NEW, older ones have mostly been worked on
+    private byte status(double age) {
+        double r = random.nextDouble();
+        if (r < 0.6 * (1 - age)) return 0;
+        if (r < 0.6 * (1 - age) + 0.2) return 1;
+        if (r < 0.95) return 2;
+        return (byte) (random.nextBoolean() ? 3 : 4);
+    }
+
+    private String sentence(int words) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) sb.append(' ');
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sb.toString();
+    }
+
+    private int weighted(double[] weights) {
+        double total = Arrays.stream(weights).sum();
+        double r = random.nextDouble() * total;
+        for (int i = 0; i < weights.length; i++) {
+            r -= weights[i];
+            if (r < 0) return i;
+        }
+        return weights.length - 1;
+    }
+
+    private static void flush(Connection c, PreparedStatement ps, String table, long done, long total)
+            throws SQLException {
+        ps.executeBatch();
+        c.commit();
+        if (done == total) {
+            System.out.printf("%s: %d rows%n", table, done);
+        } else if (done % 100_000 == 0) {
+            System.out.printf("%s: %d%s%n", table, done, total > 0 ? " / " + total : "");
+        }
+    }
+
+    private static long maxId(Connection c, String table) throws SQLException {
+        try (Statement st = c.createStatement(); ResultSet rs = st.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    // ids of the rows just inserted, in insert order
+    private static long[] ids(Connection c, String table, long after) throws SQLException {
+        long[] out = new long[1024];
+        int n = 0;
+        try (PreparedStatement ps = c.prepareStatement("SELECT id FROM " + table + " WHERE id > ? ORDER BY id")) {
+            ps.setLong(1, after);
+            // stream the rows instead of buffering millions of them in the driver
+            ps.setFetchSize(Integer.MIN_VALUE);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (n == out.length) out = Arrays.copyOf(out, n * 2);
+                    out[n++] = rs.getLong(1);
+                }
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    // fresh statistics so the optimizer sees the new row counts and value distribution
+    private static void analyze(Connection c) throws SQLException {
+        try (Statement st = c.createStatement()) {
+            st.execute("ANALYZE TABLE users, reports, report_status_history, otp_tokens");
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.civicpulse.benchmarks;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.catalina.Context;
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.coyote.AbstractProtocol;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Load comparison for the virtual-thread execution mode. Starts an embedded Tomcat whose handler
+ * blocks for a fixed time (standing in for a JDBC, Drive or SMTP round trip), once with the
+ * default 200 platform request threads and once with virtual threads, and drives each with the
+ * same number of concurrent clients. Run it with a fixed heap on Java 21:
+ *
+ * <pre>
+ * java -Xmx256m -cp backend-benchmarks/target/benchmarks.jar \
+ *     com.civicpulse.benchmarks.VirtualThreadLoadComparison [concurrency] [blockMs] [seconds]
+ * </pre>
+ */
+public class VirtualThreadLoadComparison {
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        long blockMs = args.length > 1 ? Long.parseLong(args[1]) : 50;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 15;
+        if (Runtime.version().feature() < 21) {
+            System.err.println("Virtual threads need Java 21; running on " + Runtime.version());
+            System.exit(1);
+        }
+        System.out.printf("concurrency=%d blockMs=%d duration=%ds maxHeap=%dMB%n", concurrency, blockMs, seconds,
+                Runtime.getRuntime().maxMemory() >> 20);
+        System.out.printf("%-9s %10s %10s %10s %10s %12s %8s%n",
+                "mode", "req/s", "p50 ms", "p99 ms", "errors", "peakHeapMB", "threads");
+        for (boolean virtual : new boolean[]{false, true}) {
+            run(virtual, concurrency, blockMs, seconds);
+        }
+    }
+
+    private static void run(boolean virtual, int concurrency, long blockMs, int seconds) throws Exception {
+        Tomcat tomcat = new Tomcat();
+        tomcat.setBaseDir(Files.createTempDirectory("vt-load").toString());
+        tomcat.setPort(0);
+        Connector connector = tomcat.getConnector();
+        AbstractProtocol<?> protocol = (AbstractProtocol<?>) connector.getProtocolHandler();
+        protocol.setMaxConnections(concurrency * 2);
+        protocol.setAcceptCount(concurrency);
+        if (virtual) {
+            // what spring.threads.virtual.enabled configures for the embedded Tomcat
+            protocol.setExecutor(new VirtualThreadExecutor("tomcat-handler-"));
+        } else {
+            protocol.setMaxThreads(200);
+        }
+        Context ctx = tomcat.addContext("", null);
+        Tomcat.addServlet(ctx, "io", new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                try {
+                    Thread.sleep(blockMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                resp.setContentType("text/plain");
+                resp.getWriter().write("ok");
+            }
+        });
+        ctx.addServletMappingDecoded("/io", "io");
+        tomcat.start();
+
+        try {
+            Result result = drive(connector.getLocalPort(), concurrency, seconds);
+            System.out.printf("%-9s %10.0f %10d %10d %10d %12d %8d%n", virtual ? "virtual" : "platform",
+                    result.throughput, result.p50, result.p99, result.errors, result.peakHeapMb, result.peakThreads);
+        } finally {
+            tomcat.stop();
+            tomcat.destroy();
+        }
+    }
+
+    private record Result(double throughput, long p50, long p99, long errors, long peakHeapMb, int peakThreads) {
+    }
+
+    private static Result drive(int port, int concurrency, int seconds) throws Exception {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/io"))
+                .timeout(Duration.ofSeconds(30)).GET().build();
+        Semaphore slots = new Semaphore(concurrency);
+        AtomicLong completed = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        // latency histogram in 1 ms buckets up to 10 s
+        AtomicLongArray histogram = new AtomicLongArray(10_001);
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        AtomicInteger peakThreads = new AtomicInteger();
+        long peakHeap = 0;
+
+        // warm up connections and JIT for a couple of seconds, then measure
+        long warmupEnd = System.nanoTime() + Duration.ofSeconds(2).toNanos();
+        long end = warmupEnd + Duration.ofSeconds(seconds).toNanos();
+        while (System.nanoTime() < end) {
+            slots.acquire();
+            long start = System.nanoTime();
+            boolean measured = start >= warmupEnd;
+            CompletableFuture<HttpResponse<Void>> f = client.sendAsync(request, HttpResponse.BodyHandlers.discarding());
+            f.whenComplete((resp, ex) -> {
+                slots.release();
+                if (!measured) return;
+                if (ex != null || resp.statusCode() != 200) {
+                    errors.incrementAndGet();
+                    return;
+                }
+                completed.incrementAndGet();
+                int ms = (int) Math.min(10_000, (System.nanoTime() - start) / 1_000_000);
+                histogram.incrementAndGet(ms);
+            });
+            if ((completed.get() & 1023) == 0) {
+                peakHeap = Math.max(peakHeap, memory.getHeapMemoryUsage().getUsed());
+                peakThreads.accumulateAndGet(ManagementFactory.getThreadMXBean().getThreadCount(), Math::max);
+            }
+        }
+        slots.acquire(concurrency);
+
+        long total = completed.get();
+        long[] counts = new long[histogram.length()];
+        Arrays.setAll(counts, histogram::get);
+        return new Result(total / (double) seconds, percentile(counts, total, 0.50), percentile(counts, total, 0.99),
+                errors.get(), peakHeap >> 20, peakThreads.get());
+    }
+
+    private static long percentile(long[] counts, long total, double p) {
+        long target = (long) Math.ceil(total * p);
+        long seen = 0;
+        for (int ms = 0; ms < counts.length; ms++) {
+            seen += counts[ms];
+            if (seen >= target && target > 0) return ms;
+        }
+        return counts.length - 1;
+    }
+}
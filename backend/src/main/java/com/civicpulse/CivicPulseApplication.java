@@ -4,12 +4,14 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import com.civicpulse.repository.UserRepository;
 import com.civicpulse.entity.User;
 
 @SpringBootApplication
+@EnableScheduling
 public class CivicPulseApplication {
     public static void main(String[] args) {
         SpringApplication.run(CivicPulseApplication.class, args);
@@ -0,0 +1,104 @@
+package com.civicpulse.cache;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * A small bounded map whose entries expire after a time-to-live. Reads are lock-free; when a
+ * put takes the map over {@code maxEntries}, expired entries are dropped first and then the
+ * entries closest to expiry, down to 90% of the bound.
+ */
+public class ExpiringCache<K, V> {
+    private final Map<K, Entry<V>> map = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+    private final Object evictLock = new Object();
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+
+    public ExpiringCache(int maxEntries, long ttlMillis) {
+        this(maxEntries, ttlMillis, System::currentTimeMillis);
+    }
+
+    public ExpiringCache(int maxEntries, long ttlMillis, LongSupplier clock) {
+        if (maxEntries <= 0) throw new IllegalArgumentException("maxEntries must be positive");
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+    }
+
+    public V get(K key) {
+        Entry<V> e = map.get(key);
+        if (e == null) return null;
+        if (e.expiresAt() <= clock.getAsLong()) {
+            map.remove(key, e);
+            return null;
+        }
+        return e.value();
+    }
+
+    /**
+     * Returns the cached value or computes, stores and returns it. A null result is not cached.
+     * Concurrent misses for the same key may compute more than once.
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V v = get(key);
+        if (v != null) return v;
+        v = loader.apply(key);
+        if (v != null) put(key, v);
+        return v;
+    }
+
+    public void put(K key, V value) {
+        put(key, value, ttlMillis);
+    }
+
+    /**
+     * Stores the value for at most {@code ttlMillis}, capped by the cache's own TTL.
+     */
+    public void put(K key, V value, long ttlMillis) {
+        long ttl = Math.min(ttlMillis, this.ttlMillis);
+        if (ttl <= 0) return;
+        map.put(key, new Entry<>(value, clock.getAsLong() + ttl));
+        if (map.size() > maxEntries) evict();
+    }
+
+    public void invalidate(K key) {
+        map.remove(key);
+    }
+
+    public void invalidateIf(Predicate<? super V> predicate) {
+        map.values().removeIf(e -> predicate.test(e.value()));
+    }
+
+    public void clear() {
+        map.clear();
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    private void evict() {
+        synchronized (evictLock) {
+            if (map.size() <= maxEntries) return;
+            long now = clock.getAsLong();
+            map.values().removeIf(e -> e.expiresAt() <= now);
+            int target = maxEntries - maxEntries / 10;
+            if (map.size() <= target) return;
+            List<Map.Entry<K, Entry<V>>> all = new ArrayList<>(map.entrySet());
+            all.sort(Comparator.comparingLong(e -> e.getValue().expiresAt()));
+            for (int i = 0; i < all.size() && map.size() > target; i++) {
+                map.remove(all.get(i).getKey(), all.get(i).getValue());
+            }
+        }
+    }
+}
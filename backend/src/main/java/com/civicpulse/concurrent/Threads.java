@@ -0,0 +1,33 @@
+package com.civicpulse.concurrent;
+
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread factories for the application's own worker pools. With
+ * {@code spring.threads.virtual.enabled=true} (Java 21+) the workers are virtual threads, so
+ * blocking Drive, SMTP and JDBC calls no longer hold a platform thread; the pools keep their
+ * size limits, which now only cap concurrency towards the external service.
+ */
+public final class Threads {
+    private Threads() {
+    }
+
+    /**
+     * @param virtual use virtual threads; ignored below Java 21, as Spring Boot does
+     */
+    public static ThreadFactory factory(String prefix, boolean virtual) {
+        if (virtual && JavaVersion.getJavaVersion().isEqualOrNewerThan(JavaVersion.TWENTY_ONE)) {
+            return new VirtualThreadTaskExecutor(prefix).getVirtualThreadFactory();
+        }
+        AtomicInteger seq = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
@@ -0,0 +1,48 @@
+package com.civicpulse.config;
+
+import com.civicpulse.metrics.SqlTrackingDataSource;
+import com.civicpulse.metrics.StatementCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.config.MeterFilter;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer statementCounterCustomizer() {
+        return props -> props.put(AvailableSettings.STATEMENT_INSPECTOR, new StatementCounter());
+    }
+
+    // static so it is in place before the data source is created; @Value placeholders do not resolve that early.
+    // The wrapper proxies every connection, statement and result set, so it is off unless asked for.
+    @Bean
+    public static BeanPostProcessor sqlTrackingDataSourcePostProcessor(Environment env,
+                                                                       ObjectProvider<MeterRegistry> meterRegistry) {
+        boolean enabled = env.getProperty("metrics.sql.tracking.enabled", Boolean.class, false);
+        long slowQueryMs = env.getProperty("metrics.sql.slow-query.ms", Long.class, 200L);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (enabled && bean instanceof DataSource ds && !(bean instanceof SqlTrackingDataSource)) {
+                    return new SqlTrackingDataSource(ds, slowQueryMs, meterRegistry::getIfAvailable);
+                }
+                return bean;
+            }
+        };
+    }
+
+    // category comes from user input; cap its distinct values so a bad client cannot blow up the registry
+    @Bean
+    public MeterFilter reportCategoryTagLimit() {
+        return MeterFilter.maximumAllowableTags("civicpulse.reports.create", "category", 50, MeterFilter.deny());
+    }
+}
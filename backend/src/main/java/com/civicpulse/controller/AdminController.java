@@ -1,14 +1,29 @@
 package com.civicpulse.controller;
 
-import com.civicpulse.entity.Report;
+import com.civicpulse.dto.ReportDtos;
+import com.civicpulse.service.AuthService;
+import com.civicpulse.service.ReportExportService;
+import com.civicpulse.service.ReportFeed;
 import com.civicpulse.service.ReportService;
+import com.civicpulse.service.ReportStats;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.Locale;
 import java.util.Map;
 
 @RestController
@@ -16,6 +31,10 @@ import java.util.Map;
 public class AdminController {
 
     @Autowired private ReportService reportService;
+    @Autowired private AuthService authService;
+    @Autowired private ReportExportService reportExportService;
+    @Autowired private ReportStats reportStats;
+    @Autowired private ReportFeed reportFeed;
 
     @PutMapping("/reports/{id}/status")
     public ResponseEntity<?> changeStatus(@PathVariable Long id,
@@ -39,9 +58,96 @@ public class AdminController {
         return ResponseEntity.ok(Map.of("success", true));
     }
 
+    /** Sets one status on up to {@code reports.bulk.max-size} reports; the response has a result per id. */
+    @PutMapping("/reports/bulk/status")
+    public ResponseEntity<ReportDtos.BulkResponse> bulkChangeStatus(@RequestBody ReportDtos.BulkStatusRequest body,
+                                                                    @AuthenticationPrincipal UserDetails admin) {
+        return ResponseEntity.ok(reportService.bulkUpdateStatus(body.ids, body.status, admin.getUsername(),
+                body.note != null ? body.note : ""));
+    }
+
+    @PutMapping("/reports/bulk/assign")
+    public ResponseEntity<ReportDtos.BulkResponse> bulkAssign(@RequestBody ReportDtos.BulkAssignRequest body,
+                                                              @AuthenticationPrincipal UserDetails admin) {
+        return ResponseEntity.ok(reportService.bulkAssign(body.ids, body.department, body.assignedTo,
+                admin.getUsername()));
+    }
+
     @GetMapping("/reports")
-    public ResponseEntity<List<Report>> listReports(@RequestParam(required = false) String status,
-                                                    @RequestParam(required = false) String category) {
-        return ResponseEntity.ok(reportService.getReports(status, category));
+    public ResponseEntity<ReportDtos.ReportPage> listReports(@RequestParam(required = false) String status,
+                                                             @RequestParam(required = false) String category,
+                                                             @RequestParam(required = false) String cursor,
+                                                             @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(reportService.getReports(status, category, cursor, limit));
+    }
+
+    /** Server-sent events for every report change matching the optional filters; resumes from Last-Event-ID. */
+    @GetMapping(value = "/reports/feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter feed(@RequestParam(required = false) String status,
+                           @RequestParam(required = false) String category,
+                           @RequestParam(required = false) String department,
+                           @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return reportFeed.subscribeAll(status, category, department, lastEventId);
+    }
+
+    /**
+     * Streams every matching report as NDJSON (default) or CSV; {@code to} is exclusive.
+     */
+    @GetMapping("/reports/export")
+    public ResponseEntity<StreamingResponseBody> exportReports(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        ReportExportService.Format fmt;
+        try {
+            fmt = ReportExportService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Unsupported export format: " + format);
+        }
+        MediaType type = fmt == ReportExportService.Format.CSV
+                ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                : new MediaType("application", "x-ndjson");
+        StreamingResponseBody body = out -> reportExportService.export(fmt, status, category, from, to, out);
+        return ResponseEntity.ok()
+                .contentType(type)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"reports." + fmt.name().toLowerCase(Locale.ROOT) + "\"")
+                .body(body);
+    }
+
+    /**
+     * Report counts from the in-memory counters, e.g. {@code ?groupBy=status,category&from=2024-01-01}.
+     * Dimensions are status, category, department and day; {@code from} and {@code to} are inclusive days.
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<ReportDtos.StatsResponse> stats(
+            @RequestParam(defaultValue = "status") String groupBy,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String department,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        Set<String> dims = Arrays.stream(groupBy.split(","))
+                .map(String::trim)
+                .filter(d -> !d.isEmpty())
+                .collect(Collectors.toSet());
+        for (String d : dims) {
+            if (!ReportStats.DIMENSIONS.contains(d)) throw new IllegalArgumentException("Unknown dimension: " + d);
+        }
+        return ResponseEntity.ok(reportStats.query(dims, status, category, department, from, to));
+    }
+
+    @PutMapping("/users/{id}/role")
+    public ResponseEntity<?> changeRole(@PathVariable Long id, @RequestBody Map<String, String> body) {
+        authService.updateRole(id, body.get("role"));
+        return ResponseEntity.ok(Map.of("success", true));
+    }
+
+    @PutMapping("/users/{id}/active")
+    public ResponseEntity<?> setActive(@PathVariable Long id, @RequestBody Map<String, Boolean> body) {
+        authService.setActive(id, Boolean.TRUE.equals(body.get("active")));
+        return ResponseEntity.ok(Map.of("success", true));
     }
 }
@@ -3,6 +3,7 @@ package com.civicpulse.controller;
 import com.civicpulse.dto.AuthDtos.*;
 import com.civicpulse.entity.User;
 import com.civicpulse.service.AuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -22,8 +23,8 @@ public class AuthController {
     }
 
     @PostMapping("/send-otp")
-    public ResponseEntity<OtpSendResponse> sendOtp(@RequestBody OtpSendRequest req) {
-        authService.sendOtp(req.getEmail());
+    public ResponseEntity<OtpSendResponse> sendOtp(@RequestBody OtpSendRequest req, HttpServletRequest request) {
+        authService.sendOtp(req.getEmail(), request.getRemoteAddr());
         OtpSendResponse resp = new OtpSendResponse();
         resp.setSent(true);
         return ResponseEntity.ok(resp);
@@ -31,21 +32,23 @@ public class AuthController {
 
     @PostMapping("/verify-otp")
     public ResponseEntity<AuthResponse> verifyOtp(@RequestBody OtpRequest req) {
-        String token = authService.verifyOtp(req.getEmail(), req.getOtp());
-        User user = authService.getUserRepository().findByEmail(req.getEmail()).orElse(null);
+        AuthService.Login login = authService.verifyOtp(req.getEmail(), req.getOtp());
         AuthResponse resp = new AuthResponse();
-        resp.setToken(token);
-        resp.setUser(user);
+        if (login != null) {
+            resp.setToken(login.token());
+            resp.setUser(login.user());
+        }
         return ResponseEntity.ok(resp);
     }
 
     @PostMapping("/login")
     public ResponseEntity<AuthResponse> login(@RequestBody LoginRequest req) {
-        String token = authService.login(req.getEmail(), req.getPassword());
-        User user = authService.getUserRepository().findByEmail(req.getEmail()).orElse(null);
+        AuthService.Login login = authService.login(req.getEmail(), req.getPassword());
         AuthResponse resp = new AuthResponse();
-        resp.setToken(token);
-        resp.setUser(user);
+        if (login != null) {
+            resp.setToken(login.token());
+            resp.setUser(login.user());
+        }
         return ResponseEntity.ok(resp);
     }
 
@@ -1,20 +1,124 @@
 package com.civicpulse.controller;
 
-import com.civicpulse.service.GoogleDriveService;
+import com.civicpulse.service.ImageUploadPipeline;
+import com.civicpulse.storage.BlobStore;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
 @RestController
 @RequestMapping("/api/v1/files")
 public class FileController {
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+
     @Autowired
-    private GoogleDriveService googleDriveService;
+    private BlobStore blobStore;
 
+    @Autowired
+    private ImageUploadPipeline imageUploadPipeline;
+
+    /** Stores an image re-encoded as JPEG, without its metadata; other files are rejected. */
     @PostMapping("/upload")
     public ResponseEntity<?> uploadFile(@RequestParam("file") MultipartFile file) throws Exception {
-        GoogleDriveService.DriveFileInfo fileInfo = googleDriveService.uploadFile(file);
-        return ResponseEntity.ok(fileInfo);
+        return ResponseEntity.ok(imageUploadPipeline.storeNow(file));
+    }
+
+    /**
+     * Streams a blob from a backend that serves its own content (the local filesystem store),
+     * honouring a single HTTP byte range. On Tomcat with sendfile enabled the copy is handed to
+     * the connector; otherwise it goes through {@link FileChannel#transferTo}. Files are served
+     * under a sandboxing CSP without sniffing, and anything that is not allow-listed media as a
+     * download.
+     */
+    @GetMapping("/**")
+    public void download(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String key = path.substring("/api/v1/files/".length());
+        BlobStore.BlobContent blob = blobStore.open(key);
+        if (blob == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        try (FileChannel channel = blob.channel()) {
+            long size = blob.size();
+            long start = 0;
+            long end = size - 1;
+            String range = request.getHeader(HttpHeaders.RANGE);
+            if (range != null && range.startsWith("bytes=") && !range.contains(",")) {
+                long[] parsed = parseRange(range.substring(6).trim(), size);
+                if (parsed == null) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                    response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+                start = parsed[0];
+                end = parsed[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+            }
+            long length = size == 0 ? 0 : end - start + 1;
+            response.setContentType(blob.contentType());
+            response.setHeader("X-Content-Type-Options", "nosniff");
+            response.setHeader("Content-Security-Policy", "default-src 'none'; sandbox");
+            if (BlobStore.mediaType(blob.contentType()) == null) {
+                response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment");
+            }
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable");
+            response.setContentLengthLong(length);
+            if (length == 0) return;
+
+            if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                request.setAttribute("org.apache.tomcat.sendfile.filename", blob.path().toAbsolutePath().toString());
+                request.setAttribute("org.apache.tomcat.sendfile.start", start);
+                request.setAttribute("org.apache.tomcat.sendfile.end", end + 1);
+                return;
+            }
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long pos = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long n = channel.transferTo(pos, remaining, out);
+                if (n <= 0) break;
+                pos += n;
+                remaining -= n;
+            }
+        }
+    }
+
+    /**
+     * @return inclusive {start, end}, or null when the range cannot be satisfied
+     */
+    static long[] parseRange(String spec, long size) {
+        int dash = spec.indexOf('-');
+        if (dash < 0 || size == 0) return null;
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) return null;
+                start = Math.max(0, size - suffix);
+                end = size - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? size - 1 : Math.min(Long.parseLong(last), size - 1);
+            }
+            if (start > end || start >= size) return null;
+            return new long[]{start, end};
+        } catch (NumberFormatException ex) {
+            return null;
+        }
     }
 }
@@ -1,40 +1,124 @@
 package com.civicpulse.controller;
 
 import com.civicpulse.dto.ReportDtos;
+import com.civicpulse.dto.ReportMapper;
 import com.civicpulse.entity.Report;
+import com.civicpulse.entity.ReportImage;
+import com.civicpulse.exception.DuplicateReportException;
+import com.civicpulse.exception.IdempotencyConflictException;
+import com.civicpulse.exception.UploadConflictException;
+import com.civicpulse.service.AuthService;
+import com.civicpulse.service.GeoIndex;
+import com.civicpulse.service.IdempotencyStore;
+import com.civicpulse.service.ReportDetailCache;
+import com.civicpulse.service.ReportFeed;
 import com.civicpulse.service.ReportService;
+import com.civicpulse.service.SearchIndex;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 @RestController
 @RequestMapping("/api/v1/reports")
 public class ReportController {
     @Autowired
     private ReportService reportService;
+    @Autowired
+    private GeoIndex geoIndex;
+    @Autowired
+    private SearchIndex searchIndex;
+    @Autowired
+    private ReportFeed reportFeed;
+    @Autowired
+    private AuthService authService;
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Value("${geo.max.radius.meters:50000}")
+    private double maxRadiusMeters;
+
+    @Value("${geo.max.results:1000}")
+    private int maxGeoResults;
+
+    @Value("${reports.page.default-size:20}")
+    private int defaultPageSize;
 
+    @Value("${reports.page.max-size:100}")
+    private int maxPageSize;
+
+    /**
+     * Media comes as multipart {@code images} and/or {@code uploadIds} of complete resumable
+     * uploads (see {@link UploadController}); at least one is required.
+     * With an {@code Idempotency-Key} header, a retry of a submission that already went through
+     * gets the original response (marked {@code Idempotent-Replayed: true}) and creates nothing.
+     */
     @PostMapping
     public ResponseEntity<ReportDtos.ReportResponse> createReport(
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @AuthenticationPrincipal UserDetails caller,
             @RequestParam Long userId,
             @RequestParam String title,
             @RequestParam String description,
             @RequestParam String category,
             @RequestParam Double latitude,
             @RequestParam Double longitude,
-            @RequestParam("images") List<MultipartFile> images) {
+            @RequestParam(value = "images", required = false) List<MultipartFile> images,
+            @RequestParam(required = false) List<String> uploadIds) {
+        if ((images == null || images.isEmpty()) && (uploadIds == null || uploadIds.isEmpty())) {
+            return ResponseEntity.badRequest().build();
+        }
         // Sanitize text fields
         String safeTitle = org.springframework.web.util.HtmlUtils.htmlEscape(title);
         String safeDescription = org.springframework.web.util.HtmlUtils.htmlEscape(description);
         String safeCategory = org.springframework.web.util.HtmlUtils.htmlEscape(category);
-            Report report;
+        MultipartFile[] files = images != null ? images.toArray(new MultipartFile[0]) : null;
+        String owner = caller != null ? caller.getUsername() : null;
+        Callable<ReportDtos.ReportResponse> create = () -> toResponse(reportService.createReport(userId, safeTitle,
+                safeDescription, safeCategory, latitude, longitude, files, uploadIds, owner));
+            IdempotencyStore.Result<ReportDtos.ReportResponse> result;
             try {
-                report = reportService.createReport(userId, safeTitle, safeDescription, safeCategory, latitude,
-                longitude, images != null ? images.toArray(new MultipartFile[0]) : null);
+                result = idempotencyKey == null
+                        ? new IdempotencyStore.Result<>(create.call(), false)
+                        : idempotencyStore.execute("POST /api/v1/reports", owner, idempotencyKey,
+                                requestHash(userId, title, description, category, latitude, longitude, files,
+                                        uploadIds),
+                                ReportDtos.ReportResponse.class, create);
+            } catch (DuplicateReportException | IdempotencyConflictException | UploadConflictException e) {
+                throw e;
             } catch (Exception e) {
                 return ResponseEntity.badRequest().build();
             }
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+        if (result.replayed()) ok.header("Idempotent-Replayed", "true");
+        return ok.body(result.value());
+    }
+
+    // images by name, type and size; hashing their bytes would cost a full read of every upload
+    private static String requestHash(Long userId, String title, String description, String category,
+                                      Double latitude, Double longitude, MultipartFile[] images,
+                                      List<String> uploadIds) {
+        List<Object> parts = new ArrayList<>(List.of(userId, title, description, category, latitude, longitude));
+        if (uploadIds != null) parts.addAll(uploadIds);
+        if (images != null) {
+            for (MultipartFile img : images) {
+                parts.add(img.getOriginalFilename() + "|" + img.getContentType() + "|" + img.getSize());
+            }
+        }
+        return IdempotencyStore.hash(parts.toArray());
+    }
+
+    public static ReportDtos.ReportResponse toResponse(Report report) {
         ReportDtos.ReportResponse resp = new ReportDtos.ReportResponse();
         resp.id = report.getId();
         resp.title = report.getTitle();
@@ -43,34 +127,112 @@ public class ReportController {
         resp.latitude = report.getLatitude();
         resp.longitude = report.getLongitude();
         resp.status = report.getStatus();
-        resp.images = new java.util.ArrayList<>();
+        resp.duplicateOf = report.getDuplicateOf();
+        resp.images = new ArrayList<>();
         if (report.getImages() != null) {
-            for (com.civicpulse.entity.ReportImage img : report.getImages()) {
-                ReportDtos.ImageDto dto = new ReportDtos.ImageDto();
-                dto.gdriveFileId = img.getGdriveFileId();
-                dto.gdriveLink = img.getGdriveLink();
-                resp.images.add(dto);
+            for (ReportImage img : report.getImages()) {
+                resp.images.add(ReportMapper.image(img));
             }
         }
-        return ResponseEntity.ok(resp);
+        return resp;
     }
 
     @GetMapping("/my")
-    public ResponseEntity<List<Report>> getMyReports(@RequestParam Long userId) {
-        List<Report> reports = reportService.getUserReports(userId);
-        return ResponseEntity.ok(reports);
+    public ResponseEntity<List<ReportDtos.ReportDetail>> getMyReports(@RequestParam Long userId) {
+        return ResponseEntity.ok(reportService.getUserReports(userId));
     }
 
     @GetMapping
-    public ResponseEntity<List<Report>> getReports(@RequestParam(required = false) String status,
-            @RequestParam(required = false) String category) {
-        List<Report> reports = reportService.getReports(status, category);
-        return ResponseEntity.ok(reports);
+    public ResponseEntity<ReportDtos.ReportPage> getReports(@RequestParam(required = false) String status,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(reportService.getReports(status, category, cursor, limit));
+    }
+
+    @GetMapping("/nearby")
+    public ResponseEntity<List<ReportDtos.GeoReport>> getNearby(@RequestParam double lat,
+            @RequestParam double lon,
+            @RequestParam(defaultValue = "1000") double radius,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) Integer limit) {
+        if (radius <= 0 || radius > maxRadiusMeters)
+            throw new IllegalArgumentException("radius must be between 0 and " + (long) maxRadiusMeters + " metres");
+        return ResponseEntity.ok(geoIndex.nearby(lat, lon, radius, status, category, geoLimit(limit)));
+    }
+
+    @GetMapping("/bbox")
+    public ResponseEntity<List<ReportDtos.GeoReport>> getInBoundingBox(@RequestParam double minLat,
+            @RequestParam double minLon,
+            @RequestParam double maxLat,
+            @RequestParam double maxLon,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) Integer limit) {
+        if (minLat > maxLat || minLon > maxLon)
+            throw new IllegalArgumentException("min corner must be south-west of max corner");
+        return ResponseEntity.ok(geoIndex.within(minLat, minLon, maxLat, maxLon, status, category, geoLimit(limit)));
+    }
+
+    /**
+     * Ranked full-text search over title, description and category. Geo filtering needs all of
+     * {@code lat}, {@code lon} and {@code radius}; {@code page} is zero-based.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<ReportDtos.SearchPage> search(@RequestParam String q,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) Double lat,
+            @RequestParam(required = false) Double lon,
+            @RequestParam(required = false) Double radius,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) Integer size) {
+        if (page < 0) throw new IllegalArgumentException("page must not be negative");
+        boolean anyGeo = lat != null || lon != null || radius != null;
+        if (anyGeo && (lat == null || lon == null || radius == null))
+            throw new IllegalArgumentException("lat, lon and radius must be given together");
+        if (radius != null && (radius <= 0 || radius > maxRadiusMeters))
+            throw new IllegalArgumentException("radius must be between 0 and " + (long) maxRadiusMeters + " metres");
+        int pageSize = size == null || size <= 0 ? defaultPageSize : Math.min(size, maxPageSize);
+        return ResponseEntity.ok(searchIndex.search(q, status, category, lat, lon, radius, page, pageSize));
     }
 
+    /**
+     * Server-sent events for changes to the caller's own reports. Browsers resend the last seen
+     * id as {@code Last-Event-ID} when they reconnect, and missed events are replayed.
+     */
+    @GetMapping(value = "/feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter feed(@AuthenticationPrincipal UserDetails principal,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        Long userId = authService.getUserRepository().findByEmail(principal.getUsername()).orElseThrow().getId();
+        return reportFeed.subscribeUser(userId, lastEventId);
+    }
+
+    /**
+     * Report detail from the read-through cache. The strong ETag changes whenever the report or
+     * its images change, so clients revalidate with {@code If-None-Match} and usually get a 304.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<Report> getReport(@PathVariable Long id) {
-        Report report = reportService.getReport(id);
-        return ResponseEntity.ok(report);
+    public ResponseEntity<ReportDtos.ReportDetail> getReport(@PathVariable Long id, WebRequest request) {
+        ReportDetailCache.View view = reportService.getReportDetail(id);
+        if (request.checkNotModified(view.etag())) return null;
+        return ResponseEntity.ok()
+                .eTag(view.etag())
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(view.detail());
+    }
+
+    @GetMapping("/{id}/images")
+    public ResponseEntity<List<ReportDtos.ImageDto>> getReportImages(@PathVariable Long id) {
+        List<ReportDtos.ImageDto> images = new ArrayList<>();
+        for (ReportImage img : reportService.getReportImages(id)) {
+            images.add(ReportMapper.image(img));
+        }
+        return ResponseEntity.ok(images);
+    }
+
+    private int geoLimit(Integer limit) {
+        return limit == null || limit <= 0 ? maxGeoResults : Math.min(limit, maxGeoResults);
     }
 }
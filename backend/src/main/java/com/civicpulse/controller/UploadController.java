@@ -0,0 +1,75 @@
+package com.civicpulse.controller;
+
+import com.civicpulse.dto.ReportDtos;
+import com.civicpulse.service.UploadSessionService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * Resumable media uploads: {@code POST} opens a session, {@code PUT} with {@code Upload-Offset}
+ * appends raw bytes (the body is the chunk, not multipart), {@code GET} reports the confirmed
+ * offset to resume from. A complete upload is attached by passing its id to
+ * {@code POST /api/v1/reports} as {@code uploadIds}.
+ */
+@RestController
+@RequestMapping("/api/v1/uploads")
+public class UploadController {
+    private static final String UPLOAD_OFFSET = "Upload-Offset";
+
+    @Autowired
+    private UploadSessionService uploadSessionService;
+
+    @PostMapping
+    public ResponseEntity<ReportDtos.UploadStatus> create(@RequestBody ReportDtos.CreateUploadRequest req,
+                                                          @AuthenticationPrincipal UserDetails caller) throws IOException {
+        if (req.size == null) throw new IllegalArgumentException("size is required");
+        UploadSessionService.Session s = uploadSessionService.create(caller.getUsername(), req.filename,
+                req.contentType, req.size);
+        return ResponseEntity.status(HttpStatus.CREATED).header(UPLOAD_OFFSET, "0").body(toStatus(s));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ReportDtos.UploadStatus> status(@PathVariable String id,
+                                                          @AuthenticationPrincipal UserDetails caller) {
+        UploadSessionService.Session s = uploadSessionService.get(id, caller.getUsername());
+        return ResponseEntity.ok().header(UPLOAD_OFFSET, String.valueOf(s.received())).body(toStatus(s));
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<ReportDtos.UploadStatus> append(@PathVariable String id,
+                                                          @RequestHeader(UPLOAD_OFFSET) long offset,
+                                                          @AuthenticationPrincipal UserDetails caller,
+                                                          HttpServletRequest request) throws IOException {
+        try (InputStream body = request.getInputStream()) {
+            uploadSessionService.write(id, caller.getUsername(), offset, body);
+        }
+        return status(id, caller);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> abort(@PathVariable String id, @AuthenticationPrincipal UserDetails caller) {
+        uploadSessionService.abort(id, caller.getUsername());
+        return ResponseEntity.ok(Map.of("success", true));
+    }
+
+    private static ReportDtos.UploadStatus toStatus(UploadSessionService.Session s) {
+        ReportDtos.UploadStatus st = new ReportDtos.UploadStatus();
+        st.id = s.id();
+        st.filename = s.filename();
+        st.contentType = s.contentType();
+        st.size = s.size();
+        st.offset = s.received();
+        st.complete = s.complete();
+        st.expiresAt = s.expiresAt();
+        return st;
+    }
+}
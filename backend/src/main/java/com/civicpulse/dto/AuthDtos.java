@@ -10,7 +10,7 @@ import lombok.Setter;
 public class AuthDtos {
     @Getter
     @Setter
-    public class RegisterRequest {
+    public static class RegisterRequest {
         @NotBlank
         private String name;
         @Email
@@ -21,7 +21,7 @@ public class AuthDtos {
 
     @Getter
     @Setter
-    public class LoginRequest {
+    public static class LoginRequest {
         @Email
         private String email;
         @NotBlank
@@ -1,5 +1,7 @@
 package com.civicpulse.dto;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public class ReportDtos {
@@ -19,10 +21,138 @@ public class ReportDtos {
         public Double latitude;
         public Double longitude;
         public String status;
+        /** Id of the open report this one was linked to as a near-duplicate, if any. */
+        public Long duplicateOf;
+        public List<ImageDto> images;
+    }
+    public static class ReportDetail {
+        public Long id;
+        public String title;
+        public String description;
+        public String category;
+        public Double latitude;
+        public Double longitude;
+        public String status;
+        public String assignedDepartment;
+        public Long duplicateOf;
+        public LocalDateTime createdAt;
+        public LocalDateTime updatedAt;
         public List<ImageDto> images;
     }
     public static class ImageDto {
-        public String gdriveFileId;
-        public String gdriveLink;
+        public Long id;
+        public String uploadStatus;
+        public Integer uploadAttempts;
+        public String storageBackend;
+        public String storageKey;
+        public String url;
+        public String thumbnailUrl;
+        public Long sizeBytes;
+        public Long thumbnailSizeBytes;
+        public Integer width;
+        public Integer height;
+    }
+
+    /** Closed projection for list views; only these columns are selected. */
+    public interface ReportSummary {
+        Long getId();
+        String getTitle();
+        String getCategory();
+        String getStatus();
+        Double getLatitude();
+        Double getLongitude();
+        String getAssignedDepartment();
+        LocalDateTime getCreatedAt();
+    }
+    public static class ReportPage {
+        public List<ReportSummary> items;
+        /** Opaque token for the next page, null on the last page. */
+        public String nextCursor;
+    }
+    public static class GeoReport {
+        public Long id;
+        public Double latitude;
+        public Double longitude;
+        public String status;
+        public String category;
+        /** Distance from the query point in metres; null for bounding-box queries. */
+        public Double distanceMeters;
+    }
+    public static class SearchHit {
+        public Long id;
+        public String title;
+        public String category;
+        public String status;
+        public Double latitude;
+        public Double longitude;
+        /** BM25 relevance; only comparable within one query. */
+        public float score;
+    }
+    public static class SearchPage {
+        /** Number of matching reports across all pages. */
+        public long total;
+        public int page;
+        public int size;
+        public List<SearchHit> items;
+    }
+    /** Payload of a {@code report} event on the SSE feeds; {@code id} is also the SSE event id. */
+    public static class FeedEvent {
+        public long id;
+        public String type;
+        public Long reportId;
+        public String previousStatus;
+        public String status;
+        public String category;
+        public String previousDepartment;
+        public String department;
+        public LocalDateTime updatedAt;
+    }
+    public static class StatsBucket {
+        // dimensions not grouped by are null
+        public String status;
+        public String category;
+        public String department;
+        public LocalDate day;
+        public long count;
+    }
+    public static class StatsResponse {
+        public long total;
+        public List<StatsBucket> buckets;
+    }
+    public static class BulkStatusRequest {
+        public List<Long> ids;
+        public String status;
+        public String note;
+    }
+    public static class BulkAssignRequest {
+        public List<Long> ids;
+        public String department;
+        public Long assignedTo;
+    }
+    public static class BulkItemResult {
+        public Long id;
+        public boolean success;
+        public String previousStatus;
+        public String error;
+    }
+    public static class BulkResponse {
+        public int updated;
+        /** One entry per distinct requested id, in request order. */
+        public List<BulkItemResult> results;
+    }
+    public static class CreateUploadRequest {
+        public String filename;
+        public String contentType;
+        public Long size;
+    }
+    /** A resumable upload session; resume by sending the bytes from {@code offset} on. */
+    public static class UploadStatus {
+        public String id;
+        public String filename;
+        public String contentType;
+        public long size;
+        public long offset;
+        public boolean complete;
+        public LocalDateTime expiresAt;
     }
 }
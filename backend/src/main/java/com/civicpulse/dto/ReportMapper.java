@@ -0,0 +1,53 @@
+package com.civicpulse.dto;
+
+import com.civicpulse.entity.Report;
+import com.civicpulse.entity.ReportImage;
+
+import java.util.ArrayList;
+
+/**
+ * Entity to view conversions shared by controllers and the caches that hold views. Only touches
+ * associations the caller has already fetched.
+ */
+public final class ReportMapper {
+
+    private ReportMapper() {
+    }
+
+    /** Detail view; {@code report.images} must be initialized. */
+    public static ReportDtos.ReportDetail detail(Report report) {
+        ReportDtos.ReportDetail d = new ReportDtos.ReportDetail();
+        d.id = report.getId();
+        d.title = report.getTitle();
+        d.description = report.getDescription();
+        d.category = report.getCategory();
+        d.latitude = report.getLatitude();
+        d.longitude = report.getLongitude();
+        d.status = report.getStatus();
+        d.assignedDepartment = report.getAssignedDepartment();
+        d.duplicateOf = report.getDuplicateOf();
+        d.createdAt = report.getCreatedAt();
+        d.updatedAt = report.getUpdatedAt();
+        d.images = new ArrayList<>();
+        if (report.getImages() != null) {
+            for (ReportImage img : report.getImages()) d.images.add(image(img));
+        }
+        return d;
+    }
+
+    public static ReportDtos.ImageDto image(ReportImage img) {
+        ReportDtos.ImageDto dto = new ReportDtos.ImageDto();
+        dto.id = img.getId();
+        dto.uploadStatus = img.getUploadStatus();
+        dto.uploadAttempts = img.getUploadAttempts();
+        dto.storageBackend = img.getStorageBackend();
+        dto.storageKey = img.getStorageKey();
+        dto.url = img.getUrl();
+        dto.thumbnailUrl = img.getThumbnailUrl();
+        dto.sizeBytes = img.getSizeBytes();
+        dto.thumbnailSizeBytes = img.getThumbnailSizeBytes();
+        dto.width = img.getWidth();
+        dto.height = img.getHeight();
+        return dto;
+    }
+}
@@ -0,0 +1,50 @@
+package com.civicpulse.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+@Entity
+@Table(name = "email_outbox")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailOutbox {
+    public static final String STATUS_PENDING = "PENDING";
+    // claimed by one sender; back to PENDING if the claim runs out before it finishes
+    public static final String STATUS_SENDING = "SENDING";
+    public static final String STATUS_SENT = "SENT";
+    // gave up after the maximum number of attempts; kept for inspection
+    public static final String STATUS_DEAD = "DEAD";
+    // not sent because it was no longer useful by the time it was due (an expired OTP)
+    public static final String STATUS_EXPIRED = "EXPIRED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(nullable = false)
+    private String recipient;
+    @Column(nullable = false)
+    private String subject;
+    @Column(name = "body_html", nullable = false, columnDefinition = "TEXT")
+    private String bodyHtml;
+    private String template;
+    @Column(nullable = false)
+    private String status = STATUS_PENDING;
+    @Column(nullable = false)
+    private Integer attempts = 0;
+    @Column(name = "last_error")
+    private String lastError;
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+    @Column(name = "claim_token")
+    private String claimToken;
+    @Column(name = "created_at")
+    private LocalDateTime createdAt = LocalDateTime.now();
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+}
@@ -0,0 +1,28 @@
+package com.civicpulse.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+@Entity
+@Table(name = "idempotency_keys")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+    // SHA-256 of scope, caller and client key; the raw key is never stored
+    @Id
+    @Column(name = "key_hash", length = 64)
+    private String keyHash;
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+    // null while the request that claimed the key is still running
+    @Column(name = "response_json", columnDefinition = "TEXT")
+    private String responseJson;
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -37,6 +37,10 @@ public class Report {
     @JoinColumn(name = "assigned_to")
     private User assignedTo;
 
+    // set when the report was filed as a near-duplicate of an existing open report
+    @Column(name = "duplicate_of")
+    private Long duplicateOf;
+
     private LocalDateTime createdAt = LocalDateTime.now();
     private LocalDateTime updatedAt = LocalDateTime.now();
 
@@ -12,16 +12,55 @@ import lombok.AllArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 public class ReportImage {
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_UPLOADED = "UPLOADED";
+    public static final String STATUS_FAILED = "FAILED";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "report_id", nullable = false)
     private Report report;
-    @Column(name = "gdrive_file_id")
-    private String gdriveFileId;
-    @Column(name = "gdrive_link")
-    private String gdriveLink;
+    // which BlobStore holds the file ("gdrive", "local"); the key is only meaningful to that backend
+    @Column(name = "storage_backend")
+    private String storageBackend;
+    @Column(name = "storage_key")
+    private String storageKey;
+    @Column(name = "url")
+    private String url;
     @Column(name = "uploaded_at")
-    private LocalDateTime uploadedAt = LocalDateTime.now();
+    private LocalDateTime uploadedAt;
+
+    // downscaled variants written by ImageProcessor; sizeBytes is the stored main image
+    @Column(name = "thumbnail_storage_key")
+    private String thumbnailStorageKey;
+    @Column(name = "thumbnail_url")
+    private String thumbnailUrl;
+    @Column(name = "thumbnail_size_bytes")
+    private Long thumbnailSizeBytes;
+    @Column(name = "original_size_bytes")
+    private Long originalSizeBytes;
+    @Column(name = "width")
+    private Integer width;
+    @Column(name = "height")
+    private Integer height;
+
+    // upload pipeline state: the file is staged locally until a worker pushes it to the BlobStore
+    @Column(name = "upload_status", nullable = false)
+    private String uploadStatus = STATUS_PENDING;
+    @Column(name = "original_filename")
+    private String originalFilename;
+    @Column(name = "content_type")
+    private String contentType;
+    @Column(name = "size_bytes")
+    private Long sizeBytes;
+    @Column(name = "staged_path")
+    private String stagedPath;
+    @Column(name = "upload_attempts")
+    private Integer uploadAttempts = 0;
+    @Column(name = "last_error")
+    private String lastError;
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
 }
@@ -11,8 +11,11 @@ import java.time.LocalDateTime;
 @Getter @Setter
 public class ReportStatusHistory {
 
+    // table-allocated in blocks so bulk status changes can batch their inserts (IDENTITY cannot)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "report_status_history_id")
+    @TableGenerator(name = "report_status_history_id", table = "id_generators", pkColumnName = "name",
+            valueColumnName = "next_val", pkColumnValue = "report_status_history", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,17 @@
+package com.civicpulse.exception;
+
+/**
+ * Thrown when a new report is a near-duplicate of an open report and duplicates are rejected.
+ */
+public class DuplicateReportException extends RuntimeException {
+    private final Long duplicateOf;
+
+    public DuplicateReportException(Long duplicateOf) {
+        super("Duplicate of report " + duplicateOf);
+        this.duplicateOf = duplicateOf;
+    }
+
+    public Long getDuplicateOf() {
+        return duplicateOf;
+    }
+}
@@ -0,0 +1,18 @@
+package com.civicpulse.exception;
+
+/**
+ * Thrown when an {@code Idempotency-Key} cannot be honoured: it was already used for a different
+ * request, or the first request with it is still running. Answered with 409.
+ */
+public class IdempotencyConflictException extends RuntimeException {
+    private final String error;
+
+    public IdempotencyConflictException(String error, String message) {
+        super(message);
+        this.error = error;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
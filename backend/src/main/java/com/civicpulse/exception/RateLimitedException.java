@@ -0,0 +1,17 @@
+package com.civicpulse.exception;
+
+/**
+ * Thrown when a caller exceeds a rate limit; answered with 429 and a Retry-After header.
+ */
+public class RateLimitedException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public RateLimitedException(String message, long retryAfterMillis) {
+        super(message);
+        this.retryAfterSeconds = Math.max(1, (retryAfterMillis + 999) / 1000);
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -1,5 +1,6 @@
 package com.civicpulse.exception;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -30,6 +31,32 @@ public class RestExceptionHandler {
         return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "access_denied"));
     }
 
+    @ExceptionHandler(DuplicateReportException.class)
+    public ResponseEntity<?> handleDuplicate(DuplicateReportException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", "duplicate_report", "duplicateOf", ex.getDuplicateOf()));
+    }
+
+    @ExceptionHandler(IdempotencyConflictException.class)
+    public ResponseEntity<?> handleIdempotencyConflict(IdempotencyConflictException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", ex.getError(), "message", ex.getMessage()));
+    }
+
+    @ExceptionHandler(UploadConflictException.class)
+    public ResponseEntity<?> handleUploadConflict(UploadConflictException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header("Upload-Offset", String.valueOf(ex.getOffset()))
+                .body(Map.of("error", ex.getError(), "message", ex.getMessage(), "offset", ex.getOffset()));
+    }
+
+    @ExceptionHandler(RateLimitedException.class)
+    public ResponseEntity<?> handleRateLimited(RateLimitedException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(Map.of("error", "rate_limited", "retryAfterSeconds", ex.getRetryAfterSeconds()));
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<?> handleRuntime(RuntimeException ex) {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", ex.getMessage()));
@@ -0,0 +1,24 @@
+package com.civicpulse.exception;
+
+/**
+ * Thrown when an upload chunk cannot be written at the requested offset, or the session is busy
+ * with another chunk. Answered with 409 and the offset the client should resume from.
+ */
+public class UploadConflictException extends RuntimeException {
+    private final String error;
+    private final long offset;
+
+    public UploadConflictException(String error, String message, long offset) {
+        super(message);
+        this.error = error;
+        this.offset = offset;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+}
@@ -0,0 +1,134 @@
+package com.civicpulse.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the SQL work of each request (statements prepared, rows read, time inside JDBC), tagged
+ * by endpoint pattern and method. Runs ahead of the security chain so statements made while
+ * authenticating are included.
+ * <p>
+ * A request that prepares more statements than its budget, or takes longer than
+ * {@code metrics.sql.slow-request.ms}, is logged and counted in {@code civicpulse.sql.budget.exceeded}.
+ * The budget is {@code metrics.sql.budget.statements} unless {@code metrics.sql.budget.overrides}
+ * lists the endpoint as {@code METHOD pattern=N}, comma separated.
+ * <p>
+ * Rows and JDBC time come from {@link SqlTrackingDataSource} and are only recorded while
+ * {@code metrics.sql.tracking.enabled} is set; statement counts are always recorded.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class RequestMetricsFilter extends OncePerRequestFilter {
+    private static final Logger log = LoggerFactory.getLogger(RequestMetricsFilter.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${metrics.sql.budget.statements:20}")
+    private int defaultBudget = 20;
+
+    @Value("${metrics.sql.budget.overrides:}")
+    private String overrides = "";
+
+    @Value("${metrics.sql.slow-request.ms:1000}")
+    private long slowRequestMs = 1000;
+
+    @Value("${metrics.sql.tracking.enabled:false}")
+    private boolean jdbcTracking = false;
+
+    private Map<String, Integer> budgets = Map.of();
+
+    @PostConstruct
+    public void init() {
+        Map<String, Integer> parsed = new HashMap<>();
+        for (String entry : overrides.split(",")) {
+            if (entry.isBlank()) continue;
+            int eq = entry.lastIndexOf('=');
+            if (eq < 0) throw new IllegalArgumentException("Expected METHOD pattern=N in metrics.sql.budget.overrides: " + entry);
+            parsed.put(entry.substring(0, eq).trim().replaceAll("\\s+", " "), Integer.parseInt(entry.substring(eq + 1).trim()));
+        }
+        budgets = parsed;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlStats.reset();
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+            String method = request.getMethod();
+            SqlStats.Snapshot sql = SqlStats.snapshot();
+            record(uri, method, sql);
+
+            int budget = budgets.getOrDefault(method + " " + uri, defaultBudget);
+            boolean overBudget = sql.statements() > budget;
+            boolean slow = elapsedMs > slowRequestMs;
+            if (overBudget || slow) {
+                String what = overBudget ? "exceeded its query budget" : "was slow";
+                if (jdbcTracking) {
+                    log.warn("{} {} {}: {} statements (budget {}), {} rows, {} ms in JDBC, {} ms total", method, uri,
+                            what, sql.statements(), budget, sql.rows(), sql.jdbcMillis(), elapsedMs);
+                } else {
+                    log.warn("{} {} {}: {} statements (budget {}), {} ms total", method, uri, what,
+                            sql.statements(), budget, elapsedMs);
+                }
+                if (overBudget) exceeded(uri, method, "statements");
+                if (slow) exceeded(uri, method, "latency");
+            }
+        }
+    }
+
+    private void record(String uri, String method, SqlStats.Snapshot sql) {
+        DistributionSummary.builder("civicpulse.hibernate.statements")
+                .description("SQL statements prepared per HTTP request")
+                .baseUnit("statements")
+                .tag("uri", uri)
+                .tag("method", method)
+                .register(meterRegistry)
+                .record(sql.statements());
+        if (!jdbcTracking) return;
+        DistributionSummary.builder("civicpulse.jdbc.rows")
+                .description("Result set rows read per HTTP request")
+                .baseUnit("rows")
+                .tag("uri", uri)
+                .tag("method", method)
+                .register(meterRegistry)
+                .record(sql.rows());
+        Timer.builder("civicpulse.jdbc.time")
+                .description("Time spent executing SQL per HTTP request")
+                .tag("uri", uri)
+                .tag("method", method)
+                .register(meterRegistry)
+                .record(sql.jdbcNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private void exceeded(String uri, String method, String reason) {
+        meterRegistry.counter("civicpulse.sql.budget.exceeded", "uri", uri, "method", method, "reason", reason)
+                .increment();
+    }
+}
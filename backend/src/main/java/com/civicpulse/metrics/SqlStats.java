@@ -0,0 +1,47 @@
+package com.civicpulse.metrics;
+
+/**
+ * SQL work done on the current thread since the last {@link #reset()}: statements prepared by
+ * Hibernate ({@link StatementCounter}), rows read and time spent inside JDBC calls
+ * ({@link SqlTrackingDataSource}). {@link RequestMetricsFilter} resets it at the start of each
+ * request and reads it at the end.
+ */
+public final class SqlStats {
+    private static final ThreadLocal<long[]> CURRENT = ThreadLocal.withInitial(() -> new long[3]);
+    private static final int STATEMENTS = 0;
+    private static final int ROWS = 1;
+    private static final int JDBC_NANOS = 2;
+
+    public record Snapshot(int statements, long rows, long jdbcNanos) {
+        public long jdbcMillis() {
+            return jdbcNanos / 1_000_000;
+        }
+    }
+
+    private SqlStats() {
+    }
+
+    public static void reset() {
+        long[] c = CURRENT.get();
+        c[STATEMENTS] = 0;
+        c[ROWS] = 0;
+        c[JDBC_NANOS] = 0;
+    }
+
+    public static Snapshot snapshot() {
+        long[] c = CURRENT.get();
+        return new Snapshot((int) c[STATEMENTS], c[ROWS], c[JDBC_NANOS]);
+    }
+
+    static void statementPrepared() {
+        CURRENT.get()[STATEMENTS]++;
+    }
+
+    static void rowRead() {
+        CURRENT.get()[ROWS]++;
+    }
+
+    static void jdbcTime(long nanos) {
+        CURRENT.get()[JDBC_NANOS] += nanos;
+    }
+}
@@ -0,0 +1,114 @@
+package com.civicpulse.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.function.Supplier;
+
+/**
+ * Wraps the pool's connections so every statement execution adds its duration, and every row a
+ * result set yields, to {@link SqlStats}. Executions slower than the threshold are logged with
+ * their SQL and counted in {@code civicpulse.jdbc.slow}. Only JDBC calls are wrapped; the pool and
+ * the driver are unchanged, so {@code unwrap} still reaches the underlying objects.
+ */
+public class SqlTrackingDataSource extends DelegatingDataSource {
+    private static final Logger log = LoggerFactory.getLogger(SqlTrackingDataSource.class);
+    private static final int MAX_LOGGED_SQL = 1000;
+
+    private final long slowQueryNanos;
+    // the registry is created after the data source, so it is looked up on first use
+    private final Supplier<MeterRegistry> meterRegistry;
+
+    public SqlTrackingDataSource(DataSource target, long slowQueryMs, Supplier<MeterRegistry> meterRegistry) {
+        super(target);
+        this.slowQueryNanos = slowQueryMs * 1_000_000L;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        return proxy(Connection.class, (p, method, args) -> {
+            Object result = invoke(connection, method, args);
+            if (result instanceof Statement statement) {
+                // prepareStatement/prepareCall carry their SQL; createStatement gets it at execute
+                String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+                return wrap(statement, sql);
+            }
+            return result;
+        });
+    }
+
+    private Statement wrap(Statement statement, String preparedSql) {
+        Class<? extends Statement> type = statement instanceof CallableStatement ? CallableStatement.class
+                : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+        return proxy(type, (p, method, args) -> {
+            String name = method.getName();
+            if (!name.startsWith("execute")) {
+                Object result = invoke(statement, method, args);
+                return name.equals("getResultSet") && result != null ? wrap((ResultSet) result) : result;
+            }
+            long start = System.nanoTime();
+            try {
+                Object result = invoke(statement, method, args);
+                return result instanceof ResultSet rs ? wrap(rs) : result;
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                SqlStats.jdbcTime(elapsed);
+                if (elapsed > slowQueryNanos) {
+                    slow(preparedSql != null ? preparedSql : args != null && args.length > 0 ? String.valueOf(args[0]) : name,
+                            elapsed);
+                }
+            }
+        });
+    }
+
+    private ResultSet wrap(ResultSet rs) {
+        return proxy(ResultSet.class, (p, method, args) -> {
+            Object result = invoke(rs, method, args);
+            if (Boolean.TRUE.equals(result) && method.getName().equals("next")) SqlStats.rowRead();
+            return result;
+        });
+    }
+
+    private void slow(String sql, long nanos) {
+        String text = sql.length() > MAX_LOGGED_SQL ? sql.substring(0, MAX_LOGGED_SQL) + "..." : sql;
+        log.warn("Slow SQL ({} ms): {}", nanos / 1_000_000, text);
+        MeterRegistry registry = meterRegistry.get();
+        if (registry != null) registry.counter("civicpulse.jdbc.slow").increment();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<? extends T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(SqlTrackingDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.civicpulse.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate hook that counts the SQL statements prepared on the current thread into
+ * {@link SqlStats}; the SQL is not altered.
+ */
+public class StatementCounter implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        SqlStats.statementPrepared();
+        return sql;
+    }
+}
@@ -0,0 +1,96 @@
+package com.civicpulse.otp;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Default single-node {@link OtpStore}. Entries live in a map and are guarded by a fixed set of
+ * striped locks chosen by email, so concurrent sends and verifies for one address are serialized
+ * without a global lock. Expired entries are purged periodically.
+ */
+@Component
+@ConditionalOnProperty(name = "otp.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryOtpStore implements OtpStore {
+    private static final int STRIPES = 64;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    private final LongSupplier clock;
+
+    private static final class Entry {
+        final String code;
+        final long expiresAt;
+        int attempts;
+
+        Entry(String code, long expiresAt) {
+            this.code = code;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    public InMemoryOtpStore() {
+        this(System::currentTimeMillis);
+    }
+
+    InMemoryOtpStore(LongSupplier clock) {
+        this.clock = clock;
+        for (int i = 0; i < STRIPES; i++) locks[i] = new ReentrantLock();
+    }
+
+    private ReentrantLock lockFor(String email) {
+        return locks[(email.hashCode() & 0x7fffffff) % STRIPES];
+    }
+
+    @Override
+    public void put(String email, String code, Duration ttl) {
+        ReentrantLock lock = lockFor(email);
+        lock.lock();
+        try {
+            entries.put(email, new Entry(code, clock.getAsLong() + ttl.toMillis()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Result verify(String email, String code, int maxAttempts) {
+        ReentrantLock lock = lockFor(email);
+        lock.lock();
+        try {
+            Entry e = entries.get(email);
+            if (e == null) return Result.NOT_FOUND;
+            if (e.expiresAt <= clock.getAsLong()) {
+                entries.remove(email);
+                return Result.EXPIRED;
+            }
+            if (OtpStore.matches(e.code, code)) {
+                entries.remove(email);
+                return Result.OK;
+            }
+            if (++e.attempts >= maxAttempts) {
+                entries.remove(email);
+                return Result.TOO_MANY_ATTEMPTS;
+            }
+            return Result.INVALID;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${otp.purge.interval.ms:60000}")
+    public void purgeExpired() {
+        long now = clock.getAsLong();
+        entries.entrySet().removeIf(e -> e.getValue().expiresAt <= now);
+    }
+
+    int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,57 @@
+package com.civicpulse.otp;
+
+import com.civicpulse.entity.OtpToken;
+import com.civicpulse.repository.OtpTokenRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * {@link OtpStore} on the {@code otp_tokens} table, for deployments with more than one node.
+ * The row is read with a write lock so concurrent verifies of one email are serialized.
+ */
+@Component
+@ConditionalOnProperty(name = "otp.store", havingValue = "jpa")
+public class JpaOtpStore implements OtpStore {
+    @Autowired
+    private OtpTokenRepository otpTokenRepository;
+
+    @Override
+    @Transactional
+    public void put(String email, String code, Duration ttl) {
+        otpTokenRepository.deleteByEmail(email);
+        OtpToken token = new OtpToken();
+        token.setEmail(email);
+        token.setOtpCode(code);
+        token.setExpiresAt(LocalDateTime.now().plus(ttl));
+        token.setAttempts(0);
+        token.setCreatedAt(LocalDateTime.now());
+        otpTokenRepository.save(token);
+    }
+
+    @Override
+    @Transactional
+    public Result verify(String email, String code, int maxAttempts) {
+        OtpToken t = otpTokenRepository.findForUpdateByEmail(email).orElse(null);
+        if (t == null) return Result.NOT_FOUND;
+        if (t.getExpiresAt().isBefore(LocalDateTime.now())) {
+            otpTokenRepository.delete(t);
+            return Result.EXPIRED;
+        }
+        if (OtpStore.matches(t.getOtpCode(), code)) {
+            otpTokenRepository.delete(t);
+            return Result.OK;
+        }
+        t.setAttempts(t.getAttempts() + 1);
+        if (t.getAttempts() >= maxAttempts) {
+            otpTokenRepository.delete(t);
+            return Result.TOO_MANY_ATTEMPTS;
+        }
+        otpTokenRepository.save(t);
+        return Result.INVALID;
+    }
+}
@@ -0,0 +1,30 @@
+package com.civicpulse.otp;
+
+import java.time.Duration;
+
+/**
+ * Holds the one outstanding OTP per email. Implementations must make {@link #verify} atomic per
+ * email: a code can be consumed once, and failed attempts are counted without lost updates.
+ */
+public interface OtpStore {
+
+    enum Result { OK, INVALID, EXPIRED, NOT_FOUND, TOO_MANY_ATTEMPTS }
+
+    /**
+     * Stores a code for the email, replacing any previous one.
+     */
+    void put(String email, String code, Duration ttl);
+
+    /**
+     * Checks the code. The entry is removed on success, on expiry, and once {@code maxAttempts}
+     * wrong codes have been tried.
+     */
+    Result verify(String email, String code, int maxAttempts);
+
+    static boolean matches(String expected, String actual) {
+        if (expected == null || actual == null) return false;
+        return java.security.MessageDigest.isEqual(
+                expected.getBytes(java.nio.charset.StandardCharsets.UTF_8),
+                actual.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+    }
+}
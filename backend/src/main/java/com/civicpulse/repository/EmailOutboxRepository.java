@@ -0,0 +1,39 @@
+package com.civicpulse.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.civicpulse.entity.EmailOutbox;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+    @Query("SELECT m.id FROM EmailOutbox m WHERE m.status = :status AND (m.nextAttemptAt IS NULL OR m.nextAttemptAt <= :now) ORDER BY m.id")
+    List<Long> findDueIds(@Param("status") String status, @Param("now") LocalDateTime now, Pageable pageable);
+
+    /** Moves the rows that are still PENDING to SENDING under {@code token}; other nodes' claims are skipped. */
+    @Transactional
+    @Modifying
+    @Query("UPDATE EmailOutbox m SET m.status = 'SENDING', m.claimToken = :token, m.nextAttemptAt = :until " +
+           "WHERE m.id IN :ids AND m.status = 'PENDING'")
+    int claim(@Param("ids") Collection<Long> ids, @Param("token") String token, @Param("until") LocalDateTime until);
+
+    List<EmailOutbox> findByClaimToken(String claimToken);
+
+    /** Returns SENDING rows whose claim ran out, e.g. because their node died, to PENDING. */
+    @Transactional
+    @Modifying
+    @Query("UPDATE EmailOutbox m SET m.status = 'PENDING', m.claimToken = NULL " +
+           "WHERE m.status = 'SENDING' AND m.nextAttemptAt < :now")
+    int releaseExpiredClaims(@Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM EmailOutbox m WHERE m.status IN :settled AND m.createdAt < :cutoff")
+    int deleteSettledBefore(@Param("settled") Collection<String> settled, @Param("cutoff") LocalDateTime cutoff);
+}
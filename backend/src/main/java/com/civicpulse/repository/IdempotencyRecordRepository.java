@@ -0,0 +1,29 @@
+package com.civicpulse.repository;
+
+import com.civicpulse.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+    /** Claims a key for a request about to run; a key conflict means another request holds it. */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (key_hash, request_hash, created_at, expires_at) " +
+                   "VALUES (:keyHash, :requestHash, :now, :expiresAt)", nativeQuery = true)
+    int insertPending(@Param("keyHash") String keyHash, @Param("requestHash") String requestHash,
+                      @Param("now") LocalDateTime now, @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.keyHash = :keyHash AND r.expiresAt < :now")
+    int deleteExpiredKey(@Param("keyHash") String keyHash, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -1,10 +1,19 @@
 package com.civicpulse.repository;
 
 import com.civicpulse.entity.OtpToken;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
 import java.util.Optional;
 
 public interface OtpTokenRepository extends JpaRepository<OtpToken, Long> {
     Optional<OtpToken> findByEmail(String email);
     void deleteByEmail(String email);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM OtpToken t WHERE t.email = :email")
+    Optional<OtpToken> findForUpdateByEmail(@Param("email") String email);
 }
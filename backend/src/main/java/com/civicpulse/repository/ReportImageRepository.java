@@ -1,7 +1,18 @@
 package com.civicpulse.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.civicpulse.entity.ReportImage;
 
-public interface ReportImageRepository extends JpaRepository<ReportImage, Long> {}
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ReportImageRepository extends JpaRepository<ReportImage, Long> {
+    List<ReportImage> findByReportIdOrderByIdAsc(Long reportId);
+
+    @Query("SELECT i.id FROM ReportImage i WHERE i.uploadStatus = :status AND (i.nextAttemptAt IS NULL OR i.nextAttemptAt <= :now) ORDER BY i.id")
+    List<Long> findDueIds(@Param("status") String status, @Param("now") LocalDateTime now, Pageable pageable);
+}
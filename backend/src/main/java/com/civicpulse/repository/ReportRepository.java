@@ -1,18 +1,154 @@
 package com.civicpulse.repository;
 
+import com.civicpulse.dto.ReportDtos.ReportSummary;
 import com.civicpulse.entity.Report;
 import com.civicpulse.entity.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ReportRepository extends JpaRepository<Report, Long> {
-    List<Report> findByUser(@Param("user") User user);
-
-    @Query("SELECT r FROM Report r WHERE (:status IS NULL OR r.status = :status) AND (:category IS NULL OR r.category = :category)")
-    List<Report> findByStatusAndCategory(@Param("status") String status, @Param("category") String category);
+    // "my reports" page: reports with their images in one query
+    @EntityGraph(attributePaths = "images")
+    List<Report> findByUserIdOrderByCreatedAtDescIdDesc(Long userId);
 
     long countByStatus(String status);
+
+    // detail view: the report and its images in one query
+    @Query("SELECT DISTINCT r FROM Report r LEFT JOIN FETCH r.images WHERE r.id = :id")
+    Optional<Report> findDetailById(@Param("id") Long id);
+
+    String SUMMARY_COLUMNS = "r.id AS id, r.title AS title, r.category AS category, r.status AS status, "
+            + "r.latitude AS latitude, r.longitude AS longitude, r.assignedDepartment AS assignedDepartment, "
+            + "r.createdAt AS createdAt";
+
+    // keyset pagination on (createdAt, id), newest first; pass PageRequest.of(0, n) as the limit
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM Report r WHERE (:status IS NULL OR r.status = :status) AND (:category IS NULL OR r.category = :category) "
+            + "ORDER BY r.createdAt DESC, r.id DESC")
+    List<ReportSummary> findFirstPage(@Param("status") String status, @Param("category") String category, Pageable limit);
+
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM Report r WHERE (:status IS NULL OR r.status = :status) AND (:category IS NULL OR r.category = :category) "
+            + "AND (r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id)) "
+            + "ORDER BY r.createdAt DESC, r.id DESC")
+    List<ReportSummary> findPageAfter(@Param("status") String status, @Param("category") String category,
+                                      @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable limit);
+
+    /** Row used to (re)build the in-memory read models, read in id order in bounded batches. */
+    interface IndexRow {
+        Long getId();
+        Double getLatitude();
+        Double getLongitude();
+        String getStatus();
+        String getCategory();
+        LocalDateTime getCreatedAt();
+    }
+
+    @Query("SELECT r.id AS id, r.latitude AS latitude, r.longitude AS longitude, r.status AS status, "
+            + "r.category AS category, r.createdAt AS createdAt FROM Report r WHERE r.id > :afterId ORDER BY r.id")
+    List<IndexRow> findIndexRows(@Param("afterId") Long afterId, Pageable limit);
+
+    /** Row used to rebuild the text-based read models; includes title and description. */
+    interface TextRow {
+        Long getId();
+        String getTitle();
+        String getDescription();
+        String getCategory();
+        String getStatus();
+        Long getDuplicateOf();
+        Double getLatitude();
+        Double getLongitude();
+        LocalDateTime getCreatedAt();
+    }
+
+    String TEXT_COLUMNS = "r.id AS id, r.title AS title, r.description AS description, r.category AS category, "
+            + "r.status AS status, r.duplicateOf AS duplicateOf, r.latitude AS latitude, r.longitude AS longitude, "
+            + "r.createdAt AS createdAt";
+
+    @Query("SELECT " + TEXT_COLUMNS + " FROM Report r WHERE r.id > :afterId AND r.createdAt >= :since ORDER BY r.id")
+    List<TextRow> findTextRowsSince(@Param("since") LocalDateTime since, @Param("afterId") Long afterId, Pageable limit);
+
+    @Query("SELECT " + TEXT_COLUMNS + " FROM Report r WHERE r.id > :afterId ORDER BY r.id")
+    List<TextRow> findTextRows(@Param("afterId") Long afterId, Pageable limit);
+
+    /** One cell of the dashboard counters: reports per status, category, department and filing day. */
+    interface StatsRow {
+        String getStatus();
+        String getCategory();
+        String getDepartment();
+        LocalDate getDay();
+        Long getCount();
+    }
+
+    @Query("SELECT r.status AS status, r.category AS category, r.assignedDepartment AS department, "
+            + "extract(date from r.createdAt) AS day, COUNT(r) AS count FROM Report r "
+            + "GROUP BY r.status, r.category, r.assignedDepartment, extract(date from r.createdAt)")
+    List<StatsRow> countByStatusCategoryDepartmentDay();
+
+    /** The dashboard cell a single report is counted in. */
+    interface StatsCell {
+        Long getId();
+        String getStatus();
+        String getCategory();
+        String getDepartment();
+        LocalDate getDay();
+    }
+
+    @Query("SELECT r.id AS id, r.status AS status, r.category AS category, r.assignedDepartment AS department, "
+            + "extract(date from r.createdAt) AS day FROM Report r WHERE r.id IN :ids")
+    List<StatsCell> findStatsCells(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Streams matching reports in id order for exports. Rows are read from a server-side cursor
+     * ({@code useCursorFetch=true} on the MySQL URL) so memory stays flat; the caller must hold a
+     * transaction open while consuming the stream and close it afterwards.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT r FROM Report r WHERE (:status IS NULL OR r.status = :status) AND (:category IS NULL OR r.category = :category) "
+            + "AND (:from IS NULL OR r.createdAt >= :from) AND (:to IS NULL OR r.createdAt < :to) ORDER BY r.id")
+    Stream<Report> streamForExport(@Param("status") String status, @Param("category") String category,
+                                   @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Locks the rows of a bulk admin action so their previous status can be recorded. Rows are
+     * locked in id order so overlapping bulk calls cannot deadlock.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Report r WHERE r.id IN :ids ORDER BY r.id")
+    List<Report> findAllForUpdate(@Param("ids") Collection<Long> ids);
+
+    // set-based updates for the bulk endpoints; they detach loaded reports, so callers work on copies afterwards
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Report r SET r.status = :status, r.updatedAt = :now WHERE r.id IN :ids")
+    int updateStatus(@Param("ids") Collection<Long> ids, @Param("status") String status,
+                     @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Report r SET r.assignedDepartment = :department, r.updatedAt = :now WHERE r.id IN :ids")
+    int updateDepartment(@Param("ids") Collection<Long> ids, @Param("department") String department,
+                         @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Report r SET r.assignedDepartment = :department, r.assignedTo = :assignee, r.updatedAt = :now "
+            + "WHERE r.id IN :ids")
+    int updateAssignment(@Param("ids") Collection<Long> ids, @Param("department") String department,
+                         @Param("assignee") User assignee, @Param("now") LocalDateTime now);
 }
@@ -0,0 +1,72 @@
+package com.civicpulse.security;
+
+import com.civicpulse.cache.ExpiringCache;
+import com.civicpulse.service.UserChangedEvent;
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import jakarta.annotation.PostConstruct;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Keeps verified tokens and loaded principals for a short while so most authenticated requests
+ * need neither a signature check nor a {@code users} query. A token is never cached past its own
+ * expiry; principals are dropped when the user's role or active flag changes.
+ */
+@Component
+public class AuthenticationCache {
+    @Value("${auth.cache.ttl.ms:300000}")
+    private long ttlMillis = 300_000;
+
+    @Value("${auth.cache.max-entries:10000}")
+    private int maxEntries = 10_000;
+
+    private ExpiringCache<String, String> tokens;
+    private ExpiringCache<String, UserDetails> users;
+    private final AtomicLong evictions = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        tokens = new ExpiringCache<>(maxEntries, ttlMillis);
+        users = new ExpiringCache<>(maxEntries, ttlMillis);
+    }
+
+    /**
+     * @return the subject of a valid token, or null
+     */
+    public String verify(String token, Function<String, Claims> parser) {
+        String email = tokens.get(token);
+        if (email != null) return email;
+        Claims claims = parser.apply(token);
+        if (claims == null || claims.getSubject() == null) return null;
+        long remaining = claims.getExpiration() != null
+                ? claims.getExpiration().getTime() - System.currentTimeMillis()
+                : ttlMillis;
+        tokens.put(token, claims.getSubject(), remaining);
+        return claims.getSubject();
+    }
+
+    public UserDetails userDetails(String email, Function<String, UserDetails> loader) {
+        UserDetails user = users.get(email);
+        if (user != null) return user;
+        // a principal loaded before an eviction may predate the change; serve it but do not keep it
+        long generation = evictions.get();
+        user = loader.apply(email);
+        if (user != null && evictions.get() == generation) users.put(email, user);
+        return user;
+    }
+
+    public void evictUser(String email) {
+        evictions.incrementAndGet();
+        users.invalidate(email);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent e) {
+        evictUser(e.email());
+    }
+}
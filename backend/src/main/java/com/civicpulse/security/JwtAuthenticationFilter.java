@@ -1,10 +1,13 @@
 package com.civicpulse.security;
 
 import com.civicpulse.service.AuthService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -21,6 +24,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private JwtProvider jwtProvider;
     @Autowired
     private AuthService authService;
+    @Autowired
+    private AuthenticationCache authenticationCache;
+    @Autowired
+    private MeterRegistry meterRegistry;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
@@ -30,9 +37,23 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         if (header != null && header.startsWith("Bearer ")) {
             token = header.substring(7);
         }
-        if (token != null && jwtProvider.validateToken(token)) {
-            String email = jwtProvider.getEmailFromToken(token);
-            UserDetails userDetails = authService.loadUserByUsername(email);
+        UserDetails userDetails = null;
+        if (token != null) {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            String outcome = "invalid";
+            String email = authenticationCache.verify(token, jwtProvider::parseClaims);
+            if (email != null) {
+                try {
+                    userDetails = authenticationCache.userDetails(email, authService::loadUserByUsername);
+                    outcome = userDetails.isEnabled() ? "success" : "disabled";
+                } catch (UsernameNotFoundException ex) {
+                    // token for a deleted account; continue unauthenticated
+                    outcome = "unknown_user";
+                }
+            }
+            sample.stop(meterRegistry.timer("civicpulse.auth.jwt", "outcome", outcome));
+        }
+        if (userDetails != null && userDetails.isEnabled()) {
             UsernamePasswordAuthenticationToken authentication =
                     new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
             authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
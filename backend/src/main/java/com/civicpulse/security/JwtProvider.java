@@ -11,7 +11,11 @@ import java.util.Date;
 
 @Component
 public class JwtProvider {
-    public void setJwtSecret(String secret) { this.jwtSecret = secret; }
+    public void setJwtSecret(String secret) {
+        this.jwtSecret = secret;
+        this.key = null;
+        this.parser = null;
+    }
     public void setJwtExpirationMs(long ms) { this.jwtExpirationMs = ms; }
     @Value("${jwt.secret}")
     private String jwtSecret;
@@ -19,9 +23,27 @@ public class JwtProvider {
     @Value("${jwt.expiration.ms:3600000}")
     private long jwtExpirationMs;
 
+    // the key and the parser are immutable and thread-safe, so both are built once
+    private volatile Key key;
+    private volatile JwtParser parser;
+
     private Key signingKey() {
-        // ensure secret length is sufficient (at least 256 bits / 32 bytes)
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        Key k = key;
+        if (k == null) {
+            // ensure secret length is sufficient (at least 256 bits / 32 bytes)
+            k = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+            key = k;
+        }
+        return k;
+    }
+
+    private JwtParser parser() {
+        JwtParser p = parser;
+        if (p == null) {
+            p = Jwts.parserBuilder().setSigningKey(signingKey()).build();
+            parser = p;
+        }
+        return p;
     }
 
     public String generateToken(User user) {
@@ -36,23 +58,28 @@ public class JwtProvider {
                 .compact();
     }
 
-    public boolean validateToken(String token) {
+    /**
+     * Verifies the signature and expiry once and returns the claims.
+     *
+     * @return the claims, or null when the token is invalid or expired
+     */
+    public Claims parseClaims(String token) {
         try {
-            Jwts.parserBuilder().setSigningKey(signingKey()).build().parseClaimsJws(token);
-            return true;
+            return parser().parseClaimsJws(token).getBody();
         } catch (JwtException | IllegalArgumentException ex) {
-            // log if you want
-            return false;
+            return null;
         }
     }
 
+    public boolean validateToken(String token) {
+        return parseClaims(token) != null;
+    }
+
     public String getEmailFromToken(String token) {
-        Claims claims = Jwts.parserBuilder().setSigningKey(signingKey()).build().parseClaimsJws(token).getBody();
-        return claims.getSubject();
+        return parser().parseClaimsJws(token).getBody().getSubject();
     }
 
     public String getRoleFromToken(String token) {
-        Claims claims = Jwts.parserBuilder().setSigningKey(signingKey()).build().parseClaimsJws(token).getBody();
-        return claims.get("role", String.class);
+        return parser().parseClaimsJws(token).getBody().get("role", String.class);
     }
 }
@@ -0,0 +1,81 @@
+package com.civicpulse.security;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Exact sliding-window limiter: at most {@code limit} events per key within any {@code window}.
+ * Each key keeps a ring of its last {@code limit} event times, so an event is allowed when the
+ * oldest of them has left the window.
+ */
+public class SlidingWindowRateLimiter {
+    private final int limit;
+    private final long windowMillis;
+    private final LongSupplier clock;
+    private final Map<String, Ring> rings = new ConcurrentHashMap<>();
+
+    private static final class Ring {
+        final long[] times;
+        int head;
+        boolean removed;
+
+        Ring(int size) {
+            times = new long[size];
+        }
+    }
+
+    public SlidingWindowRateLimiter(int limit, long windowMillis) {
+        this(limit, windowMillis, System::currentTimeMillis);
+    }
+
+    public SlidingWindowRateLimiter(int limit, long windowMillis, LongSupplier clock) {
+        if (limit <= 0) throw new IllegalArgumentException("limit must be positive");
+        this.limit = limit;
+        this.windowMillis = windowMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Records an event for the key if it is within the limit.
+     *
+     * @return 0 when allowed, otherwise the milliseconds until the next event would be allowed
+     */
+    public long tryAcquire(String key) {
+        while (true) {
+            Ring ring = rings.computeIfAbsent(key, k -> new Ring(limit));
+            synchronized (ring) {
+                if (ring.removed) continue; // lost a race with purge(); use the fresh ring
+                long now = clock.getAsLong();
+                long oldest = ring.times[ring.head];
+                if (oldest != 0 && now - oldest < windowMillis) {
+                    return oldest + windowMillis - now;
+                }
+                ring.times[ring.head] = now;
+                ring.head = (ring.head + 1) % limit;
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Drops keys with no event inside the window.
+     */
+    public void purge() {
+        long cutoff = clock.getAsLong() - windowMillis;
+        rings.entrySet().removeIf(e -> {
+            Ring ring = e.getValue();
+            synchronized (ring) {
+                for (long t : ring.times) {
+                    if (t > cutoff) return false;
+                }
+                ring.removed = true;
+                return true;
+            }
+        });
+    }
+
+    int size() {
+        return rings.size();
+    }
+}
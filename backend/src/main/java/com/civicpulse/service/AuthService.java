@@ -1,18 +1,24 @@
 package com.civicpulse.service;
 
-import com.civicpulse.entity.OtpToken;
 import com.civicpulse.entity.User;
-import com.civicpulse.repository.OtpTokenRepository;
+import com.civicpulse.exception.RateLimitedException;
+import com.civicpulse.otp.OtpStore;
 import com.civicpulse.repository.UserRepository;
 import com.civicpulse.security.JwtProvider;
+import com.civicpulse.security.SlidingWindowRateLimiter;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.*;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
+import java.security.SecureRandom;
+import java.time.Duration;
 import java.util.*;
 
 @Service
@@ -22,7 +28,7 @@ public class AuthService implements UserDetailsService {
     private UserRepository userRepository;
 
     @Autowired
-    private OtpTokenRepository otpTokenRepository;
+    private OtpStore otpStore;
 
     @Autowired
     private PasswordEncoder passwordEncoder;
@@ -33,18 +39,76 @@ public class AuthService implements UserDetailsService {
     @Autowired
     private EmailService emailService;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${otp.ttl.ms:300000}")
+    private long otpTtlMs = 300_000;
+
+    @Value("${otp.max.attempts:5}")
+    private int otpMaxAttempts = 5;
+
+    @Value("${otp.rate.email.limit:5}")
+    private int emailLimit = 5;
+
+    @Value("${otp.rate.email.window.ms:3600000}")
+    private long emailWindowMs = 3_600_000;
+
+    @Value("${otp.rate.ip.limit:20}")
+    private int ipLimit = 20;
+
+    @Value("${otp.rate.ip.window.ms:3600000}")
+    private long ipWindowMs = 3_600_000;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    public static final Set<String> ROLES = Set.of("ROLE_USER", "ROLE_ADMIN");
+    private SlidingWindowRateLimiter emailLimiter = new SlidingWindowRateLimiter(emailLimit, emailWindowMs);
+    private SlidingWindowRateLimiter ipLimiter = new SlidingWindowRateLimiter(ipLimit, ipWindowMs);
+
+    @PostConstruct
+    public void init() {
+        emailLimiter = new SlidingWindowRateLimiter(emailLimit, emailWindowMs);
+        ipLimiter = new SlidingWindowRateLimiter(ipLimit, ipWindowMs);
+    }
+
     public UserRepository getUserRepository() { return userRepository; }
     public JwtProvider getJwtProvider() { return jwtProvider; }
 
+    /** Issued token and the user it was issued for, so callers need not look the user up again. */
+    public record Login(String token, User user) {
+    }
+
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         User u = userRepository.findByEmail(email).orElseThrow(() -> new UsernameNotFoundException("Not found: " + email));
         List<SimpleGrantedAuthority> auths = Collections.singletonList(new SimpleGrantedAuthority(u.getRole()));
-        return new org.springframework.security.core.userdetails.User(u.getEmail(), u.getPassword(), auths);
+        boolean enabled = !Boolean.FALSE.equals(u.getIsActive());
+        return new org.springframework.security.core.userdetails.User(u.getEmail(), u.getPassword(),
+                enabled, true, true, true, auths);
+    }
+
+    @Transactional
+    public User updateRole(Long userId, String role) {
+        if (role == null || !ROLES.contains(role)) throw new IllegalArgumentException("Unknown role: " + role);
+        User u = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("User not found"));
+        u.setRole(role);
+        userRepository.save(u);
+        eventPublisher.publishEvent(new UserChangedEvent(u.getId(), u.getEmail()));
+        return u;
+    }
+
+    @Transactional
+    public User setActive(Long userId, boolean active) {
+        User u = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("User not found"));
+        u.setIsActive(active);
+        userRepository.save(u);
+        eventPublisher.publishEvent(new UserChangedEvent(u.getId(), u.getEmail()));
+        return u;
     }
 
     @Transactional
     public boolean register(String name, String email, String rawPassword) {
+        email = normalizeEmail(email);
         if (userRepository.existsByEmail(email)) {
             return false;
         }
@@ -59,57 +123,58 @@ public class AuthService implements UserDetailsService {
         // Optionally: generate OTP for verification flow instead of immediate activation
     }
 
-    public String login(String email, String password) {
-        Optional<User> ou = userRepository.findByEmail(email);
+    public Login login(String email, String password) {
+        Optional<User> ou = userRepository.findByEmail(normalizeEmail(email));
         if (ou.isEmpty()) return null;
         User user = ou.get();
         if (!passwordEncoder.matches(password, user.getPassword())) return null;
-        return jwtProvider.generateToken(user);
+        return new Login(jwtProvider.generateToken(user), user);
     }
 
-    public void sendOtp(String email) {
-        // rate limit: simple check - don't send more than 5 OTP in last hour
-        List<OtpToken> recent = otpTokenRepository.findAll(); // we will filter by email here (repo has findByEmail)
-        // simpler approach: check existing token for email
-        Optional<OtpToken> exist = otpTokenRepository.findByEmail(email);
-        if (exist.isPresent()) {
-            OtpToken t = exist.get();
-            if (t.getExpiresAt().isAfter(LocalDateTime.now().minusMinutes(60)) && t.getCreatedAt().isAfter(LocalDateTime.now().minusMinutes(1))) {
-                // allow resends but don't spam too quickly — this simple guard avoids immediate duplicates
-            }
+    /**
+     * Issues a new code for the email. Limited per email and per client IP over a sliding window.
+     */
+    @Transactional
+    public void sendOtp(String email, String clientIp) {
+        email = normalizeEmail(email);
+        // address first, so a throttled sender cannot use up someone else's email quota
+        if (clientIp != null) {
+            long wait = ipLimiter.tryAcquire(clientIp);
+            if (wait > 0) throw new RateLimitedException("Too many OTP requests from this address", wait);
         }
-        String code = String.format("%06d", new Random().nextInt(900000) + 100000);
-        OtpToken token = new OtpToken();
-        token.setEmail(email);
-        token.setOtpCode(code);
-        token.setExpiresAt(LocalDateTime.now().plusMinutes(5));
-        token.setAttempts(0);
-        token.setCreatedAt(LocalDateTime.now());
-        // delete old tokens for email, then save new
-        otpTokenRepository.deleteByEmail(email);
-        otpTokenRepository.save(token);
-        // send email
+        long wait = emailLimiter.tryAcquire(email);
+        if (wait > 0) throw new RateLimitedException("Too many OTP requests for this email", wait);
+        String code = String.format("%06d", RANDOM.nextInt(900000) + 100000);
+        otpStore.put(email, code, Duration.ofMillis(otpTtlMs));
+        // queued in the outbox; delivered after this transaction commits
         emailService.sendOtp(email, code);
     }
 
+    /**
+     * The one form of an address used for rate limits, OTP codes and accounts, so a
+     * differently-cased spelling is neither a separate limit nor a separate user.
+     */
+    static String normalizeEmail(String email) {
+        if (email == null || email.isBlank()) throw new IllegalArgumentException("Email is required");
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @Scheduled(fixedDelayString = "${otp.purge.interval.ms:60000}")
+    public void purgeRateLimits() {
+        emailLimiter.purge();
+        ipLimiter.purge();
+    }
+
     @Transactional
-    public String verifyOtp(String email, String otp) {
-        OtpToken t = otpTokenRepository.findByEmail(email).orElseThrow(() -> new RuntimeException("No OTP requested"));
-        if (t.getExpiresAt().isBefore(LocalDateTime.now())) {
-            otpTokenRepository.delete(t);
-            throw new RuntimeException("OTP expired");
-        }
-        if (!t.getOtpCode().equals(otp)) {
-            t.setAttempts(t.getAttempts() + 1);
-            otpTokenRepository.save(t);
-            if (t.getAttempts() >= 5) {
-                otpTokenRepository.delete(t);
-                throw new RuntimeException("Too many attempts");
-            }
-            throw new RuntimeException("Invalid OTP");
+    public Login verifyOtp(String email, String otp) {
+        email = normalizeEmail(email);
+        switch (otpStore.verify(email, otp, otpMaxAttempts)) {
+            case NOT_FOUND -> throw new RuntimeException("No OTP requested");
+            case EXPIRED -> throw new RuntimeException("OTP expired");
+            case TOO_MANY_ATTEMPTS -> throw new RuntimeException("Too many attempts");
+            case INVALID -> throw new RuntimeException("Invalid OTP");
+            case OK -> { }
         }
-        // success: delete token
-        otpTokenRepository.delete(t);
 
         // create user if not exists
         User user = userRepository.findByEmail(email).orElse(null);
@@ -122,6 +187,6 @@ public class AuthService implements UserDetailsService {
             userRepository.save(user);
         }
         // generate JWT
-        return jwtProvider.generateToken(user);
+        return new Login(jwtProvider.generateToken(user), user);
     }
 }
@@ -0,0 +1,190 @@
+package com.civicpulse.service;
+
+import com.civicpulse.dto.ReportDtos;
+import com.civicpulse.repository.ReportRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Finds likely duplicates of a report before it is stored. Candidates come from the
+ * {@link GeoIndex} (same category, within {@code reports.dedup.radius.meters}), are limited to open
+ * reports filed within the recency window, and are compared on MinHash signatures of the
+ * title and description character shingles, which estimate their Jaccard similarity in
+ * {@value #SIGNATURE_SIZE} integer comparisons.
+ */
+@Service
+public class DuplicateDetector {
+    private static final Logger log = LoggerFactory.getLogger(DuplicateDetector.class);
+    static final int SIGNATURE_SIZE = 64;
+    private static final int SHINGLE = 3;
+    private static final int REBUILD_BATCH = 5000;
+    private static final long PRIME = 2_147_483_647L; // 2^31 - 1
+    private static final long[] A = new long[SIGNATURE_SIZE];
+    private static final long[] B = new long[SIGNATURE_SIZE];
+
+    static {
+        SplittableRandom rnd = new SplittableRandom(0x5eed);
+        for (int i = 0; i < SIGNATURE_SIZE; i++) {
+            A[i] = 1 + rnd.nextLong(PRIME - 1);
+            B[i] = rnd.nextLong(PRIME);
+        }
+    }
+
+    @Autowired private GeoIndex geoIndex;
+    @Autowired private ReportRepository reportRepository;
+
+    @Value("${reports.dedup.radius.meters:50}")
+    private double radiusMeters = 50;
+
+    @Value("${reports.dedup.window.days:7}")
+    private int windowDays = 7;
+
+    @Value("${reports.dedup.threshold:0.5}")
+    private double threshold = 0.5;
+
+    @Value("${reports.dedup.closed.statuses:RESOLVED,CLOSED,REJECTED}")
+    private Set<String> closedStatuses = Set.of("RESOLVED", "CLOSED", "REJECTED");
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    private record Entry(long createdAtEpochSec, int[] signature) {
+    }
+
+    public record Match(Long reportId, double similarity) {
+    }
+
+    /**
+     * @return the most similar open report above the threshold, or null
+     */
+    public Match findDuplicate(String title, String description, String category, Double lat, Double lon) {
+        if (lat == null || lon == null || entries.isEmpty()) return null;
+        List<ReportDtos.GeoReport> nearby = geoIndex.nearby(lat, lon, radiusMeters, null, category, 256);
+        if (nearby.isEmpty()) return null;
+
+        long cutoff = windowStart().toEpochSecond(ZoneOffset.UTC);
+        int[] signature = signature(title, description);
+        Match best = null;
+        for (ReportDtos.GeoReport candidate : nearby) {
+            Entry e = entries.get(candidate.id);
+            if (e == null || e.createdAtEpochSec() < cutoff) continue;
+            double similarity = similarity(signature, e.signature());
+            if (similarity >= threshold && (best == null || similarity > best.similarity())) {
+                best = new Match(candidate.id, similarity);
+            }
+        }
+        return best;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long lastId = 0;
+        LocalDateTime since = windowStart();
+        List<ReportRepository.TextRow> rows;
+        do {
+            rows = reportRepository.findTextRowsSince(since, lastId, PageRequest.of(0, REBUILD_BATCH));
+            for (ReportRepository.TextRow row : rows) {
+                track(row.getId(), row.getTitle(), row.getDescription(), row.getStatus(),
+                        row.getDuplicateOf(), row.getCreatedAt());
+                lastId = row.getId();
+            }
+        } while (rows.size() == REBUILD_BATCH);
+        log.info("Duplicate index built with {} open reports", entries.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReportChanged(ReportChangedEvent e) {
+        if (e.type() == ReportChangedEvent.Type.CREATED) {
+            track(e.reportId(), e.title(), e.description(), e.status(), e.duplicateOf(), e.createdAt());
+        } else if (e.status() != null && closedStatuses.contains(e.status())) {
+            entries.remove(e.reportId());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${reports.dedup.prune.interval.ms:3600000}")
+    public void prune() {
+        long cutoff = windowStart().toEpochSecond(ZoneOffset.UTC);
+        entries.values().removeIf(e -> e.createdAtEpochSec() < cutoff);
+    }
+
+    private void track(Long id, String title, String description, String status,
+                       Long duplicateOf, LocalDateTime createdAt) {
+        // linked duplicates are not canonical, so new reports should match their parent instead
+        if (id == null || duplicateOf != null || createdAt == null) return;
+        if (status != null && closedStatuses.contains(status)) return;
+        entries.put(id, new Entry(createdAt.toEpochSecond(ZoneOffset.UTC), signature(title, description)));
+    }
+
+    private LocalDateTime windowStart() {
+        return LocalDateTime.now().minusDays(windowDays);
+    }
+
+    static int[] signature(String title, String description) {
+        String text = normalize((title == null ? "" : title) + " " + (description == null ? "" : description));
+        int[] sig = new int[SIGNATURE_SIZE];
+        Arrays.fill(sig, Integer.MAX_VALUE);
+        if (text.length() < SHINGLE) {
+            if (!text.isEmpty()) mix(sig, text.hashCode());
+            return sig;
+        }
+        for (int i = 0; i + SHINGLE <= text.length(); i++) {
+            int h = 0;
+            for (int j = i; j < i + SHINGLE; j++) h = 31 * h + text.charAt(j);
+            mix(sig, h);
+        }
+        return sig;
+    }
+
+    private static void mix(int[] sig, int shingleHash) {
+        long x = shingleHash & 0xffffffffL;
+        for (int k = 0; k < SIGNATURE_SIZE; k++) {
+            int v = (int) ((A[k] * x + B[k]) % PRIME);
+            if (v < sig[k]) sig[k] = v;
+        }
+    }
+
+    static double similarity(int[] a, int[] b) {
+        int same = 0;
+        for (int i = 0; i < SIGNATURE_SIZE; i++) {
+            if (a[i] == b[i]) same++;
+        }
+        return (double) same / SIGNATURE_SIZE;
+    }
+
+    // lower-case, strip escaped entities and punctuation, collapse whitespace
+    private static String normalize(String text) {
+        String s = text.toLowerCase(Locale.ROOT).replaceAll("&[a-z#0-9]+;", " ");
+        StringBuilder out = new StringBuilder(s.length());
+        boolean space = true;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                out.append(c);
+                space = false;
+            } else if (!space) {
+                out.append(' ');
+                space = true;
+            }
+        }
+        int len = out.length();
+        if (len > 0 && out.charAt(len - 1) == ' ') out.setLength(len - 1);
+        return out.toString();
+    }
+}
@@ -0,0 +1,286 @@
+package com.civicpulse.service;
+
+import com.civicpulse.concurrent.Threads;
+import com.civicpulse.entity.EmailOutbox;
+import com.civicpulse.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivers {@link EmailOutbox} rows. A bounded pool of senders each takes a batch of due messages
+ * and hands them to {@link JavaMailSender#send(MimeMessage...)}, which opens one SMTP connection
+ * (and one STARTTLS handshake) for the whole batch. Failed messages are retried with exponential
+ * backoff and marked DEAD after {@code mail.outbox.max.attempts}; mail past its
+ * {@code expires_at} is marked EXPIRED instead of sent. When the queue is full, rows stay PENDING
+ * for the periodic sweep, which also picks up mail left behind by a restart. Settled rows lose
+ * their body, which may hold an OTP, and are purged after {@code mail.outbox.retention.ms}.
+ * <p>
+ * Every node runs a dispatcher, so a sender first claims its rows in the database (PENDING to
+ * SENDING with its own token) and only mails what it claimed. A claim that is not settled within
+ * {@code mail.outbox.claim.timeout.ms} is returned to PENDING by the sweep.
+ */
+@Service
+public class EmailOutboxDispatcher {
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxDispatcher.class);
+    private static final List<String> SETTLED =
+            List.of(EmailOutbox.STATUS_SENT, EmailOutbox.STATUS_DEAD, EmailOutbox.STATUS_EXPIRED);
+
+    @Autowired private EmailOutboxRepository outboxRepository;
+    @Autowired private JavaMailSender mailSender;
+    @Autowired private MeterRegistry meterRegistry;
+
+    @Value("${mail.outbox.senders:2}")
+    private int senders = 2;
+
+    @Value("${mail.outbox.queue.capacity:100}")
+    private int queueCapacity = 100;
+
+    @Value("${mail.outbox.batch.size:20}")
+    private int batchSize = 20;
+
+    @Value("${mail.outbox.max.attempts:6}")
+    private int maxAttempts = 6;
+
+    @Value("${mail.outbox.retry.backoff.ms:10000}")
+    private long retryBackoffMs = 10_000;
+
+    // well above the SMTP timeouts, so a live sender always settles its claim first
+    @Value("${mail.outbox.claim.timeout.ms:300000}")
+    private long claimTimeoutMs = 300_000;
+
+    @Value("${mail.outbox.retention.ms:604800000}")
+    private long retentionMs = 604_800_000;
+
+    @Value("${mail.outbox.from:${spring.mail.username:}}")
+    private String from = "";
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private ThreadPoolExecutor executor;
+    // only keeps this node from queueing a row twice; ownership is decided by claim()
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void start() {
+        executor = new ThreadPoolExecutor(senders, senders, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Threads.factory("mail-sender-", virtualThreads),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) executor.shutdown();
+    }
+
+    /**
+     * Hands the message to a sender once the surrounding transaction commits; outside a
+     * transaction it is enqueued immediately.
+     */
+    public void submitAfterCommit(Long id) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(List.of(id));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                enqueue(List.of(id));
+            }
+        });
+    }
+
+    /**
+     * @return false when all of them are already queued or the queue is full
+     */
+    public boolean enqueue(List<Long> ids) {
+        List<Long> claimed = new ArrayList<>();
+        for (Long id : ids) {
+            if (id != null && inFlight.add(id)) claimed.add(id);
+        }
+        if (claimed.isEmpty()) return false;
+        try {
+            executor.execute(() -> {
+                try {
+                    dispatch(claimed);
+                } finally {
+                    claimed.forEach(inFlight::remove);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException ex) {
+            // backpressure: leave them PENDING for the next sweep
+            claimed.forEach(inFlight::remove);
+            return false;
+        }
+    }
+
+    void dispatch(List<Long> ids) {
+        String token = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+        if (outboxRepository.claim(ids, token, now.plusNanos(claimTimeoutMs * 1_000_000L)) == 0) return;
+        List<EmailOutbox> batch = outboxRepository.findByClaimToken(token);
+        if (batch.isEmpty()) return;
+
+        Map<MimeMessage, EmailOutbox> messages = new IdentityHashMap<>();
+        for (EmailOutbox mail : batch) {
+            if (mail.getExpiresAt() != null && mail.getExpiresAt().isBefore(now)) {
+                markExpired(mail);
+                continue;
+            }
+            try {
+                messages.put(toMessage(mail), mail);
+            } catch (MessagingException ex) {
+                markFailedAttempt(mail, ex.getMessage());
+            }
+        }
+
+        Map<Object, Exception> failed = Map.of();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        if (!messages.isEmpty()) {
+            try {
+                // one connection for the whole batch
+                mailSender.send(messages.keySet().toArray(new MimeMessage[0]));
+            } catch (MailSendException ex) {
+                failed = ex.getFailedMessages();
+                outcome = "partial";
+                if (failed.isEmpty()) {
+                    failed = allFailed(messages, ex);
+                    outcome = "error";
+                }
+            } catch (MailException ex) {
+                // authentication or connection problem before anything was sent
+                failed = allFailed(messages, ex);
+                outcome = "error";
+            }
+            sample.stop(meterRegistry.timer("civicpulse.mail.send", "outcome", outcome));
+        }
+
+        for (Map.Entry<MimeMessage, EmailOutbox> e : messages.entrySet()) {
+            Exception error = failed.get(e.getKey());
+            if (error == null) {
+                markSent(e.getValue());
+            } else {
+                markFailedAttempt(e.getValue(), error.getMessage());
+            }
+        }
+        batch.forEach(mail -> mail.setClaimToken(null));
+        outboxRepository.saveAll(batch);
+        for (EmailOutbox mail : batch) {
+            meterRegistry.counter("civicpulse.mail.outbox", "template", String.valueOf(mail.getTemplate()),
+                    "status", mail.getStatus()).increment();
+        }
+    }
+
+    private MimeMessage toMessage(EmailOutbox mail) throws MessagingException {
+        MimeMessage msg = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(msg, true);
+        if (from != null && !from.isBlank()) helper.setFrom(from);
+        helper.setTo(mail.getRecipient());
+        helper.setSubject(mail.getSubject());
+        helper.setText(mail.getBodyHtml(), true);
+        return msg;
+    }
+
+    private static Map<Object, Exception> allFailed(Map<MimeMessage, EmailOutbox> messages, Exception ex) {
+        Map<Object, Exception> all = new IdentityHashMap<>();
+        messages.keySet().forEach(m -> all.put(m, ex));
+        return all;
+    }
+
+    private void markSent(EmailOutbox mail) {
+        mail.setStatus(EmailOutbox.STATUS_SENT);
+        mail.setBodyHtml("");
+        mail.setSentAt(LocalDateTime.now());
+        mail.setAttempts(mail.getAttempts() == null ? 1 : mail.getAttempts() + 1);
+        mail.setLastError(null);
+        mail.setNextAttemptAt(null);
+    }
+
+    private void markFailedAttempt(EmailOutbox mail, String error) {
+        int attempts = mail.getAttempts() == null ? 1 : mail.getAttempts() + 1;
+        mail.setAttempts(attempts);
+        mail.setLastError(truncate(error));
+        if (attempts >= maxAttempts) {
+            log.warn("Giving up on mail {} to {} after {} attempts: {}", mail.getId(), mail.getRecipient(), attempts, error);
+            mail.setStatus(EmailOutbox.STATUS_DEAD);
+            mail.setBodyHtml("");
+            mail.setNextAttemptAt(null);
+        } else {
+            long delay = retryBackoffMs << Math.min(attempts - 1, 10);
+            mail.setStatus(EmailOutbox.STATUS_PENDING);
+            mail.setNextAttemptAt(LocalDateTime.now().plusNanos(delay * 1_000_000L));
+        }
+    }
+
+    private void markExpired(EmailOutbox mail) {
+        mail.setStatus(EmailOutbox.STATUS_EXPIRED);
+        mail.setBodyHtml("");
+        mail.setNextAttemptAt(null);
+    }
+
+    /**
+     * Releases expired claims and re-enqueues PENDING mail whose retry time has come.
+     */
+    @Scheduled(fixedDelayString = "${mail.outbox.sweep.interval.ms:5000}")
+    public void sweep() {
+        int released = outboxRepository.releaseExpiredClaims(LocalDateTime.now());
+        if (released > 0) log.warn("Released {} outbox rows whose sender did not finish", released);
+        int free = executor.getQueue().remainingCapacity();
+        if (free == 0) return;
+        List<Long> due = outboxRepository.findDueIds(EmailOutbox.STATUS_PENDING, LocalDateTime.now(),
+                PageRequest.of(0, free * batchSize));
+        for (int i = 0; i < due.size(); i += batchSize) {
+            enqueue(due.subList(i, Math.min(due.size(), i + batchSize)));
+        }
+    }
+
+    /**
+     * Deletes SENT, DEAD and EXPIRED rows older than {@code mail.outbox.retention.ms}.
+     */
+    @Scheduled(fixedDelayString = "${mail.outbox.purge.interval.ms:3600000}")
+    @Transactional
+    public void purge() {
+        int purged = outboxRepository.deleteSettledBefore(SETTLED,
+                LocalDateTime.now().minusNanos(retentionMs * 1_000_000L));
+        if (purged > 0) log.debug("Purged {} settled outbox rows", purged);
+    }
+
+    private static String truncate(String msg) {
+        if (msg == null) return null;
+        return msg.length() > 500 ? msg.substring(0, 500) : msg;
+    }
+}
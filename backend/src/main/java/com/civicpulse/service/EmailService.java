@@ -1,28 +1,44 @@
 package com.civicpulse.service;
 
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
+import com.civicpulse.entity.EmailOutbox;
+import com.civicpulse.repository.EmailOutboxRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+
+/**
+ * Composes outgoing mail. Messages are only written to the outbox here, in the caller's
+ * transaction; {@link EmailOutboxDispatcher} delivers them once that transaction commits.
+ */
 @Service
 public class EmailService {
     @Autowired
-    private JavaMailSender mailSender;
+    private EmailOutboxRepository outboxRepository;
+    @Autowired
+    private EmailOutboxDispatcher dispatcher;
+
+    @Value("${otp.ttl.ms:300000}")
+    private long otpTtlMs = 300_000;
 
+    @Transactional
     public void sendOtp(String email, String otp) {
-        try {
-            MimeMessage msg = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(msg, true);
-            helper.setTo(email);
-            helper.setSubject("Your CivicPulse OTP code");
-            String html = "<p>Your CivicPulse OTP is: <b>" + otp + "</b></p><p>This code expires in 5 minutes.</p>";
-            helper.setText(html, true);
-            mailSender.send(msg);
-        } catch (MessagingException ex) {
-            throw new RuntimeException("Failed to send OTP email", ex);
-        }
+        String html = "<p>Your CivicPulse OTP is: <b>" + otp + "</b></p><p>This code expires in "
+                + otpTtlMs / 60_000 + " minutes.</p>";
+        // a code that can no longer be used is not worth delivering late
+        enqueue(email, "Your CivicPulse OTP code", html, "otp", LocalDateTime.now().plusNanos(otpTtlMs * 1_000_000L));
+    }
+
+    private void enqueue(String to, String subject, String html, String template, LocalDateTime expiresAt) {
+        EmailOutbox mail = new EmailOutbox();
+        mail.setRecipient(to);
+        mail.setSubject(subject);
+        mail.setBodyHtml(html);
+        mail.setTemplate(template);
+        mail.setExpiresAt(expiresAt);
+        mail = outboxRepository.save(mail);
+        dispatcher.submitAfterCommit(mail.getId());
     }
 }
@@ -0,0 +1,356 @@
+package com.civicpulse.service;
+
+import com.civicpulse.dto.ReportDtos;
+import com.civicpulse.repository.ReportRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory spatial index of report locations. Points live in parallel primitive arrays and are
+ * bucketed into a fixed lat/lon grid ({@code geo.cell.size.deg}), so a radius or bounding-box query
+ * only touches the cells that overlap it. Built from the reports table at startup and kept current
+ * from {@link ReportChangedEvent}s.
+ */
+@Service
+public class GeoIndex {
+    private static final Logger log = LoggerFactory.getLogger(GeoIndex.class);
+    private static final double EARTH_RADIUS_M = 6_371_008.8;
+    private static final int REBUILD_BATCH = 5000;
+
+    @Autowired private ReportRepository reportRepository;
+
+    @Value("${geo.cell.size.deg:0.01}")
+    private double cellSizeDeg = 0.01;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Grid grid = new Grid();
+
+    // events that arrive while a rebuild is reading the table are replayed onto the new grid
+    private volatile boolean rebuilding;
+    private final Queue<ReportChangedEvent> pending = new ConcurrentLinkedQueue<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        rebuilding = true;
+        Grid fresh = new Grid();
+        long lastId = 0;
+        List<ReportRepository.IndexRow> rows;
+        do {
+            rows = reportRepository.findIndexRows(lastId, PageRequest.of(0, REBUILD_BATCH));
+            for (ReportRepository.IndexRow row : rows) {
+                fresh.upsert(row.getId(), row.getLatitude(), row.getLongitude(), row.getStatus(), row.getCategory());
+                lastId = row.getId();
+            }
+        } while (rows.size() == REBUILD_BATCH);
+
+        lock.writeLock().lock();
+        try {
+            grid = fresh;
+            rebuilding = false;
+            ReportChangedEvent e;
+            while ((e = pending.poll()) != null) apply(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Geo index built with {} reports", fresh.count);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReportChanged(ReportChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (rebuilding) pending.add(event);
+            apply(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void apply(ReportChangedEvent e) {
+        grid.upsert(e.reportId(), e.latitude(), e.longitude(), e.status(), e.category());
+    }
+
+    /**
+     * Reports within {@code radiusMeters} of the point, nearest first.
+     */
+    public List<ReportDtos.GeoReport> nearby(double lat, double lon, double radiusMeters,
+                                             String status, String category, int limit) {
+        double dLat = Math.toDegrees(radiusMeters / EARTH_RADIUS_M);
+        double cosLat = Math.cos(Math.toRadians(lat));
+        double dLon = cosLat < 1e-6 ? 180 : Math.min(180, dLat / cosLat);
+
+        lock.readLock().lock();
+        try {
+            Grid g = grid;
+            int statusCode = g.lookup(status);
+            int categoryCode = g.lookup(category);
+            if (statusCode == Grid.UNKNOWN || categoryCode == Grid.UNKNOWN) return List.of();
+
+            Hits hits = new Hits();
+            g.scan(lat - dLat, lon - dLon, lat + dLat, lon + dLon, slot -> {
+                if (!g.matches(slot, statusCode, categoryCode)) return;
+                double d = distanceMeters(lat, lon, g.lats[slot], g.lons[slot]);
+                if (d <= radiusMeters) hits.add(slot, d);
+            });
+
+            Integer[] order = new Integer[hits.size];
+            for (int i = 0; i < order.length; i++) order[i] = i;
+            Arrays.sort(order, (a, b) -> Double.compare(hits.distances[a], hits.distances[b]));
+            List<ReportDtos.GeoReport> out = new ArrayList<>(Math.min(limit, order.length));
+            for (int i = 0; i < order.length && out.size() < limit; i++) {
+                ReportDtos.GeoReport r = g.toDto(hits.slots[order[i]]);
+                r.distanceMeters = hits.distances[order[i]];
+                out.add(r);
+            }
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reports inside the bounding box (no particular order).
+     */
+    public List<ReportDtos.GeoReport> within(double minLat, double minLon, double maxLat, double maxLon,
+                                             String status, String category, int limit) {
+        lock.readLock().lock();
+        try {
+            Grid g = grid;
+            int statusCode = g.lookup(status);
+            int categoryCode = g.lookup(category);
+            if (statusCode == Grid.UNKNOWN || categoryCode == Grid.UNKNOWN) return List.of();
+
+            List<ReportDtos.GeoReport> out = new ArrayList<>();
+            g.scan(minLat, minLon, maxLat, maxLon, slot -> {
+                if (out.size() >= limit || !g.matches(slot, statusCode, categoryCode)) return;
+                double la = g.lats[slot];
+                double lo = g.lons[slot];
+                if (la >= minLat && la <= maxLat && lo >= minLon && lo <= maxLon) out.add(g.toDto(slot));
+            });
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return grid.count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double p1 = Math.toRadians(lat1);
+        double p2 = Math.toRadians(lat2);
+        double dp = p2 - p1;
+        double dl = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dp / 2) * Math.sin(dp / 2) + Math.cos(p1) * Math.cos(p2) * Math.sin(dl / 2) * Math.sin(dl / 2);
+        return 2 * EARTH_RADIUS_M * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private interface SlotVisitor {
+        void visit(int slot);
+    }
+
+    /**
+     * Struct-of-arrays point storage plus the cell buckets. Not thread-safe; guarded by the
+     * index lock.
+     */
+    private final class Grid {
+        static final int ANY = -1;
+        static final int UNKNOWN = -2;
+
+        long[] ids = new long[1024];
+        double[] lats = new double[1024];
+        double[] lons = new double[1024];
+        int[] statusCodes = new int[1024];
+        int[] categoryCodes = new int[1024];
+        long[] cellKeys = new long[1024];
+        int highWater;
+        int count;
+        int[] free = new int[64];
+        int freeCount;
+
+        final Map<Long, Integer> slotById = new HashMap<>();
+        final Map<Long, IntList> cells = new HashMap<>();
+        final Map<String, Integer> codes = new HashMap<>();
+        final List<String> names = new ArrayList<>();
+
+        int code(String value) {
+            if (value == null) return ANY;
+            return codes.computeIfAbsent(value, v -> {
+                names.add(v);
+                return names.size() - 1;
+            });
+        }
+
+        int lookup(String value) {
+            if (value == null) return ANY;
+            Integer c = codes.get(value);
+            return c == null ? UNKNOWN : c;
+        }
+
+        boolean matches(int slot, int statusCode, int categoryCode) {
+            return (statusCode == ANY || statusCodes[slot] == statusCode)
+                    && (categoryCode == ANY || categoryCodes[slot] == categoryCode);
+        }
+
+        long cellKey(double lat, double lon) {
+            long row = (long) Math.floor(lat / cellSizeDeg);
+            long col = (long) Math.floor(lon / cellSizeDeg);
+            return (row << 32) | (col & 0xffffffffL);
+        }
+
+        void upsert(Long id, Double lat, Double lon, String status, String category) {
+            if (id == null) return;
+            if (lat == null || lon == null) {
+                remove(id);
+                return;
+            }
+            long key = cellKey(lat, lon);
+            Integer existing = slotById.get(id);
+            int slot;
+            if (existing != null) {
+                slot = existing;
+                if (cellKeys[slot] != key) {
+                    removeFromCell(cellKeys[slot], slot);
+                    cells.computeIfAbsent(key, k -> new IntList()).add(slot);
+                }
+            } else {
+                slot = allocate();
+                slotById.put(id, slot);
+                cells.computeIfAbsent(key, k -> new IntList()).add(slot);
+                count++;
+            }
+            ids[slot] = id;
+            lats[slot] = lat;
+            lons[slot] = lon;
+            statusCodes[slot] = code(status);
+            categoryCodes[slot] = code(category);
+            cellKeys[slot] = key;
+        }
+
+        void remove(Long id) {
+            Integer slot = slotById.remove(id);
+            if (slot == null) return;
+            removeFromCell(cellKeys[slot], slot);
+            if (freeCount == free.length) free = Arrays.copyOf(free, free.length * 2);
+            free[freeCount++] = slot;
+            count--;
+        }
+
+        private void removeFromCell(long key, int slot) {
+            IntList cell = cells.get(key);
+            if (cell == null) return;
+            cell.remove(slot);
+            if (cell.size == 0) cells.remove(key);
+        }
+
+        private int allocate() {
+            if (freeCount > 0) return free[--freeCount];
+            if (highWater == ids.length) {
+                int n = ids.length * 2;
+                ids = Arrays.copyOf(ids, n);
+                lats = Arrays.copyOf(lats, n);
+                lons = Arrays.copyOf(lons, n);
+                statusCodes = Arrays.copyOf(statusCodes, n);
+                categoryCodes = Arrays.copyOf(categoryCodes, n);
+                cellKeys = Arrays.copyOf(cellKeys, n);
+            }
+            return highWater++;
+        }
+
+        /**
+         * Visits every slot in the cells overlapping the box. When the box covers more cells than
+         * are populated, walks the populated cells instead of the box.
+         */
+        void scan(double minLat, double minLon, double maxLat, double maxLon, SlotVisitor visitor) {
+            long rowFrom = (long) Math.floor(Math.max(-90, minLat) / cellSizeDeg);
+            long rowTo = (long) Math.floor(Math.min(90, maxLat) / cellSizeDeg);
+            long colFrom = (long) Math.floor(Math.max(-180, minLon) / cellSizeDeg);
+            long colTo = (long) Math.floor(Math.min(180, maxLon) / cellSizeDeg);
+            if (rowFrom > rowTo || colFrom > colTo) return;
+            double cellCount = (double) (rowTo - rowFrom + 1) * (colTo - colFrom + 1);
+            if (cellCount > cells.size()) {
+                for (Map.Entry<Long, IntList> e : cells.entrySet()) {
+                    long row = e.getKey() >> 32;
+                    long col = (int) (long) e.getKey();
+                    if (row < rowFrom || row > rowTo || col < colFrom || col > colTo) continue;
+                    IntList cell = e.getValue();
+                    for (int i = 0; i < cell.size; i++) visitor.visit(cell.values[i]);
+                }
+                return;
+            }
+            for (long row = rowFrom; row <= rowTo; row++) {
+                for (long col = colFrom; col <= colTo; col++) {
+                    IntList cell = cells.get((row << 32) | (col & 0xffffffffL));
+                    if (cell == null) continue;
+                    for (int i = 0; i < cell.size; i++) visitor.visit(cell.values[i]);
+                }
+            }
+        }
+
+        ReportDtos.GeoReport toDto(int slot) {
+            ReportDtos.GeoReport r = new ReportDtos.GeoReport();
+            r.id = ids[slot];
+            r.latitude = lats[slot];
+            r.longitude = lons[slot];
+            r.status = statusCodes[slot] >= 0 ? names.get(statusCodes[slot]) : null;
+            r.category = categoryCodes[slot] >= 0 ? names.get(categoryCodes[slot]) : null;
+            return r;
+        }
+    }
+
+    private static final class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int v) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = v;
+        }
+
+        void remove(int v) {
+            for (int i = 0; i < size; i++) {
+                if (values[i] == v) {
+                    values[i] = values[--size];
+                    return;
+                }
+            }
+        }
+    }
+
+    private static final class Hits {
+        int[] slots = new int[16];
+        double[] distances = new double[16];
+        int size;
+
+        void add(int slot, double distance) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+                distances = Arrays.copyOf(distances, size * 2);
+            }
+            slots[size] = slot;
+            distances[size++] = distance;
+        }
+    }
+}
@@ -1,68 +1,264 @@
 package com.civicpulse.service;
 
+import com.google.api.client.googleapis.batch.BatchRequest;
+import com.google.api.client.googleapis.batch.json.JsonBatchCallback;
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.client.http.HttpHeaders;
 import com.google.api.client.http.InputStreamContent;
+import com.google.api.client.http.apache.v2.ApacheHttpTransport;
 import com.google.api.client.json.jackson2.JacksonFactory;
-import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
 import com.google.api.services.drive.DriveScopes;
 import com.google.api.services.drive.Drive;
 import com.google.api.services.drive.model.Permission;
 import com.google.api.services.drive.model.File;
 import com.google.auth.http.HttpCredentialsAdapter;
+import com.google.auth.oauth2.GoogleCredentials;
 import com.google.auth.oauth2.ServiceAccountCredentials;
+import com.civicpulse.concurrent.Threads;
+import com.civicpulse.storage.BlobStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service
-public class GoogleDriveService {
+@ConditionalOnProperty(name = "storage.backend", havingValue = "gdrive", matchIfMissing = true)
+public class GoogleDriveService implements BlobStore {
+    private static final Logger log = LoggerFactory.getLogger(GoogleDriveService.class);
+
     @Value("${gdrive.service.account.path}")
     private String serviceAccountPath;
 
     @Value("${gdrive.parent.folder.id}")
     private String parentFolderId;
 
-    private Drive buildDrive() throws Exception {
-        try (FileInputStream is = new FileInputStream(serviceAccountPath)) {
-            ServiceAccountCredentials credentials = (ServiceAccountCredentials) ServiceAccountCredentials.fromStream(is)
-                    .createScoped(Collections.singleton(DriveScopes.DRIVE));
-            return new Drive.Builder(GoogleNetHttpTransport.newTrustedTransport(), JacksonFactory.getDefaultInstance(),
-                    new HttpCredentialsAdapter(credentials))
-                    .setApplicationName("CivicPulse").build();
+    @Value("${gdrive.http.pool.size:20}")
+    private int httpPoolSize;
+
+    @Value("${gdrive.upload.concurrency:5}")
+    private int uploadConcurrency;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    // Drive, its transport and the refreshing credentials are thread-safe, so one client serves all uploads
+    private volatile Drive drive;
+    // a lock rather than synchronized: building the client reads a file, which would pin a virtual thread
+    private final ReentrantLock driveLock = new ReentrantLock();
+    private ApacheHttpTransport transport;
+    private ExecutorService uploadExecutor;
+
+    @PostConstruct
+    public void init() {
+        uploadExecutor = Executors.newFixedThreadPool(uploadConcurrency,
+                Threads.factory("gdrive-upload-", virtualThreads));
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        uploadExecutor.shutdown();
+        if (transport != null) transport.shutdown();
+    }
+
+    /**
+     * Builds the client on first use; the service account file may legitimately be absent in dev.
+     */
+    private Drive drive() throws IOException {
+        Drive d = drive;
+        if (d == null) {
+            driveLock.lock();
+            try {
+                d = drive;
+                if (d == null) {
+                    GoogleCredentials credentials;
+                    try (FileInputStream is = new FileInputStream(serviceAccountPath)) {
+                        credentials = ServiceAccountCredentials.fromStream(is)
+                                .createScoped(Collections.singleton(DriveScopes.DRIVE));
+                    }
+                    transport = new ApacheHttpTransport(ApacheHttpTransport.newDefaultHttpClientBuilder()
+                            .setMaxConnTotal(httpPoolSize)
+                            .setMaxConnPerRoute(httpPoolSize)
+                            .build());
+                    d = new Drive.Builder(transport, JacksonFactory.getDefaultInstance(),
+                            new HttpCredentialsAdapter(credentials))
+                            .setApplicationName("CivicPulse").build();
+                    drive = d;
+                }
+            } finally {
+                driveLock.unlock();
+            }
+        }
+        return d;
+    }
+
+    @Override
+    public String name() {
+        return "gdrive";
+    }
+
+    @Override
+    public StoredBlob put(String filename, String contentType, InputStream in) throws IOException {
+        DriveFileInfo info = uploadFile(filename, contentType, in);
+        return new StoredBlob(info.fileId(), info.webViewLink());
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        timed("delete", () -> drive().files().delete(key).execute());
+    }
+
+    public DriveFileInfo uploadFile(String name, String contentType, InputStream is) throws IOException {
+        File uploaded = createFile(name, contentType, is);
+        try {
+            timed("permission", () -> drive().permissions().create(uploaded.getId(), anyoneReader()).execute());
+        } catch (IOException ex) {
+            discard(uploaded);
+            throw ex;
         }
+        return new DriveFileInfo(uploaded.getId(), uploaded.getWebViewLink(), uploaded.getWebContentLink());
     }
 
-    public DriveFileInfo uploadFile(MultipartFile multipart) throws Exception {
-        if (multipart == null || multipart.isEmpty())
-            throw new IllegalArgumentException("File is empty");
-        if (multipart.getSize() > 5 * 1024 * 1024L)
-            throw new IllegalArgumentException("File too large (max 5MB)");
+    /**
+     * Uploads the files concurrently, then makes them public with a single batch request.
+     * Results are positional; a failure of one file does not fail the others.
+     */
+    @Override
+    public List<PutResult> putAll(List<BlobSource> sources) {
+        List<Future<File>> futures = new ArrayList<>(sources.size());
+        for (BlobSource src : sources) {
+            futures.add(uploadExecutor.submit(() -> {
+                try (InputStream is = Files.newInputStream(src.path())) {
+                    return createFile(src.filename(), src.contentType(), is);
+                }
+            }));
+        }
+
+        PutResult[] results = new PutResult[sources.size()];
+        List<File> uploaded = new ArrayList<>();
+        List<Integer> uploadedIdx = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                File f = futures.get(i).get();
+                uploaded.add(f);
+                uploadedIdx.add(i);
+            } catch (Exception ex) {
+                Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                results[i] = PutResult.failure(cause.getMessage());
+            }
+        }
+        if (uploaded.isEmpty()) return List.of(results);
 
-        Drive drive = buildDrive();
+        String[] permissionErrors = new String[uploaded.size()];
+        try {
+            BatchRequest batch = drive().batch();
+            for (int j = 0; j < uploaded.size(); j++) {
+                final int slot = j;
+                drive().permissions().create(uploaded.get(j).getId(), anyoneReader())
+                        .queue(batch, new JsonBatchCallback<Permission>() {
+                            @Override
+                            public void onSuccess(Permission permission, HttpHeaders headers) {
+                            }
 
+                            @Override
+                            public void onFailure(GoogleJsonError error, HttpHeaders headers) {
+                                permissionErrors[slot] = error.getMessage();
+                            }
+                        });
+            }
+            timed("batch_permission", () -> {
+                batch.execute();
+                return null;
+            });
+        } catch (IOException ex) {
+            for (int j = 0; j < uploaded.size(); j++) permissionErrors[j] = ex.getMessage();
+        }
+
+        for (int j = 0; j < uploaded.size(); j++) {
+            File f = uploaded.get(j);
+            String error = permissionErrors[j];
+            if (error != null) {
+                // the batch call can fail on its own; fall back to a direct call for that file
+                try {
+                    timed("permission", () -> drive().permissions().create(f.getId(), anyoneReader()).execute());
+                    error = null;
+                } catch (IOException ex) {
+                    error = ex.getMessage();
+                    discard(f);
+                }
+            }
+            results[uploadedIdx.get(j)] = error == null
+                    ? PutResult.success(new StoredBlob(f.getId(), f.getWebViewLink()))
+                    : PutResult.failure("Permission update failed: " + error);
+        }
+        return List.of(results);
+    }
+
+    // a file that never became public is reported as failed, so the retry would upload a second copy
+    private void discard(File f) {
+        try {
+            delete(f.getId());
+        } catch (IOException ex) {
+            log.warn("Could not delete Drive file {} after its permission update failed", f.getId(), ex);
+        }
+    }
+
+    private File createFile(String name, String contentType, InputStream is) throws IOException {
         File fileMetadata = new File();
-        fileMetadata.setName(multipart.getOriginalFilename());
+        fileMetadata.setName(name);
         fileMetadata.setParents(Collections.singletonList(parentFolderId));
 
-        try (InputStream is = multipart.getInputStream()) {
-            InputStreamContent contentStream = new InputStreamContent(multipart.getContentType(), is);
-            File uploaded = drive.files().create(fileMetadata, contentStream)
-                    .setFields("id, webViewLink, webContentLink")
-                    .execute();
+        InputStreamContent contentStream = new InputStreamContent(contentType, is);
+        return timed("upload", () -> drive().files().create(fileMetadata, contentStream)
+                .setFields("id, webViewLink, webContentLink")
+                .execute());
+    }
 
-            // set permission to anyone with link
-            Permission permission = new Permission();
-            permission.setType("anyone");
-            permission.setRole("reader");
-            drive.permissions().create(uploaded.getId(), permission).execute();
+    private interface DriveCall<T> {
+        T execute() throws IOException;
+    }
 
-            return new DriveFileInfo(uploaded.getId(), uploaded.getWebViewLink(), uploaded.getWebContentLink());
+    // one timer per Drive round trip, so upload and permission latency can be told apart
+    private <T> T timed(String phase, DriveCall<T> call) throws IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            T result = call.execute();
+            outcome = "success";
+            return result;
+        } finally {
+            sample.stop(meterRegistry.timer("civicpulse.drive.request", "phase", phase, "outcome", outcome));
         }
     }
 
+    // set permission to anyone with link
+    private static Permission anyoneReader() {
+        Permission permission = new Permission();
+        permission.setType("anyone");
+        permission.setRole("reader");
+        return permission;
+    }
+
     // simple DTO
     public static record DriveFileInfo(String fileId, String webViewLink, String webContentLink) {
     }
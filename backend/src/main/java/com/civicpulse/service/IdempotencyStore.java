@@ -0,0 +1,277 @@
+package com.civicpulse.service;
+
+import com.civicpulse.cache.ExpiringCache;
+import com.civicpulse.entity.IdempotencyRecord;
+import com.civicpulse.exception.IdempotencyConflictException;
+import com.civicpulse.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Outcomes of requests sent with an {@code Idempotency-Key}, so a client retry gets the first
+ * response back instead of running the request again. Completed responses sit in a bounded
+ * in-memory cache in front of the {@code idempotency_keys} table, which survives restarts.
+ * <p>
+ * Before running a request, a node inserts the key into the table with no response. A duplicate
+ * on the same node waits on the first request directly. A duplicate on another node hits the key
+ * conflict and polls the row until the response is recorded. A claim whose node died is taken
+ * over after {@code idempotency.claim.timeout.ms}. Failures are not recorded: the claim is
+ * released, and a retry after an error runs again.
+ */
+@Component
+public class IdempotencyStore {
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyStore.class);
+    static final int MAX_KEY_LENGTH = 255;
+
+    @Value("${idempotency.ttl.ms:86400000}")
+    private long ttlMillis = 86_400_000;
+
+    @Value("${idempotency.cache.max-entries:10000}")
+    private int maxEntries = 10_000;
+
+    @Value("${idempotency.wait.ms:30000}")
+    private long waitMillis = 30_000;
+
+    // how long a claim outlives its node; keep it above the slowest request
+    @Value("${idempotency.claim.timeout.ms:120000}")
+    private long claimTimeoutMillis = 120_000;
+
+    @Value("${idempotency.poll.ms:200}")
+    private long pollMillis = 200;
+
+    @Autowired
+    private IdempotencyRecordRepository repository;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ExpiringCache<String, Stored> completed;
+    private final Map<String, CompletableFuture<Stored>> inFlight = new ConcurrentHashMap<>();
+
+    private record Stored(String requestHash, String json) {
+    }
+
+    /** The response and whether it was replayed from an earlier request. */
+    public record Result<T>(T value, boolean replayed) {
+    }
+
+    @PostConstruct
+    public void init() {
+        completed = new ExpiringCache<>(maxEntries, ttlMillis);
+    }
+
+    /**
+     * Runs {@code action} once per {@code scope}, {@code caller} and {@code key}, and replays its
+     * response to later calls with the same request hash.
+     *
+     * @throws IdempotencyConflictException if the key was used for a request with another hash, or
+     *         the first request is still running after {@code idempotency.wait.ms}
+     */
+    public <T> Result<T> execute(String scope, String caller, String key, String requestHash, Class<T> type,
+                                 Callable<T> action) throws Exception {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String id = hash(scope, caller, key);
+        while (true) {
+            Stored stored = lookup(id);
+            if (stored != null) return replay(stored, requestHash, type, "replayed");
+            CompletableFuture<Stored> mine = new CompletableFuture<>();
+            CompletableFuture<Stored> running = inFlight.putIfAbsent(id, mine);
+            if (running == null) {
+                Result<T> result = run(id, requestHash, type, action, mine);
+                if (result != null) return result;
+                // another node held the key and released it without a response; try again
+                continue;
+            }
+            stored = await(running);
+            if (stored != null) return replay(stored, requestHash, type, "waited");
+            // the first request failed and recorded nothing; this one is a retry of it
+        }
+    }
+
+    /** @return null when another node held the key and gave it up without recording a response */
+    private <T> Result<T> run(String id, String requestHash, Class<T> type, Callable<T> action,
+                              CompletableFuture<Stored> mine) throws Exception {
+        try {
+            // a request that finished between our lookup and the claim is in the cache by now
+            Stored stored = completed.get(id);
+            if (stored != null) {
+                mine.complete(stored);
+                return replay(stored, requestHash, type, "replayed");
+            }
+            if (!claim(id, requestHash)) {
+                stored = awaitOtherNode(id);
+                if (stored == null) return null;
+                mine.complete(stored);
+                return replay(stored, requestHash, type, "waited");
+            }
+            T value;
+            try {
+                value = action.call();
+            } catch (Exception ex) {
+                release(id);
+                throw ex;
+            }
+            stored = new Stored(requestHash, objectMapper.writeValueAsString(value));
+            save(id, stored);
+            mine.complete(stored);
+            count("executed");
+            return new Result<>(value, false);
+        } finally {
+            // no-op after success; wakes waiters with "nothing recorded" after a failure
+            mine.complete(null);
+            inFlight.remove(id, mine);
+        }
+    }
+
+    private Stored lookup(String id) {
+        Stored stored = completed.get(id);
+        if (stored != null) return stored;
+        return load(id);
+    }
+
+    // null unless the table holds a completed, unexpired response
+    private Stored load(String id) {
+        IdempotencyRecord r = repository.findById(id).orElse(null);
+        LocalDateTime now = LocalDateTime.now();
+        if (r == null || r.getResponseJson() == null || !r.getExpiresAt().isAfter(now)) return null;
+        Stored stored = new Stored(r.getRequestHash(), r.getResponseJson());
+        completed.put(id, stored, Duration.between(now, r.getExpiresAt()).toMillis());
+        return stored;
+    }
+
+    /** @return false if another request holds the key */
+    private boolean claim(String id, String requestHash) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plus(Duration.ofMillis(claimTimeoutMillis));
+        try {
+            repository.insertPending(id, requestHash, now, expiresAt);
+            return true;
+        } catch (DataIntegrityViolationException ex) {
+            // an expired row is a claim whose node died, or a record not purged yet
+            if (repository.deleteExpiredKey(id, now) == 0) return false;
+        }
+        try {
+            repository.insertPending(id, requestHash, now, expiresAt);
+            return true;
+        } catch (DataIntegrityViolationException ex) {
+            return false;
+        }
+    }
+
+    private void release(String id) {
+        try {
+            repository.deleteById(id);
+        } catch (DataAccessException ex) {
+            // the claim expires after idempotency.claim.timeout.ms instead
+            log.warn("Could not release idempotency key: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Polls the row of a request running on another node.
+     *
+     * @return its response, or null once the row is gone or expired without one
+     */
+    private Stored awaitOtherNode(String id) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMillis);
+        while (true) {
+            IdempotencyRecord r = repository.findById(id).orElse(null);
+            if (r == null || !r.getExpiresAt().isAfter(LocalDateTime.now())) return null;
+            if (r.getResponseJson() != null) return load(id);
+            if (System.nanoTime() - deadline > 0) {
+                count("in_progress");
+                throw new IdempotencyConflictException("idempotency_key_in_progress",
+                        "A request with this Idempotency-Key is still running");
+            }
+            Thread.sleep(pollMillis);
+        }
+    }
+
+    private void save(String id, Stored stored) {
+        completed.put(id, stored);
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            repository.save(new IdempotencyRecord(id, stored.requestHash(), stored.json(), now,
+                    now.plus(Duration.ofMillis(ttlMillis))));
+        } catch (DataAccessException ex) {
+            // the request itself succeeded; the claim expires and a retry on another node runs again
+            log.warn("Could not persist idempotency record: {}", ex.getMessage());
+        }
+    }
+
+    private Stored await(CompletableFuture<Stored> running) throws InterruptedException {
+        try {
+            return running.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            count("in_progress");
+            throw new IdempotencyConflictException("idempotency_key_in_progress",
+                    "A request with this Idempotency-Key is still running");
+        } catch (ExecutionException ex) {
+            // never completed exceptionally
+            return null;
+        }
+    }
+
+    private <T> Result<T> replay(Stored stored, String requestHash, Class<T> type, String outcome) throws IOException {
+        if (!stored.requestHash().equals(requestHash)) {
+            count("mismatch");
+            throw new IdempotencyConflictException("idempotency_key_reused",
+                    "This Idempotency-Key was already used for a different request");
+        }
+        count(outcome);
+        return new Result<>(objectMapper.readValue(stored.json(), type), true);
+    }
+
+    private void count(String outcome) {
+        meterRegistry.counter("civicpulse.idempotency", "outcome", outcome).increment();
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.purge.interval.ms:3600000}")
+    @Transactional
+    public void purgeExpired() {
+        int purged = repository.deleteExpired(LocalDateTime.now());
+        if (purged > 0) log.debug("Purged {} expired idempotency records", purged);
+    }
+
+    /** SHA-256 (hex) of the parts, each terminated by a NUL so boundaries are unambiguous. */
+    public static String hash(Object... parts) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            for (Object part : parts) {
+                md.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+                md.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(md.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
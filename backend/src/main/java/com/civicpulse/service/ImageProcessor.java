@@ -0,0 +1,306 @@
+package com.civicpulse.service;
+
+import com.civicpulse.concurrent.Threads;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turns a staged upload into the variants that are actually stored: a JPEG no larger than
+ * {@code uploads.image.max-dimension} and a thumbnail of {@code uploads.image.thumbnail-dimension}.
+ * Both are re-encoded from pixels, so EXIF (including GPS) and other metadata are dropped; the
+ * EXIF orientation is applied first so phone photos stay upright. Large sources are subsampled
+ * while decoding, which bounds memory and CPU. Nothing but these variants is ever stored, so a
+ * file that cannot be decoded is refused by {@link #check} when it is submitted. Decoding runs
+ * on its own pool of platform threads, one per core by default, independent of how many upload
+ * workers are waiting on storage.
+ */
+@Service
+public class ImageProcessor {
+    private static final Logger log = LoggerFactory.getLogger(ImageProcessor.class);
+
+    @Value("${uploads.image.max-dimension:1600}")
+    private int maxDimension = 1600;
+
+    @Value("${uploads.image.quality:0.8}")
+    private float quality = 0.8f;
+
+    @Value("${uploads.image.thumbnail-dimension:320}")
+    private int thumbnailDimension = 320;
+
+    @Value("${uploads.image.thumbnail-quality:0.7}")
+    private float thumbnailQuality = 0.7f;
+
+    // refuse decompression bombs before allocating the raster
+    @Value("${uploads.image.max-pixels:60000000}")
+    private long maxPixels = 60_000_000L;
+
+    // 0 means one per available processor
+    @Value("${uploads.image.workers:0}")
+    private int workers;
+
+    private ThreadPoolExecutor executor;
+
+    /** Stored variants of one image; the files are temporary and owned by the caller. */
+    public record Variants(Path main, long mainBytes, int width, int height, Path thumbnail, long thumbnailBytes) {
+    }
+
+    @PostConstruct
+    public void start() {
+        int n = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        // callers are the upload workers, so when every core is busy they decode on their own thread
+        executor = new ThreadPoolExecutor(n, n, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(n * 4),
+                Threads.factory("image-cpu-", false), new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) executor.shutdown();
+    }
+
+    /**
+     * Reads just the header of an upload, so a file that could never be processed fails its
+     * request instead of the pipeline.
+     *
+     * @throws IllegalArgumentException if no ImageIO reader accepts the file or it has more than
+     *         {@code uploads.image.max-pixels} pixels
+     */
+    public void check(Path source) {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) throw new IllegalArgumentException("Unsupported image format");
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int w = reader.getWidth(0);
+                int h = reader.getHeight(0);
+                if ((long) w * h > maxPixels) throw new IllegalArgumentException("Image too large: " + w + "x" + h);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("Unreadable image: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Processes the files in parallel. Entries are positional and null when a file could not be
+     * processed; such a file must not be stored, since the original still carries its metadata.
+     */
+    public List<Variants> processAll(List<Path> sources) {
+        List<Variants> out = new ArrayList<>(sources.size());
+        List<Future<Variants>> futures = new ArrayList<>(sources.size());
+        for (Path source : sources) futures.add(executor.submit(() -> process(source)));
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                out.add(futures.get(i).get());
+            } catch (ExecutionException ex) {
+                log.warn("Could not process {}: {}", sources.get(i), ex.getCause().toString());
+                out.add(null);
+            } catch (InterruptedException ex) {
+                // shutting down; nothing is stored and the images stay pending
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while processing images", ex);
+            }
+        }
+        return out;
+    }
+
+    Variants process(Path source) throws IOException {
+        BufferedImage decoded = decode(source);
+        if (decoded == null) return null;
+        BufferedImage image = scale(orient(toRgb(decoded), exifOrientation(source)), maxDimension);
+        BufferedImage thumb = scale(image, thumbnailDimension);
+
+        String base = source.getFileName().toString().replaceFirst("\\.[^.]*$", "");
+        Path main = source.resolveSibling(base + ".main.jpg");
+        Path thumbnail = source.resolveSibling(base + ".thumb.jpg");
+        writeJpeg(image, main, quality);
+        writeJpeg(thumb, thumbnail, thumbnailQuality);
+        return new Variants(main, Files.size(main), image.getWidth(), image.getHeight(),
+                thumbnail, Files.size(thumbnail));
+    }
+
+    private BufferedImage decode(Path source) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+            if (in == null) return null;
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) return null;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int w = reader.getWidth(0);
+                int h = reader.getHeight(0);
+                if ((long) w * h > maxPixels) throw new IOException("Image too large: " + w + "x" + h);
+                ImageReadParam param = reader.getDefaultReadParam();
+                // keep at least twice the target resolution for a clean final downscale
+                int step = Math.max(1, Math.max(w, h) / (maxDimension * 2));
+                if (step > 1) param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // JPEG has no alpha; flatten onto white so transparent PNG areas do not turn black
+    private static BufferedImage toRgb(BufferedImage src) {
+        if (src.getType() == BufferedImage.TYPE_INT_RGB) return src;
+        BufferedImage rgb = new BufferedImage(src.getWidth(), src.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = rgb.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, src.getWidth(), src.getHeight());
+            g.drawImage(src, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+        return rgb;
+    }
+
+    static BufferedImage orient(BufferedImage src, int orientation) {
+        if (orientation < 2 || orientation > 8) return src;
+        int w = src.getWidth();
+        int h = src.getHeight();
+        boolean swap = orientation >= 5;
+        // x' = m00*x + m01*y + m02, y' = m10*x + m11*y + m12 for each EXIF orientation
+        AffineTransform t = switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, w, 0);
+            case 3 -> new AffineTransform(-1, 0, 0, -1, w, h);
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, h);
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);
+            case 6 -> new AffineTransform(0, 1, -1, 0, h, 0);
+            case 7 -> new AffineTransform(0, -1, -1, 0, h, w);
+            default -> new AffineTransform(0, -1, 1, 0, 0, w);
+        };
+        BufferedImage out = new BufferedImage(swap ? h : w, swap ? w : h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = out.createGraphics();
+        try {
+            g.drawImage(src, t, null);
+        } finally {
+            g.dispose();
+        }
+        return out;
+    }
+
+    // halve with bilinear filtering until within 2x of the target, then one final bilinear step
+    static BufferedImage scale(BufferedImage src, int maxDim) {
+        int w = src.getWidth();
+        int h = src.getHeight();
+        if (Math.max(w, h) <= maxDim) return src;
+        double ratio = (double) maxDim / Math.max(w, h);
+        int targetW = Math.max(1, (int) Math.round(w * ratio));
+        int targetH = Math.max(1, (int) Math.round(h * ratio));
+        BufferedImage current = src;
+        while (current.getWidth() / 2 >= targetW && current.getHeight() / 2 >= targetH) {
+            current = resize(current, current.getWidth() / 2, current.getHeight() / 2);
+        }
+        return current.getWidth() == targetW && current.getHeight() == targetH
+                ? current : resize(current, targetW, targetH);
+    }
+
+    private static BufferedImage resize(BufferedImage src, int w, int h) {
+        BufferedImage out = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = out.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(src, 0, 0, w, h, null);
+        } finally {
+            g.dispose();
+        }
+        return out;
+    }
+
+    private static void writeJpeg(BufferedImage image, Path target, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(Files.newOutputStream(target))) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            // no metadata is passed, so nothing from the source file is carried over
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * Reads the EXIF orientation tag (1-8) from a JPEG's APP1 segment; 1 when there is none.
+     */
+    static int exifOrientation(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readUnsignedShort() != 0xFFD8) return 1;
+            while (true) {
+                int marker = in.readUnsignedShort();
+                // metadata segments all precede start-of-scan
+                if ((marker & 0xFF00) != 0xFF00 || marker == 0xFFDA || marker == 0xFFD9) return 1;
+                int length = in.readUnsignedShort() - 2;
+                if (length < 0) return 1;
+                if (marker == 0xFFE1) {
+                    byte[] segment = new byte[length];
+                    in.readFully(segment);
+                    int orientation = orientationFromExif(segment);
+                    if (orientation > 0) return orientation;
+                } else {
+                    in.skipNBytes(length);
+                }
+            }
+        } catch (EOFException ex) {
+            return 1;
+        }
+    }
+
+    // 0 when the APP1 segment is not EXIF (e.g. XMP)
+    private static int orientationFromExif(byte[] seg) {
+        if (seg.length < 14 || seg[0] != 'E' || seg[1] != 'x' || seg[2] != 'i' || seg[3] != 'f') return 0;
+        int tiff = 6;
+        ByteBuffer b = ByteBuffer.wrap(seg).order(seg[tiff] == 'I' ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        long ifd = tiff + (b.getInt(tiff + 4) & 0xffffffffL);
+        if (ifd + 2 > seg.length) return 1;
+        int entries = b.getShort((int) ifd) & 0xffff;
+        for (int i = 0; i < entries; i++) {
+            int e = (int) ifd + 2 + i * 12;
+            if (e + 12 > seg.length) break;
+            if ((b.getShort(e) & 0xffff) == 0x0112) {
+                int v = b.getShort(e + 8) & 0xffff;
+                return v >= 1 && v <= 8 ? v : 1;
+            }
+        }
+        return 1;
+    }
+}
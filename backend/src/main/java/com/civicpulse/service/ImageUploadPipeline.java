@@ -0,0 +1,396 @@
+package com.civicpulse.service;
+
+import com.civicpulse.concurrent.Threads;
+import com.civicpulse.entity.Report;
+import com.civicpulse.entity.ReportImage;
+import com.civicpulse.repository.ReportImageRepository;
+import com.civicpulse.storage.BlobStore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Staged image upload pipeline. Request threads only write the multipart payload to a local
+ * staging directory and persist a PENDING {@link ReportImage}; after the report transaction
+ * commits, a bounded worker pool has the {@link ImageProcessor} downscale each file and cut a
+ * thumbnail, then pushes both variants to the {@link BlobStore}. The original file is never
+ * stored. When the queue is full the image simply stays PENDING and the periodic sweep picks it
+ * up later, so a slow storage backend never blocks request threads or holds database connections.
+ */
+@Service
+public class ImageUploadPipeline {
+    private static final Logger log = LoggerFactory.getLogger(ImageUploadPipeline.class);
+
+    @Autowired private ReportImageRepository reportImageRepository;
+    @Autowired private BlobStore blobStore;
+    @Autowired private ImageProcessor imageProcessor;
+    @Autowired private ReportDetailCache reportDetailCache;
+
+    @Value("${uploads.staging.dir:${java.io.tmpdir}/civicpulse-staging}")
+    private String stagingDir;
+
+    @Value("${uploads.workers:4}")
+    private int workers;
+
+    @Value("${uploads.queue.capacity:200}")
+    private int queueCapacity;
+
+    @Value("${uploads.max.attempts:5}")
+    private int maxAttempts;
+
+    @Value("${uploads.retry.backoff.ms:5000}")
+    private long retryBackoffMs;
+
+    @Value("${uploads.batch.size:5}")
+    private int batchSize;
+
+    @Value("${uploads.max.file.size:5242880}")
+    private long maxFileSize;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private ThreadPoolExecutor executor;
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void start() throws IOException {
+        Files.createDirectories(Paths.get(stagingDir));
+        executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Threads.factory("image-upload-", virtualThreads),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) executor.shutdown();
+    }
+
+    /**
+     * Writes the multipart payload to the staging directory and returns an unsaved PENDING image.
+     *
+     * @throws IllegalArgumentException if the file is empty, too large or not a decodable image
+     */
+    public ReportImage stage(Report report, MultipartFile file) throws IOException {
+        Path target = stageFile(file);
+        return pending(report, file.getOriginalFilename(), file.getContentType(), file.getSize(), target);
+    }
+
+    /**
+     * Stores an image that belongs to no report, synchronously. As for report images, only the
+     * re-encoded JPEG is stored, never the uploaded bytes; no thumbnail is kept.
+     *
+     * @throws IllegalArgumentException if the file is empty, too large or not a decodable image
+     */
+    public BlobStore.StoredBlob storeNow(MultipartFile file) throws IOException {
+        Path staged = stageFile(file);
+        ImageProcessor.Variants v = null;
+        try {
+            v = imageProcessor.processAll(List.of(staged)).get(0);
+            if (v == null) throw new IllegalArgumentException("Could not decode image");
+            BlobStore.PutResult result = blobStore.putAll(List.of(new BlobStore.BlobSource(
+                    baseName(file.getOriginalFilename()) + ".jpg", "image/jpeg", v.main()))).get(0);
+            if (!result.ok()) throw new IllegalStateException("Could not store image: " + result.error());
+            return result.blob();
+        } finally {
+            deleteStaged(staged.toString());
+            if (v != null) {
+                deleteStaged(v.main().toString());
+                deleteStaged(v.thumbnail().toString());
+            }
+        }
+    }
+
+    private Path stageFile(MultipartFile file) throws IOException {
+        if (file == null || file.isEmpty())
+            throw new IllegalArgumentException("File is empty");
+        if (file.getSize() > maxFileSize)
+            throw new IllegalArgumentException("File too large (max " + maxFileSize / (1024 * 1024) + "MB)");
+
+        Path target = Paths.get(stagingDir).resolve(UUID.randomUUID() + ".bin");
+        file.transferTo(target);
+        check(target);
+        return target;
+    }
+
+    /**
+     * Moves the file of a complete upload session into the staging directory and returns an
+     * unsaved PENDING image. The session's size limit applies instead of {@code uploads.max.file.size}.
+     */
+    public ReportImage stage(Report report, UploadSessionService.Session upload) throws IOException {
+        Path target = Paths.get(stagingDir).resolve(UUID.randomUUID() + ".bin");
+        // a rename when both directories are on one filesystem
+        Files.move(upload.path(), target);
+        check(target);
+        return pending(report, upload.filename(), upload.contentType(), upload.size(), target);
+    }
+
+    private void check(Path staged) {
+        try {
+            imageProcessor.check(staged);
+        } catch (IllegalArgumentException ex) {
+            deleteStaged(staged.toString());
+            throw ex;
+        }
+    }
+
+    private static ReportImage pending(Report report, String filename, String contentType, long size, Path staged) {
+        ReportImage image = new ReportImage();
+        image.setReport(report);
+        image.setOriginalFilename(filename);
+        image.setContentType(contentType);
+        image.setSizeBytes(size);
+        image.setOriginalSizeBytes(size);
+        image.setStagedPath(staged.toString());
+        image.setUploadStatus(ReportImage.STATUS_PENDING);
+        image.setUploadAttempts(0);
+        return image;
+    }
+
+    /**
+     * Hands the saved images to the workers once the surrounding transaction commits, and removes
+     * their staged files if it rolls back. Outside a transaction they are enqueued immediately.
+     */
+    public void submitAfterCommit(List<ReportImage> images) {
+        if (images.isEmpty()) return;
+        List<Long> ids = images.stream().map(ReportImage::getId).toList();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(ids);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                enqueue(ids);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    discard(images);
+                }
+            }
+        });
+    }
+
+    /**
+     * Removes the staged files of images that will never be submitted.
+     */
+    public void discard(List<ReportImage> images) {
+        images.forEach(img -> deleteStaged(img.getStagedPath()));
+    }
+
+    /**
+     * Queues the images as one upload job so they are stored together.
+     *
+     * @return false when all of them are already queued or the queue is full
+     */
+    public boolean enqueue(List<Long> imageIds) {
+        List<Long> claimed = new ArrayList<>();
+        for (Long id : imageIds) {
+            if (id != null && inFlight.add(id)) claimed.add(id);
+        }
+        if (claimed.isEmpty()) return false;
+        try {
+            executor.execute(() -> {
+                try {
+                    process(claimed);
+                } finally {
+                    claimed.forEach(inFlight::remove);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException ex) {
+            // backpressure: leave them PENDING for the next sweep
+            claimed.forEach(inFlight::remove);
+            return false;
+        }
+    }
+
+    void process(List<Long> imageIds) {
+        List<ReportImage> images = new ArrayList<>();
+        for (ReportImage img : reportImageRepository.findAllById(imageIds)) {
+            if (ReportImage.STATUS_PENDING.equals(img.getUploadStatus())) images.add(img);
+        }
+        if (images.isEmpty()) return;
+
+        // CPU stage: downscale, drop metadata and cut a thumbnail before anything leaves the host
+        List<ImageProcessor.Variants> variants;
+        try {
+            variants = imageProcessor.processAll(images.stream().map(img -> Paths.get(img.getStagedPath())).toList());
+        } catch (RuntimeException ex) {
+            // counted like any failure, or a batch that always throws would stay PENDING forever
+            log.warn("Could not process images {}: {}", imageIds, ex.toString());
+            images.forEach(img -> markFailedAttempt(img, ex.toString()));
+            finish(images);
+            return;
+        }
+        try {
+            List<BlobStore.BlobSource> sources = new ArrayList<>(images.size() * 2);
+            for (int i = 0; i < images.size(); i++) {
+                ReportImage img = images.get(i);
+                ImageProcessor.Variants v = variants.get(i);
+                if (v == null) continue;
+                String base = baseName(img.getOriginalFilename());
+                sources.add(new BlobStore.BlobSource(base + ".jpg", "image/jpeg", v.main()));
+                sources.add(new BlobStore.BlobSource(base + "-thumb.jpg", "image/jpeg", v.thumbnail()));
+            }
+            List<BlobStore.PutResult> results;
+            try {
+                results = sources.isEmpty() ? List.of() : blobStore.putAll(sources);
+            } catch (RuntimeException ex) {
+                log.warn("Could not store images {}: {}", imageIds, ex.toString());
+                results = sources.stream().map(src -> BlobStore.PutResult.failure(ex.toString())).toList();
+            }
+
+            int next = 0;
+            for (int i = 0; i < images.size(); i++) {
+                ReportImage image = images.get(i);
+                ImageProcessor.Variants v = variants.get(i);
+                if (v == null) {
+                    // decoding is deterministic, and the original keeps its EXIF/GPS: never retried or stored
+                    markFailed(image, "Could not decode image");
+                    continue;
+                }
+                BlobStore.PutResult main = results.get(next++);
+                BlobStore.PutResult thumb = results.get(next++);
+                if (main.ok() && thumb.ok()) {
+                    markUploaded(image, main.blob(), v, thumb.blob());
+                } else {
+                    // the pair is stored together or not at all; both are retried
+                    if (main.ok()) deleteBlob(main.blob());
+                    if (thumb.ok()) deleteBlob(thumb.blob());
+                    markFailedAttempt(image, main.ok() ? thumb.error() : main.error());
+                }
+            }
+        } finally {
+            // variants are cheap to recreate, so they never outlive an attempt
+            for (ImageProcessor.Variants v : variants) {
+                if (v == null) continue;
+                deleteStaged(v.main().toString());
+                deleteStaged(v.thumbnail().toString());
+            }
+        }
+        finish(images);
+    }
+
+    private void finish(List<ReportImage> images) {
+        // staged copies are only kept for images that will be retried
+        List<String> finished = new ArrayList<>();
+        for (ReportImage image : images) {
+            if (!ReportImage.STATUS_PENDING.equals(image.getUploadStatus()) && image.getStagedPath() != null) {
+                finished.add(image.getStagedPath());
+                image.setStagedPath(null);
+            }
+        }
+        reportImageRepository.saveAll(images);
+        finished.forEach(this::deleteStaged);
+        // image status and URLs are part of the cached report view
+        images.stream().map(img -> img.getReport().getId()).distinct().forEach(reportDetailCache::invalidate);
+    }
+
+    private void markUploaded(ReportImage image, BlobStore.StoredBlob blob, ImageProcessor.Variants variants,
+                              BlobStore.StoredBlob thumbnail) {
+        image.setStorageBackend(blobStore.name());
+        image.setStorageKey(blob.key());
+        image.setUrl(blob.url());
+        image.setContentType("image/jpeg");
+        image.setSizeBytes(variants.mainBytes());
+        image.setWidth(variants.width());
+        image.setHeight(variants.height());
+        image.setThumbnailStorageKey(thumbnail.key());
+        image.setThumbnailUrl(thumbnail.url());
+        image.setThumbnailSizeBytes(variants.thumbnailBytes());
+        image.setUploadStatus(ReportImage.STATUS_UPLOADED);
+        image.setUploadedAt(LocalDateTime.now());
+        image.setLastError(null);
+        image.setNextAttemptAt(null);
+    }
+
+    private void markFailedAttempt(ReportImage image, String error) {
+        int attempts = image.getUploadAttempts() == null ? 1 : image.getUploadAttempts() + 1;
+        image.setUploadAttempts(attempts);
+        image.setLastError(truncate(error));
+        if (attempts >= maxAttempts) {
+            log.warn("Giving up on image {} after {} attempts: {}", image.getId(), attempts, error);
+            markFailed(image, error);
+        } else {
+            long delay = retryBackoffMs << Math.min(attempts - 1, 10);
+            image.setNextAttemptAt(LocalDateTime.now().plusNanos(delay * 1_000_000L));
+        }
+    }
+
+    private void markFailed(ReportImage image, String error) {
+        image.setUploadStatus(ReportImage.STATUS_FAILED);
+        image.setLastError(truncate(error));
+        image.setNextAttemptAt(null);
+    }
+
+    /**
+     * Re-enqueues PENDING images whose retry time has come, including ones that were rejected
+     * by a full queue or orphaned by a restart.
+     */
+    @Scheduled(fixedDelayString = "${uploads.sweep.interval.ms:10000}")
+    public void sweep() {
+        int free = executor.getQueue().remainingCapacity();
+        if (free == 0) return;
+        List<Long> due = reportImageRepository.findDueIds(ReportImage.STATUS_PENDING, LocalDateTime.now(),
+                PageRequest.of(0, free * batchSize));
+        for (int i = 0; i < due.size(); i += batchSize) {
+            enqueue(due.subList(i, Math.min(due.size(), i + batchSize)));
+        }
+    }
+
+    private void deleteBlob(BlobStore.StoredBlob blob) {
+        try {
+            blobStore.delete(blob.key());
+        } catch (Exception ex) {
+            log.warn("Could not delete orphaned blob {}", blob.key(), ex);
+        }
+    }
+
+    private static String baseName(String filename) {
+        if (filename == null || filename.isBlank()) return "image";
+        int dot = filename.lastIndexOf('.');
+        return dot > 0 ? filename.substring(0, dot) : filename;
+    }
+
+    private void deleteStaged(String path) {
+        if (path == null) return;
+        try {
+            Files.deleteIfExists(Paths.get(path));
+        } catch (IOException ex) {
+            log.warn("Could not delete staged file {}", path, ex);
+        }
+    }
+
+    private static String truncate(String msg) {
+        if (msg == null) return null;
+        return msg.length() > 500 ? msg.substring(0, 500) : msg;
+    }
+}
@@ -0,0 +1,32 @@
+package com.civicpulse.service;
+
+import com.civicpulse.entity.Report;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published by {@link ReportService} whenever a report is created or changed. In-memory read
+ * models (indexes, counters, feeds) consume it after the transaction commits, so they never see
+ * rolled-back state.
+ */
+public record ReportChangedEvent(Type type, Long reportId, Long userId, String previousStatus, String status,
+                                 String category, String previousDepartment, String assignedDepartment,
+                                 Double latitude, Double longitude,
+                                 String title, String description, Long duplicateOf,
+                                 LocalDateTime createdAt, LocalDateTime updatedAt) {
+
+    public enum Type { CREATED, STATUS_CHANGED, ASSIGNED }
+
+    public static ReportChangedEvent of(Type type, Report report, String previousStatus) {
+        return of(type, report, previousStatus, report.getAssignedDepartment());
+    }
+
+    public static ReportChangedEvent of(Type type, Report report, String previousStatus, String previousDepartment) {
+        Long userId = report.getUser() != null ? report.getUser().getId() : null;
+        return new ReportChangedEvent(type, report.getId(), userId, previousStatus, report.getStatus(),
+                report.getCategory(), previousDepartment, report.getAssignedDepartment(),
+                report.getLatitude(), report.getLongitude(),
+                report.getTitle(), report.getDescription(), report.getDuplicateOf(),
+                report.getCreatedAt(), report.getUpdatedAt());
+    }
+}
@@ -0,0 +1,80 @@
+package com.civicpulse.service;
+
+import com.civicpulse.cache.ExpiringCache;
+import com.civicpulse.dto.ReportDtos;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of report detail views with their ETags, bounded by
+ * {@code reports.cache.max-entries} and {@code reports.cache.ttl.ms}. Entries are dropped when
+ * the report changes (after commit) or when the upload pipeline finishes one of its images.
+ * A load that overlaps an invalidation is returned but not cached, so a view read before a
+ * commit cannot be stored after it.
+ */
+@Component
+public class ReportDetailCache {
+    @Value("${reports.cache.ttl.ms:60000}")
+    private long ttlMillis = 60_000;
+
+    @Value("${reports.cache.max-entries:10000}")
+    private int maxEntries = 10_000;
+
+    private ExpiringCache<Long, View> views;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /** A detail view and the strong ETag of its JSON representation. */
+    public record View(ReportDtos.ReportDetail detail, String etag) {
+    }
+
+    @PostConstruct
+    public void init() {
+        views = new ExpiringCache<>(maxEntries, ttlMillis);
+    }
+
+    public View get(Long reportId, Function<Long, ReportDtos.ReportDetail> loader) {
+        View view = views.get(reportId);
+        if (view != null) return view;
+        long generation = invalidations.get();
+        ReportDtos.ReportDetail detail = loader.apply(reportId);
+        view = new View(detail, etag(detail));
+        if (invalidations.get() == generation) views.put(reportId, view);
+        return view;
+    }
+
+    public void invalidate(Long reportId) {
+        invalidations.incrementAndGet();
+        views.invalidate(reportId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReportChanged(ReportChangedEvent e) {
+        invalidate(e.reportId());
+    }
+
+    /**
+     * {@code "<id>-<hash>"}, where the hash covers every field of the view. updated_at alone is
+     * not enough: it has whole-second precision in the table, and images change state after the
+     * report row is written (upload pipeline).
+     */
+    static String etag(ReportDtos.ReportDetail d) {
+        List<Object> parts = new ArrayList<>(Arrays.asList(d.title, d.description, d.category, d.latitude,
+                d.longitude, d.status, d.assignedDepartment, d.duplicateOf, d.createdAt, d.updatedAt));
+        if (d.images != null) {
+            for (ReportDtos.ImageDto img : d.images) {
+                parts.addAll(Arrays.asList(img.id, img.uploadStatus, img.uploadAttempts, img.storageBackend,
+                        img.storageKey, img.url, img.thumbnailUrl, img.sizeBytes, img.thumbnailSizeBytes,
+                        img.width, img.height));
+            }
+        }
+        return "\"" + d.id + "-" + IdempotencyStore.hash(parts.toArray()).substring(0, 16) + "\"";
+    }
+}
@@ -0,0 +1,130 @@
+package com.civicpulse.service;
+
+import com.civicpulse.entity.Report;
+import com.civicpulse.repository.ReportRepository;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes the report table as NDJSON or CSV straight from a database cursor. The persistence
+ * context is cleared every {@code reports.export.clear-interval} rows, so heap use does not
+ * grow with the number of exported rows.
+ */
+@Service
+public class ReportExportService {
+    public enum Format { NDJSON, CSV }
+
+    static final String[] COLUMNS = {"id", "userId", "title", "description", "category", "latitude", "longitude",
+            "status", "assignedDepartment", "assignedToId", "duplicateOf", "createdAt", "updatedAt"};
+    private static final JsonFactory JSON = new JsonFactory();
+
+    @Autowired private ReportRepository reportRepository;
+    @PersistenceContext private EntityManager entityManager;
+
+    // rows between persistence context clears
+    @Value("${reports.export.clear-interval:1000}")
+    private int clearInterval = 1000;
+
+    /**
+     * @return the number of rows written
+     */
+    @Transactional(readOnly = true)
+    public long export(Format format, String status, String category, LocalDateTime from, LocalDateTime to,
+                       OutputStream out) throws IOException {
+        try (Stream<Report> rows = reportRepository.streamForExport(status, category, from, to)) {
+            return format == Format.CSV ? writeCsv(rows.iterator(), out) : writeNdjson(rows.iterator(), out);
+        }
+    }
+
+    long writeNdjson(Iterator<Report> rows, OutputStream out) throws IOException {
+        long count = 0;
+        JsonGenerator gen = JSON.createGenerator(out, JsonEncoding.UTF8);
+        gen.setRootValueSeparator(null);
+        while (rows.hasNext()) {
+            Report r = rows.next();
+            gen.writeStartObject();
+            gen.writeNumberField("id", r.getId());
+            writeNumber(gen, "userId", r.getUser() != null ? r.getUser().getId() : null);
+            gen.writeStringField("title", r.getTitle());
+            gen.writeStringField("description", r.getDescription());
+            gen.writeStringField("category", r.getCategory());
+            writeNumber(gen, "latitude", r.getLatitude());
+            writeNumber(gen, "longitude", r.getLongitude());
+            gen.writeStringField("status", r.getStatus());
+            gen.writeStringField("assignedDepartment", r.getAssignedDepartment());
+            writeNumber(gen, "assignedToId", r.getAssignedTo() != null ? r.getAssignedTo().getId() : null);
+            writeNumber(gen, "duplicateOf", r.getDuplicateOf());
+            gen.writeStringField("createdAt", r.getCreatedAt() != null ? r.getCreatedAt().toString() : null);
+            gen.writeStringField("updatedAt", r.getUpdatedAt() != null ? r.getUpdatedAt().toString() : null);
+            gen.writeEndObject();
+            gen.writeRaw('\n');
+            release(++count);
+        }
+        gen.flush();
+        return count;
+    }
+
+    long writeCsv(Iterator<Report> rows, OutputStream out) throws IOException {
+        long count = 0;
+        Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        w.write(String.join(",", COLUMNS));
+        w.write("\r\n");
+        while (rows.hasNext()) {
+            Report r = rows.next();
+            Object[] values = {r.getId(), r.getUser() != null ? r.getUser().getId() : null, r.getTitle(),
+                    r.getDescription(), r.getCategory(), r.getLatitude(), r.getLongitude(), r.getStatus(),
+                    r.getAssignedDepartment(), r.getAssignedTo() != null ? r.getAssignedTo().getId() : null,
+                    r.getDuplicateOf(), r.getCreatedAt(), r.getUpdatedAt()};
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) w.write(',');
+                if (values[i] != null) w.write(csvField(values[i].toString()));
+            }
+            w.write("\r\n");
+            release(++count);
+        }
+        w.flush();
+        return count;
+    }
+
+    // the cursor keeps adding entities and user proxies to the session; drop them every few rows
+    private void release(long count) {
+        if (entityManager != null && count % clearInterval == 0) entityManager.clear();
+    }
+
+    private static void writeNumber(JsonGenerator gen, String name, Number value) throws IOException {
+        if (value == null) {
+            gen.writeNullField(name);
+        } else if (value instanceof Double d) {
+            gen.writeNumberField(name, d);
+        } else {
+            gen.writeNumberField(name, value.longValue());
+        }
+    }
+
+    // RFC 4180 quoting
+    static String csvField(String value) {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        return quote ? '"' + value.replace("\"", "\"\"") + '"' : value;
+    }
+}
@@ -0,0 +1,354 @@
+package com.civicpulse.service;
+
+import com.civicpulse.concurrent.Threads;
+import com.civicpulse.dto.ReportDtos;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Server-sent event feed of committed {@link ReportChangedEvent}s. Users follow their own reports;
+ * admins follow every report, optionally filtered. Idle subscribers cost an async request and a
+ * small queue, not a thread.
+ * <p>
+ * Publishing never blocks on a client. Each subscriber has a bounded queue
+ * ({@code feed.subscriber.buffer}) that a small sender pool drains. A subscriber whose queue
+ * overflows is disconnected; it resumes from the replay ring ({@code feed.replay.size} events)
+ * by reconnecting with {@code Last-Event-ID}. When the requested id has already left the ring,
+ * the client gets a {@code resync} event and should reload.
+ * <p>
+ * A write to a client that stopped reading blocks its sender until the connector's write timeout.
+ * A send still running after {@code feed.send.timeout.ms} drops that subscriber, and an extra
+ * sender (up to {@code feed.senders.max} in all) stands in until the stuck one returns, so one
+ * stalled client cannot hold up the others.
+ */
+@Service
+public class ReportFeed {
+    private static final Logger log = LoggerFactory.getLogger(ReportFeed.class);
+    private static final Object HEARTBEAT = new Object();
+    private static final Object RESYNC = new Object();
+    // Subscriber.sendingSince once the watchdog gave up on a send, with or without a stand-in sender
+    private static final long STALLED_REPLACED = -1;
+    private static final long STALLED = -2;
+
+    @Autowired private MeterRegistry meterRegistry;
+
+    @Value("${feed.replay.size:1000}")
+    private int replaySize = 1000;
+
+    @Value("${feed.subscriber.buffer:64}")
+    private int bufferSize = 64;
+
+    @Value("${feed.emitter.timeout.ms:1800000}")
+    private long emitterTimeoutMs = 1_800_000;
+
+    @Value("${feed.senders:4}")
+    private int senders = 4;
+
+    @Value("${feed.senders.max:32}")
+    private int maxSenders = 32;
+
+    @Value("${feed.send.timeout.ms:10000}")
+    private long sendTimeoutMs = 10_000;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private record Entry(ReportDtos.FeedEvent event, Long userId) {
+    }
+
+    private static final class Subscriber {
+        final SseEmitter emitter;
+        final Long userId;
+        final String status;
+        final String category;
+        final String department;
+        final ArrayBlockingQueue<Object> queue;
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        final AtomicBoolean open = new AtomicBoolean(true);
+        // start of the send in progress (epoch millis), 0 when idle
+        final AtomicLong sendingSince = new AtomicLong();
+
+        Subscriber(SseEmitter emitter, Long userId, String status, String category, String department, int buffer) {
+            this.emitter = emitter;
+            this.userId = userId;
+            this.status = status;
+            this.category = category;
+            this.department = department;
+            this.queue = new ArrayBlockingQueue<>(buffer);
+        }
+
+        boolean matches(Entry entry) {
+            ReportDtos.FeedEvent e = entry.event();
+            if (userId != null) return userId.equals(entry.userId());
+            return (status == null || status.equals(e.status))
+                    && (category == null || category.equals(e.category))
+                    && (department == null || department.equals(e.department));
+        }
+    }
+
+    // guards the ring and id assignment so a subscriber's replay and live events never overlap or gap
+    private final ReentrantLock lock = new ReentrantLock();
+    private Entry[] ring;
+    private int ringSize;
+    // seeded from the clock so ids handed out by a previous process are older than the ring
+    private long lastId = System.currentTimeMillis() * 1000;
+
+    private final Map<Long, Set<Subscriber>> byUser = new ConcurrentHashMap<>();
+    private final Set<Subscriber> admins = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private Executor executor;
+
+    @PostConstruct
+    public void start() {
+        ring = new Entry[replaySize];
+        executor = new ThreadPoolExecutor(senders, senders, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                Threads.factory("feed-sender-", virtualThreads));
+        meterRegistry.gauge("civicpulse.feed.subscribers", subscribers);
+    }
+
+    @PreDestroy
+    public void stop() {
+        for (Set<Subscriber> set : byUser.values()) set.forEach(s -> s.emitter.complete());
+        admins.forEach(s -> s.emitter.complete());
+        if (executor instanceof ExecutorService pool) pool.shutdown();
+    }
+
+    /** Changes to the user's own reports. */
+    public SseEmitter subscribeUser(Long userId, Long lastEventId) {
+        return register(new SseEmitter(emitterTimeoutMs), userId, null, null, null, lastEventId);
+    }
+
+    /** Changes to every report; each filter is optional and matches the report's new state. */
+    public SseEmitter subscribeAll(String status, String category, String department, Long lastEventId) {
+        return register(new SseEmitter(emitterTimeoutMs), null, status, category, department, lastEventId);
+    }
+
+    SseEmitter register(SseEmitter emitter, Long userId, String status, String category, String department,
+                        Long lastEventId) {
+        Subscriber s = new Subscriber(emitter, userId, status, category, department, bufferSize);
+        emitter.onCompletion(() -> remove(s));
+        emitter.onTimeout(() -> remove(s));
+        emitter.onError(ex -> remove(s));
+
+        lock.lock();
+        try {
+            if (lastEventId != null) replay(s, lastEventId);
+            // an immediate comment lets the client (and any proxy) see the stream is open
+            if (s.queue.isEmpty()) s.queue.offer(HEARTBEAT);
+            if (userId != null) {
+                byUser.compute(userId, (k, set) -> {
+                    Set<Subscriber> subs = set != null ? set : ConcurrentHashMap.newKeySet();
+                    subs.add(s);
+                    return subs;
+                });
+            } else {
+                admins.add(s);
+            }
+            subscribers.incrementAndGet();
+        } finally {
+            lock.unlock();
+        }
+        schedule(s);
+        return emitter;
+    }
+
+    private void replay(Subscriber s, long lastEventId) {
+        long oldest = lastId - ringSize + 1;
+        if (lastEventId > lastId || lastEventId < oldest - 1) {
+            s.queue.offer(RESYNC);
+            return;
+        }
+        for (long id = lastEventId + 1; id <= lastId; id++) {
+            Entry entry = ring[(int) (id % ring.length)];
+            if (!s.matches(entry)) continue;
+            if (!s.queue.offer(entry)) {
+                // more missed events than the buffer holds; a reload is cheaper than a trickle
+                s.queue.clear();
+                s.queue.offer(RESYNC);
+                return;
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReportChanged(ReportChangedEvent event) {
+        lock.lock();
+        try {
+            Entry entry = new Entry(toFeedEvent(++lastId, event), event.userId());
+            ring[(int) (lastId % ring.length)] = entry;
+            if (ringSize < ring.length) ringSize++;
+
+            Set<Subscriber> own = event.userId() != null ? byUser.get(event.userId()) : null;
+            if (own != null) own.forEach(s -> offer(s, entry));
+            for (Subscriber s : admins) {
+                if (s.matches(entry)) offer(s, entry);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${feed.heartbeat.interval.ms:15000}")
+    public void heartbeat() {
+        // keeps idle connections alive through proxies and surfaces dead ones as write errors
+        for (Set<Subscriber> set : byUser.values()) {
+            for (Subscriber s : set) {
+                if (s.queue.isEmpty()) offer(s, HEARTBEAT);
+            }
+        }
+        for (Subscriber s : admins) {
+            if (s.queue.isEmpty()) offer(s, HEARTBEAT);
+        }
+    }
+
+    /** Drops subscribers whose current send has run past {@code feed.send.timeout.ms}. */
+    @Scheduled(fixedDelayString = "${feed.send.timeout.ms:10000}")
+    public void dropStalledSubscribers() {
+        long cutoff = System.currentTimeMillis() - sendTimeoutMs;
+        for (Set<Subscriber> set : byUser.values()) set.forEach(s -> dropIfStalled(s, cutoff));
+        admins.forEach(s -> dropIfStalled(s, cutoff));
+    }
+
+    private void dropIfStalled(Subscriber s, long cutoff) {
+        long since = s.sendingSince.get();
+        if (since <= 0 || since >= cutoff) return;
+        boolean replace = addSender();
+        if (!s.sendingSince.compareAndSet(since, replace ? STALLED_REPLACED : STALLED)) {
+            // the send finished meanwhile
+            if (replace) removeSender();
+            return;
+        }
+        log.debug("Dropping feed subscriber stalled for {} ms", System.currentTimeMillis() - since);
+        meterRegistry.counter("civicpulse.feed.dropped", "reason", "stalled").increment();
+        remove(s);
+    }
+
+    private synchronized boolean addSender() {
+        if (!(executor instanceof ThreadPoolExecutor pool) || pool.getCorePoolSize() >= maxSenders) return false;
+        int size = pool.getCorePoolSize() + 1;
+        pool.setMaximumPoolSize(size);
+        // also starts a thread for work already queued behind the stalled send
+        pool.setCorePoolSize(size);
+        return true;
+    }
+
+    private synchronized void removeSender() {
+        if (!(executor instanceof ThreadPoolExecutor pool)) return;
+        int size = pool.getCorePoolSize() - 1;
+        pool.setCorePoolSize(size);
+        pool.setMaximumPoolSize(size);
+    }
+
+    public int subscriberCount() {
+        return subscribers.get();
+    }
+
+    private void offer(Subscriber s, Object item) {
+        if (!s.open.get()) return;
+        if (s.queue.offer(item)) {
+            schedule(s);
+            return;
+        }
+        meterRegistry.counter("civicpulse.feed.dropped", "reason", "overflow").increment();
+        remove(s);
+        s.emitter.complete();
+    }
+
+    private void schedule(Subscriber s) {
+        if (!s.scheduled.compareAndSet(false, true)) return;
+        try {
+            executor.execute(() -> drain(s));
+        } catch (RejectedExecutionException ex) {
+            s.scheduled.set(false);
+        }
+    }
+
+    private void drain(Subscriber s) {
+        long stalled = 0;
+        try {
+            Object item;
+            while (s.open.get() && (item = s.queue.poll()) != null) {
+                long started = System.currentTimeMillis();
+                s.sendingSince.set(started);
+                try {
+                    s.emitter.send(toSse(item));
+                } finally {
+                    if (!s.sendingSince.compareAndSet(started, 0)) stalled = s.sendingSince.getAndSet(0);
+                }
+                if (stalled != 0) break;
+            }
+        } catch (Exception ex) {
+            // IOException once the client has gone, IllegalStateException once the emitter completed
+            log.debug("Dropping feed subscriber: {}", ex.toString());
+            remove(s);
+        } finally {
+            s.scheduled.set(false);
+        }
+        if (stalled != 0) {
+            // already dropped by the watchdog; hand back the stand-in and close the stream
+            if (stalled == STALLED_REPLACED) removeSender();
+            s.emitter.complete();
+            return;
+        }
+        if (s.open.get() && !s.queue.isEmpty()) schedule(s);
+    }
+
+    private void remove(Subscriber s) {
+        if (!s.open.compareAndSet(true, false)) return;
+        if (s.userId != null) {
+            byUser.computeIfPresent(s.userId, (k, set) -> {
+                set.remove(s);
+                return set.isEmpty() ? null : set;
+            });
+        } else {
+            admins.remove(s);
+        }
+        subscribers.decrementAndGet();
+    }
+
+    private static SseEmitter.SseEventBuilder toSse(Object item) {
+        if (item == HEARTBEAT) return SseEmitter.event().comment("heartbeat");
+        if (item == RESYNC) return SseEmitter.event().name("resync").data("{}", MediaType.APPLICATION_JSON);
+        ReportDtos.FeedEvent e = ((Entry) item).event();
+        return SseEmitter.event().id(String.valueOf(e.id)).name("report").data(e, MediaType.APPLICATION_JSON);
+    }
+
+    private static ReportDtos.FeedEvent toFeedEvent(long id, ReportChangedEvent event) {
+        ReportDtos.FeedEvent e = new ReportDtos.FeedEvent();
+        e.id = id;
+        e.type = event.type().name();
+        e.reportId = event.reportId();
+        e.previousStatus = event.previousStatus();
+        e.status = event.status();
+        e.category = event.category();
+        e.previousDepartment = event.previousDepartment();
+        e.department = event.assignedDepartment();
+        e.updatedAt = event.updatedAt();
+        return e;
+    }
+}
@@ -1,16 +1,28 @@
 package com.civicpulse.service;
 
+import com.civicpulse.dto.ReportDtos;
+import com.civicpulse.dto.ReportMapper;
 import com.civicpulse.entity.*;
+import com.civicpulse.exception.DuplicateReportException;
 import com.civicpulse.repository.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class ReportService {
@@ -19,12 +31,71 @@ public class ReportService {
     @Autowired private UserRepository userRepository;
     @Autowired private ReportImageRepository reportImageRepository;
     @Autowired private ReportStatusHistoryRepository historyRepository;
-    @Autowired private GoogleDriveService googleDriveService;
+    @Autowired private ImageUploadPipeline imageUploadPipeline;
+    @Autowired private ApplicationEventPublisher eventPublisher;
+    @Autowired private DuplicateDetector duplicateDetector;
+    @Autowired private MeterRegistry meterRegistry;
+    @Autowired private ReportDetailCache reportDetailCache;
+    @Autowired private UploadSessionService uploadSessionService;
+
+    // link: store the report pointing at its parent; reject: refuse it; off: skip the check
+    @Value("${reports.dedup.mode:link}")
+    private String dedupMode = "link";
+
+    @Value("${reports.page.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${reports.page.max-size:100}")
+    private int maxPageSize;
+
+    @Value("${reports.bulk.max-size:1000}")
+    private int bulkMaxSize = 1000;
 
     @Transactional
     public Report createReport(Long userId, String title, String description,
                                String category, Double latitude, Double longitude,
                                MultipartFile[] images) throws Exception {
+        return createReport(userId, title, description, category, latitude, longitude, images, List.of(), null);
+    }
+
+    /**
+     * Creates a report with multipart images and/or the files of complete upload sessions of
+     * {@code uploadOwner}. The sessions are taken even if the transaction later rolls back.
+     */
+    @Transactional
+    public Report createReport(Long userId, String title, String description,
+                               String category, Double latitude, Double longitude,
+                               MultipartFile[] images, List<String> uploadIds, String uploadOwner) throws Exception {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            Report report = doCreateReport(userId, title, description, category, latitude, longitude, images,
+                    uploadIds, uploadOwner);
+            outcome = report.getDuplicateOf() != null ? "linked_duplicate" : "success";
+            return report;
+        } catch (DuplicateReportException ex) {
+            outcome = "duplicate";
+            throw ex;
+        } finally {
+            sample.stop(meterRegistry.timer("civicpulse.reports.create",
+                    "category", category == null ? "none" : category, "outcome", outcome));
+        }
+    }
+
+    private Report doCreateReport(Long userId, String title, String description,
+                                  String category, Double latitude, Double longitude,
+                                  MultipartFile[] images, List<String> uploadIds, String uploadOwner)
+            throws Exception {
+        // checked first so a rejected duplicate costs no staging, insert or upload
+        DuplicateDetector.Match duplicate = "off".equals(dedupMode) ? null
+                : duplicateDetector.findDuplicate(title, description, category, latitude, longitude);
+        if (duplicate != null && "reject".equals(dedupMode)) {
+            throw new DuplicateReportException(duplicate.reportId());
+        }
+        // unknown or incomplete uploads fail the request before anything is written
+        List<UploadSessionService.Session> uploads = uploadIds == null || uploadIds.isEmpty() ? List.of()
+                : uploadSessionService.take(uploadIds, uploadOwner);
+
         User user = userRepository.findById(userId).orElseThrow();
         Report report = new Report();
         report.setUser(user);
@@ -34,30 +105,51 @@ public class ReportService {
         report.setLatitude(latitude);
         report.setLongitude(longitude);
         report.setStatus("NEW");
+        report.setDuplicateOf(duplicate != null ? duplicate.reportId() : null);
         report.setCreatedAt(LocalDateTime.now());
         report.setUpdatedAt(LocalDateTime.now());
 
         report = reportRepository.save(report);
 
-        if (images != null) {
+        if (images != null || !uploads.isEmpty()) {
+            // only stage locally here; the Drive upload happens on the pipeline after commit
+            List<ReportImage> staged = new ArrayList<>();
             List<ReportImage> saved = new ArrayList<>();
-            for (MultipartFile img : images) {
-                GoogleDriveService.DriveFileInfo info = googleDriveService.uploadFile(img);
-                ReportImage ri = new ReportImage();
-                ri.setReport(report);
-                ri.setGdriveFileId(info.fileId());
-                ri.setGdriveLink(info.webViewLink());
-                reportImageRepository.save(ri);
-                saved.add(ri);
+            try {
+                if (images != null) {
+                    for (MultipartFile img : images) staged.add(imageUploadPipeline.stage(report, img));
+                }
+                for (UploadSessionService.Session upload : uploads) {
+                    staged.add(imageUploadPipeline.stage(report, upload));
+                }
+                for (ReportImage ri : staged) saved.add(reportImageRepository.save(ri));
+            } catch (Exception ex) {
+                // every staged file, including those whose row was never written
+                imageUploadPipeline.discard(staged);
+                throw ex;
             }
             report.setImages(saved);
+            imageUploadPipeline.submitAfterCommit(saved);
         }
 
+        eventPublisher.publishEvent(ReportChangedEvent.of(ReportChangedEvent.Type.CREATED, report, null));
         return report;
     }
 
     @Transactional
     public void updateReportStatus(Long reportId, String newStatus, String changedBy, String note) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            doUpdateReportStatus(reportId, newStatus, changedBy, note);
+            outcome = "success";
+        } finally {
+            sample.stop(meterRegistry.timer("civicpulse.reports.status.update",
+                    "status", newStatus == null ? "none" : newStatus, "outcome", outcome));
+        }
+    }
+
+    private void doUpdateReportStatus(Long reportId, String newStatus, String changedBy, String note) {
         Report report = reportRepository.findById(reportId)
                 .orElseThrow(() -> new EntityNotFoundException("Report not found"));
         String prev = report.getStatus();
@@ -72,16 +164,31 @@ public class ReportService {
         hist.setChangedBy(changedBy);
         hist.setNote(note);
         historyRepository.save(hist);
+
+        eventPublisher.publishEvent(ReportChangedEvent.of(ReportChangedEvent.Type.STATUS_CHANGED, report, prev));
     }
 
     @Transactional
     public void assignReport(Long reportId, String department, Long assignedToUserId) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            doAssignReport(reportId, department, assignedToUserId);
+            outcome = "success";
+        } finally {
+            sample.stop(meterRegistry.timer("civicpulse.reports.assign", "outcome", outcome));
+        }
+    }
+
+    private void doAssignReport(Long reportId, String department, Long assignedToUserId) {
         Report report = reportRepository.findById(reportId).orElseThrow();
+        String prevDepartment = report.getAssignedDepartment();
         report.setAssignedDepartment(department);
         if (assignedToUserId != null) {
             User assignee = userRepository.findById(assignedToUserId).orElseThrow();
             report.setAssignedTo(assignee);
         }
+        report.setUpdatedAt(LocalDateTime.now());
         reportRepository.save(report);
 
         ReportStatusHistory hist = new ReportStatusHistory();
@@ -91,18 +198,189 @@ public class ReportService {
         hist.setChangedBy("system");
         hist.setNote("Assigned to " + department + (assignedToUserId != null ? " user " + assignedToUserId : ""));
         historyRepository.save(hist);
+
+        eventPublisher.publishEvent(ReportChangedEvent.of(ReportChangedEvent.Type.ASSIGNED, report, report.getStatus(),
+                prevDepartment));
     }
 
-    public List<Report> getReports(String status, String category) {
-        return reportRepository.findByStatusAndCategory(status, category);
+    /**
+     * Sets the status of many reports in one transaction: one locking SELECT, one UPDATE and
+     * batched history inserts. Ids that do not exist are reported per item and do not fail the rest.
+     */
+    @Transactional
+    public ReportDtos.BulkResponse bulkUpdateStatus(List<Long> reportIds, String newStatus, String changedBy,
+                                                    String note) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            ReportDtos.BulkResponse resp = doBulkUpdateStatus(reportIds, newStatus, changedBy, note);
+            outcome = "success";
+            return resp;
+        } finally {
+            sample.stop(meterRegistry.timer("civicpulse.reports.bulk", "operation", "status", "outcome", outcome));
+        }
     }
 
-    public Report getReport(Long reportId) {
-        return reportRepository.findById(reportId).orElseThrow();
+    private ReportDtos.BulkResponse doBulkUpdateStatus(List<Long> reportIds, String newStatus, String changedBy,
+                                                       String note) {
+        if (newStatus == null || newStatus.isBlank()) throw new IllegalArgumentException("status is required");
+        Map<Long, ReportDtos.BulkItemResult> results = bulkResults(reportIds);
+        List<Report> reports = reportRepository.findAllForUpdate(results.keySet());
+        if (reports.isEmpty()) return bulkResponse(results, 0);
+
+        LocalDateTime now = LocalDateTime.now();
+        reportRepository.updateStatus(reports.stream().map(Report::getId).toList(), newStatus, now);
+
+        List<ReportStatusHistory> history = new ArrayList<>(reports.size());
+        List<ReportChangedEvent> events = new ArrayList<>(reports.size());
+        for (Report report : reports) {
+            String prev = report.getStatus();
+            history.add(history(report, prev, newStatus, changedBy, note));
+            // detached by the bulk UPDATE; brought in line only to describe the change
+            report.setStatus(newStatus);
+            report.setUpdatedAt(now);
+            events.add(ReportChangedEvent.of(ReportChangedEvent.Type.STATUS_CHANGED, report, prev));
+            succeeded(results.get(report.getId()), prev);
+        }
+        historyRepository.saveAll(history);
+        events.forEach(eventPublisher::publishEvent);
+        return bulkResponse(results, reports.size());
     }
 
-    public List<Report> getUserReports(Long userId) {
-        User user = userRepository.findById(userId).orElseThrow();
-        return reportRepository.findByUser(user);
+    /**
+     * Assigns many reports to a department (and optionally a user) in one transaction, with the
+     * same per-item results as {@link #bulkUpdateStatus}.
+     */
+    @Transactional
+    public ReportDtos.BulkResponse bulkAssign(List<Long> reportIds, String department, Long assignedToUserId,
+                                              String changedBy) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            ReportDtos.BulkResponse resp = doBulkAssign(reportIds, department, assignedToUserId, changedBy);
+            outcome = "success";
+            return resp;
+        } finally {
+            sample.stop(meterRegistry.timer("civicpulse.reports.bulk", "operation", "assign", "outcome", outcome));
+        }
+    }
+
+    private ReportDtos.BulkResponse doBulkAssign(List<Long> reportIds, String department, Long assignedToUserId,
+                                                 String changedBy) {
+        Map<Long, ReportDtos.BulkItemResult> results = bulkResults(reportIds);
+        User assignee = assignedToUserId != null ? userRepository.findById(assignedToUserId).orElseThrow() : null;
+        List<Report> reports = reportRepository.findAllForUpdate(results.keySet());
+        if (reports.isEmpty()) return bulkResponse(results, 0);
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = reports.stream().map(Report::getId).toList();
+        if (assignee != null) {
+            reportRepository.updateAssignment(ids, department, assignee, now);
+        } else {
+            reportRepository.updateDepartment(ids, department, now);
+        }
+
+        String note = "Assigned to " + department + (assignedToUserId != null ? " user " + assignedToUserId : "");
+        List<ReportStatusHistory> history = new ArrayList<>(reports.size());
+        List<ReportChangedEvent> events = new ArrayList<>(reports.size());
+        for (Report report : reports) {
+            String prevDepartment = report.getAssignedDepartment();
+            history.add(history(report, report.getStatus(), report.getStatus(), changedBy, note));
+            report.setAssignedDepartment(department);
+            if (assignee != null) report.setAssignedTo(assignee);
+            report.setUpdatedAt(now);
+            events.add(ReportChangedEvent.of(ReportChangedEvent.Type.ASSIGNED, report, report.getStatus(),
+                    prevDepartment));
+            succeeded(results.get(report.getId()), report.getStatus());
+        }
+        historyRepository.saveAll(history);
+        events.forEach(eventPublisher::publishEvent);
+        return bulkResponse(results, reports.size());
+    }
+
+    // one result per distinct id, failed until the report is found
+    private Map<Long, ReportDtos.BulkItemResult> bulkResults(List<Long> reportIds) {
+        if (reportIds == null || reportIds.isEmpty()) throw new IllegalArgumentException("ids are required");
+        Set<Long> distinct = new LinkedHashSet<>(reportIds);
+        distinct.remove(null);
+        if (distinct.size() > bulkMaxSize) {
+            throw new IllegalArgumentException("At most " + bulkMaxSize + " reports per bulk request");
+        }
+        Map<Long, ReportDtos.BulkItemResult> results = new LinkedHashMap<>();
+        for (Long id : distinct) {
+            ReportDtos.BulkItemResult r = new ReportDtos.BulkItemResult();
+            r.id = id;
+            r.error = "Report not found";
+            results.put(id, r);
+        }
+        return results;
+    }
+
+    private static void succeeded(ReportDtos.BulkItemResult result, String previousStatus) {
+        result.success = true;
+        result.previousStatus = previousStatus;
+        result.error = null;
+    }
+
+    private static ReportDtos.BulkResponse bulkResponse(Map<Long, ReportDtos.BulkItemResult> results, int updated) {
+        ReportDtos.BulkResponse resp = new ReportDtos.BulkResponse();
+        resp.updated = updated;
+        resp.results = new ArrayList<>(results.values());
+        return resp;
+    }
+
+    private static ReportStatusHistory history(Report report, String prev, String next, String changedBy, String note) {
+        ReportStatusHistory hist = new ReportStatusHistory();
+        hist.setReport(report);
+        hist.setPreviousStatus(prev);
+        hist.setNewStatus(next);
+        hist.setChangedBy(changedBy);
+        hist.setNote(note);
+        return hist;
+    }
+
+    /**
+     * One page of reports, newest first. {@code limit} is clamped to {@code reports.page.max-size};
+     * {@code cursor} is the {@code nextCursor} of the previous page, or null for the first page.
+     */
+    @Transactional(readOnly = true)
+    public ReportDtos.ReportPage getReports(String status, String category, String cursor, Integer limit) {
+        int size = limit == null || limit <= 0 ? defaultPageSize : Math.min(limit, maxPageSize);
+        // fetch one extra row to learn whether another page exists
+        PageRequest window = PageRequest.of(0, size + 1);
+        List<ReportDtos.ReportSummary> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = reportRepository.findFirstPage(status, category, window);
+        } else {
+            ReportCursor after = ReportCursor.decode(cursor);
+            rows = reportRepository.findPageAfter(status, category, after.createdAt(), after.id(), window);
+        }
+        ReportDtos.ReportPage page = new ReportDtos.ReportPage();
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            ReportDtos.ReportSummary last = rows.get(size - 1);
+            page.nextCursor = new ReportCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        page.items = rows;
+        return page;
+    }
+
+    /** Detail view for the report page; cache hits need no database access at all. */
+    public ReportDetailCache.View getReportDetail(Long reportId) {
+        return reportDetailCache.get(reportId, id -> ReportMapper.detail(reportRepository.findDetailById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Report not found"))));
+    }
+
+    public List<ReportImage> getReportImages(Long reportId) {
+        return reportImageRepository.findByReportIdOrderByIdAsc(reportId);
+    }
+
+    /** The user's reports with their images, newest first, read in a single query. */
+    @Transactional(readOnly = true)
+    public List<ReportDtos.ReportDetail> getUserReports(Long userId) {
+        List<Report> reports = reportRepository.findByUserIdOrderByCreatedAtDescIdDesc(userId);
+        List<ReportDtos.ReportDetail> out = new ArrayList<>(reports.size());
+        for (Report report : reports) out.add(ReportMapper.detail(report));
+        return out;
     }
 }
@@ -0,0 +1,187 @@
+package com.civicpulse.service;
+
+import com.civicpulse.dto.ReportDtos;
+import com.civicpulse.repository.ReportRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Dashboard counters: number of reports per (status, category, assigned department, filing day),
+ * kept in memory as {@link LongAdder}s and moved between cells from {@link ReportChangedEvent}s.
+ * Built from one GROUP BY at startup and reconciled against the table every
+ * {@code stats.reconcile.interval.ms}, which also corrects any drift from events lost on a crash.
+ * <p>
+ * Events that commit while the GROUP BY runs may or may not be part of its snapshot, and their
+ * deltas cannot be applied twice. So for every report they touched, the rebuild reads the cell
+ * the report has in that same snapshot and moves it from there to the cell of its latest event.
+ */
+@Service
+public class ReportStats {
+    private static final Logger log = LoggerFactory.getLogger(ReportStats.class);
+    public static final Set<String> DIMENSIONS = Set.of("status", "category", "department", "day");
+    private static final int RACED_CHUNK = 1000;
+
+    @Autowired private ReportRepository reportRepository;
+
+    record Cell(String status, String category, String department, LocalDate day) {
+    }
+
+    // updates share the read lock (LongAdder handles contention); only the swap takes the write lock
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile Map<Cell, LongAdder> cells = new ConcurrentHashMap<>();
+
+    // events that commit while a reconciliation is counting are reconciled with its snapshot
+    private volatile boolean rebuilding;
+    private final Queue<ReportChangedEvent> pending = new ConcurrentLinkedQueue<>();
+
+    // both queries must read one snapshot, so the second sees exactly what the first counted
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public void rebuild() {
+        rebuilding = true;
+        Map<Cell, LongAdder> fresh = new ConcurrentHashMap<>();
+        for (ReportRepository.StatsRow row : reportRepository.countByStatusCategoryDepartmentDay()) {
+            add(fresh, new Cell(row.getStatus(), row.getCategory(), row.getDepartment(), row.getDay()), row.getCount());
+        }
+
+        long before;
+        Map<Long, Cell> raced = new LinkedHashMap<>();
+        lock.writeLock().lock();
+        try {
+            before = total(cells);
+            cells = fresh;
+            rebuilding = false;
+            ReportChangedEvent e;
+            while ((e = pending.poll()) != null) raced.put(e.reportId(), cellAfter(e));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // later events go straight to the fresh map; the adders make the order irrelevant
+        List<Long> ids = new ArrayList<>(raced.keySet());
+        for (int i = 0; i < ids.size(); i += RACED_CHUNK) {
+            List<Long> chunk = ids.subList(i, Math.min(ids.size(), i + RACED_CHUNK));
+            for (ReportRepository.StatsCell c : reportRepository.findStatsCells(chunk)) {
+                add(fresh, new Cell(c.getStatus(), c.getCategory(), c.getDepartment(), c.getDay()), -1);
+            }
+        }
+        raced.values().forEach(c -> add(fresh, c, 1));
+        long after = total(fresh);
+        if (before != after) log.info("Report stats reconciled: {} -> {} reports in {} cells", before, after, fresh.size());
+    }
+
+    @Scheduled(initialDelayString = "${stats.reconcile.interval.ms:900000}",
+            fixedDelayString = "${stats.reconcile.interval.ms:900000}")
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public void reconcile() {
+        rebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReportChanged(ReportChangedEvent event) {
+        lock.readLock().lock();
+        try {
+            if (rebuilding) pending.add(event);
+            apply(cells, event);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static Cell cellAfter(ReportChangedEvent e) {
+        LocalDate day = e.createdAt() != null ? e.createdAt().toLocalDate() : null;
+        return new Cell(e.status(), e.category(), e.assignedDepartment(), day);
+    }
+
+    private static void apply(Map<Cell, LongAdder> target, ReportChangedEvent e) {
+        Cell now = cellAfter(e);
+        LocalDate day = now.day();
+        switch (e.type()) {
+            case CREATED -> add(target, now, 1);
+            case STATUS_CHANGED, ASSIGNED -> {
+                Cell prev = new Cell(e.previousStatus(), e.category(), e.previousDepartment(), day);
+                if (!prev.equals(now)) {
+                    add(target, prev, -1);
+                    add(target, now, 1);
+                }
+            }
+        }
+    }
+
+    private static void add(Map<Cell, LongAdder> target, Cell cell, long delta) {
+        target.computeIfAbsent(cell, c -> new LongAdder()).add(delta);
+    }
+
+    /**
+     * Sums the counters matching the filters (null matches anything; {@code to} is inclusive),
+     * grouped by the requested dimensions. Buckets are ordered by descending count.
+     */
+    public ReportDtos.StatsResponse query(Set<String> groupBy, String status, String category, String department,
+                                          LocalDate from, LocalDate to) {
+        boolean byStatus = groupBy.contains("status");
+        boolean byCategory = groupBy.contains("category");
+        boolean byDepartment = groupBy.contains("department");
+        boolean byDay = groupBy.contains("day");
+
+        Map<Cell, long[]> grouped = new HashMap<>();
+        long total = 0;
+        for (Map.Entry<Cell, LongAdder> entry : cells.entrySet()) {
+            Cell c = entry.getKey();
+            if (status != null && !status.equals(c.status())) continue;
+            if (category != null && !category.equals(c.category())) continue;
+            if (department != null && !department.equals(c.department())) continue;
+            if (from != null && (c.day() == null || c.day().isBefore(from))) continue;
+            if (to != null && (c.day() == null || c.day().isAfter(to))) continue;
+            long n = entry.getValue().sum();
+            if (n == 0) continue;
+            total += n;
+            Cell key = new Cell(byStatus ? c.status() : null, byCategory ? c.category() : null,
+                    byDepartment ? c.department() : null, byDay ? c.day() : null);
+            grouped.computeIfAbsent(key, k -> new long[1])[0] += n;
+        }
+
+        List<ReportDtos.StatsBucket> buckets = new ArrayList<>(grouped.size());
+        grouped.forEach((c, n) -> {
+            ReportDtos.StatsBucket b = new ReportDtos.StatsBucket();
+            b.status = c.status();
+            b.category = c.category();
+            b.department = c.department();
+            b.day = c.day();
+            b.count = n[0];
+            buckets.add(b);
+        });
+        buckets.sort(Comparator.comparingLong((ReportDtos.StatsBucket b) -> -b.count)
+                .thenComparing(b -> b.day, Comparator.nullsFirst(Comparator.naturalOrder())));
+        ReportDtos.StatsResponse resp = new ReportDtos.StatsResponse();
+        resp.total = total;
+        resp.buckets = buckets;
+        return resp;
+    }
+
+    private static long total(Map<Cell, LongAdder> map) {
+        long n = 0;
+        for (LongAdder a : map.values()) n += a.sum();
+        return n;
+    }
+}
@@ -0,0 +1,325 @@
+package com.civicpulse.service;
+
+import com.civicpulse.dto.ReportDtos;
+import com.civicpulse.repository.ReportRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over report titles, descriptions and categories, ranked with BM25.
+ * Title and category terms count {@value #FIELD_BOOST} times towards term frequency. Postings are
+ * primitive arrays keyed by term; documents are slots in parallel arrays holding the filterable
+ * fields. Built from the reports table at startup and kept current from {@link ReportChangedEvent}s.
+ * Report text never changes after creation, so later events only update status, category and location.
+ */
+@Service
+public class SearchIndex {
+    private static final Logger log = LoggerFactory.getLogger(SearchIndex.class);
+    private static final int REBUILD_BATCH = 5000;
+    static final int FIELD_BOOST = 2;
+    private static final int MAX_QUERY_TERMS = 16;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final Set<String> STOPWORDS = Set.of("a", "an", "and", "are", "at", "be", "by", "for", "from",
+            "has", "in", "is", "it", "near", "of", "on", "or", "the", "there", "this", "to", "was", "with");
+
+    @Autowired private ReportRepository reportRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Docs docs = new Docs();
+
+    // events that arrive while a rebuild is reading the table are replayed onto the new index
+    private volatile boolean rebuilding;
+    private final Queue<ReportChangedEvent> pending = new ConcurrentLinkedQueue<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        rebuilding = true;
+        Docs fresh = new Docs();
+        long lastId = 0;
+        List<ReportRepository.TextRow> rows;
+        do {
+            rows = reportRepository.findTextRows(lastId, PageRequest.of(0, REBUILD_BATCH));
+            for (ReportRepository.TextRow row : rows) {
+                fresh.add(row.getId(), row.getTitle(), row.getDescription(), row.getCategory(), row.getStatus(),
+                        row.getLatitude(), row.getLongitude());
+                lastId = row.getId();
+            }
+        } while (rows.size() == REBUILD_BATCH);
+
+        lock.writeLock().lock();
+        try {
+            docs = fresh;
+            rebuilding = false;
+            ReportChangedEvent e;
+            while ((e = pending.poll()) != null) apply(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Search index built with {} reports and {} terms", fresh.count, fresh.postings.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReportChanged(ReportChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (rebuilding) pending.add(event);
+            apply(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void apply(ReportChangedEvent e) {
+        docs.add(e.reportId(), e.title(), e.description(), e.category(), e.status(), e.latitude(), e.longitude());
+    }
+
+    /**
+     * Reports matching any query term, best BM25 score first (newer reports first on ties).
+     * Status and category must match exactly when given. When {@code lat}, {@code lon} and
+     * {@code radiusMeters} are given, hits are also limited to that circle.
+     */
+    public ReportDtos.SearchPage search(String query, String status, String category,
+                                        Double lat, Double lon, Double radiusMeters, int page, int size) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(tokens(query)));
+        if (terms.size() > MAX_QUERY_TERMS) terms = terms.subList(0, MAX_QUERY_TERMS);
+        boolean geo = lat != null && lon != null && radiusMeters != null;
+
+        lock.readLock().lock();
+        try {
+            Docs d = docs;
+            int statusCode = d.lookup(status);
+            int categoryCode = d.lookup(category);
+            if (terms.isEmpty() || d.count == 0 || statusCode == Docs.UNKNOWN || categoryCode == Docs.UNKNOWN) {
+                return page(List.of(), 0, page, size);
+            }
+
+            double avgLength = (double) d.totalLength / d.count;
+            float[] scores = new float[d.count];
+            // 0 = not yet checked, 1 = passes the filters, 2 = filtered out
+            byte[] allowed = new byte[d.count];
+            int[] touched = new int[16];
+            int hits = 0;
+            for (String term : terms) {
+                Postings p = d.postings.get(term);
+                if (p == null) continue;
+                double idf = Math.log(1 + (d.count - p.size + 0.5) / (p.size + 0.5));
+                for (int i = 0; i < p.size; i++) {
+                    int slot = p.slots[i];
+                    if (allowed[slot] == 0) {
+                        boolean ok = d.matches(slot, statusCode, categoryCode)
+                                && (!geo || (!Double.isNaN(d.lats[slot])
+                                && GeoIndex.distanceMeters(lat, lon, d.lats[slot], d.lons[slot]) <= radiusMeters));
+                        allowed[slot] = (byte) (ok ? 1 : 2);
+                    }
+                    if (allowed[slot] != 1) continue;
+                    int tf = p.tfs[i];
+                    double norm = K1 * (1 - B + B * d.lengths[slot] / avgLength);
+                    if (scores[slot] == 0) {
+                        if (hits == touched.length) touched = Arrays.copyOf(touched, hits * 2);
+                        touched[hits++] = slot;
+                    }
+                    scores[slot] += (float) (idf * tf * (K1 + 1) / (tf + norm));
+                }
+            }
+
+            Integer[] order = new Integer[hits];
+            for (int i = 0; i < hits; i++) order[i] = touched[i];
+            Arrays.sort(order, (a, b) -> {
+                int c = Float.compare(scores[b], scores[a]);
+                return c != 0 ? c : Long.compare(d.ids[b], d.ids[a]);
+            });
+            int from = (int) Math.min((long) page * size, hits);
+            int to = Math.min(from + size, hits);
+            List<ReportDtos.SearchHit> items = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) items.add(d.toDto(order[i], scores[order[i]]));
+            return page(items, hits, page, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docs.count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static ReportDtos.SearchPage page(List<ReportDtos.SearchHit> items, long total, int page, int size) {
+        ReportDtos.SearchPage resp = new ReportDtos.SearchPage();
+        resp.total = total;
+        resp.page = page;
+        resp.size = size;
+        resp.items = items;
+        return resp;
+    }
+
+    /**
+     * Lower-cased letter/digit runs with HTML entities (stored text is escaped) and stopwords
+     * removed, and plurals folded to the singular ("potholes" and "pothole" match).
+     */
+    static List<String> tokens(String text) {
+        if (text == null || text.isEmpty()) return List.of();
+        String s = text.toLowerCase(Locale.ROOT).replaceAll("&[a-z#0-9]+;", " ");
+        List<String> out = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= s.length(); i++) {
+            boolean word = i < s.length() && Character.isLetterOrDigit(s.charAt(i));
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                String t = s.substring(start, i);
+                start = -1;
+                if (t.length() < 2 || STOPWORDS.contains(t)) continue;
+                out.add(singular(t));
+            }
+        }
+        return out;
+    }
+
+    private static String singular(String t) {
+        int n = t.length();
+        if (n > 4 && t.endsWith("ies")) return t.substring(0, n - 3) + "y";
+        if (n > 3 && t.endsWith("s") && !t.endsWith("ss") && !t.endsWith("us") && !t.endsWith("is")) {
+            return t.substring(0, n - 1);
+        }
+        return t;
+    }
+
+    /**
+     * Document table and postings. Not thread-safe; guarded by the index lock.
+     */
+    private static final class Docs {
+        static final int ANY = -1;
+        static final int UNKNOWN = -2;
+
+        long[] ids = new long[1024];
+        String[] titles = new String[1024];
+        int[] lengths = new int[1024];
+        int[] statusCodes = new int[1024];
+        int[] categoryCodes = new int[1024];
+        double[] lats = new double[1024];
+        double[] lons = new double[1024];
+        int count;
+        long totalLength;
+
+        final Map<Long, Integer> slotById = new HashMap<>();
+        final Map<String, Postings> postings = new HashMap<>();
+        final Map<String, Integer> codes = new HashMap<>();
+        final List<String> names = new ArrayList<>();
+
+        int code(String value) {
+            if (value == null) return ANY;
+            return codes.computeIfAbsent(value, v -> {
+                names.add(v);
+                return names.size() - 1;
+            });
+        }
+
+        int lookup(String value) {
+            if (value == null) return ANY;
+            Integer c = codes.get(value);
+            return c == null ? UNKNOWN : c;
+        }
+
+        boolean matches(int slot, int statusCode, int categoryCode) {
+            return (statusCode == ANY || statusCodes[slot] == statusCode)
+                    && (categoryCode == ANY || categoryCodes[slot] == categoryCode);
+        }
+
+        void add(Long id, String title, String description, String category, String status, Double lat, Double lon) {
+            if (id == null) return;
+            Integer existing = slotById.get(id);
+            int slot;
+            if (existing != null) {
+                slot = existing;
+            } else {
+                slot = allocate();
+                slotById.put(id, slot);
+                ids[slot] = id;
+                titles[slot] = title;
+                index(slot, title, description, category);
+            }
+            statusCodes[slot] = code(status);
+            categoryCodes[slot] = code(category);
+            lats[slot] = lat != null ? lat : Double.NaN;
+            lons[slot] = lon != null ? lon : Double.NaN;
+        }
+
+        private void index(int slot, String title, String description, String category) {
+            Map<String, Integer> tf = new HashMap<>();
+            for (String t : tokens(title)) tf.merge(t, FIELD_BOOST, Integer::sum);
+            for (String t : tokens(category)) tf.merge(t, FIELD_BOOST, Integer::sum);
+            for (String t : tokens(description)) tf.merge(t, 1, Integer::sum);
+            int length = 0;
+            for (Map.Entry<String, Integer> e : tf.entrySet()) {
+                postings.computeIfAbsent(e.getKey(), k -> new Postings()).add(slot, e.getValue());
+                length += e.getValue();
+            }
+            lengths[slot] = length;
+            totalLength += length;
+        }
+
+        private int allocate() {
+            if (count == ids.length) {
+                int n = ids.length * 2;
+                ids = Arrays.copyOf(ids, n);
+                titles = Arrays.copyOf(titles, n);
+                lengths = Arrays.copyOf(lengths, n);
+                statusCodes = Arrays.copyOf(statusCodes, n);
+                categoryCodes = Arrays.copyOf(categoryCodes, n);
+                lats = Arrays.copyOf(lats, n);
+                lons = Arrays.copyOf(lons, n);
+            }
+            return count++;
+        }
+
+        ReportDtos.SearchHit toDto(int slot, float score) {
+            ReportDtos.SearchHit h = new ReportDtos.SearchHit();
+            h.id = ids[slot];
+            h.title = titles[slot];
+            h.status = statusCodes[slot] >= 0 ? names.get(statusCodes[slot]) : null;
+            h.category = categoryCodes[slot] >= 0 ? names.get(categoryCodes[slot]) : null;
+            h.latitude = Double.isNaN(lats[slot]) ? null : lats[slot];
+            h.longitude = Double.isNaN(lons[slot]) ? null : lons[slot];
+            h.score = score;
+            return h;
+        }
+    }
+
+    private static final class Postings {
+        int[] slots = new int[4];
+        int[] tfs = new int[4];
+        int size;
+
+        void add(int slot, int tf) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+                tfs = Arrays.copyOf(tfs, size * 2);
+            }
+            slots[size] = slot;
+            tfs[size++] = tf;
+        }
+    }
+}
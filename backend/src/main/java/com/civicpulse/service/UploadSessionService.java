@@ -0,0 +1,256 @@
+package com.civicpulse.service;
+
+import com.civicpulse.exception.UploadConflictException;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Resumable uploads for report media. A client opens a session with the file's size, sends the
+ * bytes in any number of {@code PUT}s, each starting at an offset it already has confirmation
+ * for, and asks for the confirmed offset after a dropped connection. Chunks are streamed from the
+ * request straight into a {@code .part} file with positional {@link FileChannel} writes, so no
+ * request body is held in memory and a broken chunk still counts up to its last written byte.
+ * A complete session is handed to {@link ImageUploadPipeline} when a report is created with it.
+ * <p>
+ * Sessions live in memory on the node that created them, like the staged files of the pipeline;
+ * they expire after {@code uploads.session.ttl.ms} and a restart drops them.
+ */
+@Service
+public class UploadSessionService {
+    private static final Logger log = LoggerFactory.getLogger(UploadSessionService.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Value("${uploads.session.dir:${java.io.tmpdir}/civicpulse-sessions}")
+    private String sessionDir = System.getProperty("java.io.tmpdir") + "/civicpulse-sessions";
+
+    @Value("${uploads.session.max-size:104857600}")
+    private long maxSize = 100L * 1024 * 1024;
+
+    @Value("${uploads.session.ttl.ms:86400000}")
+    private long ttlMillis = 86_400_000;
+
+    @Value("${uploads.session.max-per-user:20}")
+    private int maxPerUser = 20;
+
+    // only images: everything stored is re-encoded by ImageProcessor, which drops EXIF/GPS
+    @Value("${uploads.session.content-types:image/}")
+    private List<String> contentTypes = List.of("image/");
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    /** Upload state; {@code received} is the length of the prefix that is on disk. */
+    public static final class Session {
+        private final String id;
+        private final String owner;
+        private final String filename;
+        private final String contentType;
+        private final long size;
+        private final Path path;
+        private final LocalDateTime expiresAt;
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile long received;
+
+        Session(String id, String owner, String filename, String contentType, long size, Path path,
+                LocalDateTime expiresAt) {
+            this.id = id;
+            this.owner = owner;
+            this.filename = filename;
+            this.contentType = contentType;
+            this.size = size;
+            this.path = path;
+            this.expiresAt = expiresAt;
+        }
+
+        public String id() { return id; }
+        public String owner() { return owner; }
+        public String filename() { return filename; }
+        public String contentType() { return contentType; }
+        public long size() { return size; }
+        public Path path() { return path; }
+        public LocalDateTime expiresAt() { return expiresAt; }
+        public long received() { return received; }
+        public boolean complete() { return received == size; }
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(Paths.get(sessionDir));
+    }
+
+    public Session create(String owner, String filename, String contentType, long size) throws IOException {
+        if (size <= 0) throw new IllegalArgumentException("Upload size must be positive");
+        if (size > maxSize) throw new IllegalArgumentException("File too large (max " + maxSize / (1024 * 1024) + "MB)");
+        if (contentType == null || contentTypes.stream().noneMatch(contentType::startsWith)) {
+            throw new IllegalArgumentException("Unsupported content type " + contentType);
+        }
+        long open = sessions.values().stream().filter(s -> s.owner().equals(owner)).count();
+        if (open >= maxPerUser) throw new IllegalArgumentException("Too many open uploads (max " + maxPerUser + ")");
+        String id = UUID.randomUUID().toString();
+        Path path = Paths.get(sessionDir).resolve(id + ".part");
+        Files.createFile(path);
+        Session session = new Session(id, owner, filename, contentType, size, path,
+                LocalDateTime.now().plusNanos(ttlMillis * 1_000_000L));
+        sessions.put(id, session);
+        return session;
+    }
+
+    /**
+     * @throws IllegalArgumentException if there is no such session for this owner
+     */
+    public Session get(String id, String owner) {
+        Session s = sessions.get(id);
+        if (s == null || !s.owner().equals(owner) || s.expiresAt().isBefore(LocalDateTime.now())) {
+            throw new IllegalArgumentException("Unknown upload " + id);
+        }
+        return s;
+    }
+
+    /**
+     * Writes {@code body} at {@code offset}. The offset may repeat bytes that were already
+     * received (a resent chunk) but not leave a gap. When the body breaks off, the bytes written
+     * so far still count and the exception is rethrown.
+     *
+     * @return the new confirmed offset
+     * @throws UploadConflictException on a gap or while another chunk of the session is written
+     */
+    public long write(String id, String owner, long offset, InputStream body) throws IOException {
+        Session s = get(id, owner);
+        lock(s);
+        try {
+            if (offset < 0 || offset > s.received) {
+                throw new UploadConflictException("offset_mismatch", "Upload-Offset must be at most " + s.received,
+                        s.received);
+            }
+            long position = offset;
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            try (FileChannel channel = FileChannel.open(s.path, StandardOpenOption.WRITE)) {
+                ReadableByteChannel in = Channels.newChannel(body);
+                while (in.read(buffer) >= 0) {
+                    buffer.flip();
+                    if (position + buffer.remaining() > s.size) {
+                        throw new IllegalArgumentException("Chunk runs past the declared size of " + s.size + " bytes");
+                    }
+                    while (buffer.hasRemaining()) {
+                        position += channel.write(buffer, position);
+                    }
+                    buffer.clear();
+                }
+            } finally {
+                if (position > s.received) s.received = position;
+            }
+            return s.received;
+        } finally {
+            s.lock.unlock();
+        }
+    }
+
+    public void abort(String id, String owner) {
+        Session s = get(id, owner);
+        lock(s);
+        try {
+            if (sessions.remove(id, s)) delete(s.path());
+        } finally {
+            s.lock.unlock();
+        }
+    }
+
+    /**
+     * Removes complete sessions from the table so exactly one report can take their files. The
+     * caller owns the returned files from here on.
+     *
+     * @throws IllegalArgumentException if a session is unknown or incomplete; nothing is taken then
+     */
+    public List<Session> take(List<String> ids, String owner) {
+        List<Session> out = new ArrayList<>();
+        for (String id : new LinkedHashSet<>(ids)) {
+            Session s = get(id, owner);
+            if (!s.complete()) {
+                throw new IllegalArgumentException("Upload " + id + " is incomplete (" + s.received() + " of "
+                        + s.size() + " bytes)");
+            }
+            out.add(s);
+        }
+        // sessions are only removed under their lock, so once all are held they can be taken together
+        List<Session> locked = new ArrayList<>();
+        try {
+            for (Session s : out) {
+                lock(s);
+                locked.add(s);
+            }
+            for (Session s : out) {
+                if (sessions.get(s.id()) != s) throw new IllegalArgumentException("Unknown upload " + s.id());
+            }
+            out.forEach(s -> sessions.remove(s.id()));
+            return out;
+        } finally {
+            locked.forEach(s -> s.lock.unlock());
+        }
+    }
+
+    private static void lock(Session s) {
+        if (!s.lock.tryLock()) {
+            throw new UploadConflictException("upload_busy", "A chunk of upload " + s.id() + " is being written",
+                    s.received());
+        }
+    }
+
+    /**
+     * Drops expired sessions and {@code .part} files that no session owns (left by a restart).
+     */
+    @Scheduled(fixedDelayString = "${uploads.session.sweep.interval.ms:600000}")
+    public void sweep() {
+        LocalDateTime now = LocalDateTime.now();
+        sessions.values().removeIf(s -> {
+            if (!s.expiresAt().isBefore(now) || !s.lock.tryLock()) return false;
+            try {
+                delete(s.path());
+                return true;
+            } finally {
+                s.lock.unlock();
+            }
+        });
+        Set<Path> live = ConcurrentHashMap.newKeySet();
+        sessions.values().forEach(s -> live.add(s.path()));
+        long cutoff = System.currentTimeMillis() - ttlMillis;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get(sessionDir), "*.part")) {
+            for (Path f : files) {
+                if (!live.contains(f) && Files.getLastModifiedTime(f).toMillis() < cutoff) delete(f);
+            }
+        } catch (IOException ex) {
+            log.warn("Could not sweep upload sessions in {}", sessionDir, ex);
+        }
+    }
+
+    private static void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ex) {
+            log.warn("Could not delete upload file {}", path, ex);
+        }
+    }
+}
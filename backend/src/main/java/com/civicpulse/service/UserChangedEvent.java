@@ -0,0 +1,7 @@
+package com.civicpulse.service;
+
+/**
+ * Published when a user's role or active flag changes, so cached principals can be dropped.
+ */
+public record UserChangedEvent(Long userId, String email) {
+}
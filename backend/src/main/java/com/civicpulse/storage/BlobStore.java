@@ -0,0 +1,84 @@
+package com.civicpulse.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Storage backend for report media. Exactly one implementation is active, selected by
+ * {@code storage.backend}; every stored image records the backend name next to its key so
+ * rows written by another backend stay readable after a switch.
+ */
+public interface BlobStore {
+
+    /**
+     * Media types that may be uploaded and are served inline, with the extension their keys get.
+     * Nothing here is rendered as a document by a browser (no HTML, SVG or XML).
+     */
+    Map<String, String> MEDIA_TYPES = Map.of(
+            "image/jpeg", ".jpg", "image/png", ".png", "image/gif", ".gif", "image/webp", ".webp",
+            "video/mp4", ".mp4", "video/webm", ".webm", "video/quicktime", ".mov");
+
+    /**
+     * @return the bare, lower-case media type if it is in {@link #MEDIA_TYPES}, otherwise null
+     */
+    static String mediaType(String contentType) {
+        if (contentType == null) return null;
+        int semi = contentType.indexOf(';');
+        String type = (semi < 0 ? contentType : contentType.substring(0, semi)).trim().toLowerCase(Locale.ROOT);
+        return MEDIA_TYPES.containsKey(type) ? type : null;
+    }
+
+    /** Backend name persisted in {@code report_images.storage_backend}. */
+    String name();
+
+    StoredBlob put(String filename, String contentType, InputStream in) throws IOException;
+
+    /**
+     * Stores several files at once. Results are positional; a failure of one file does not fail
+     * the others. Backends that can parallelize or batch should override this.
+     */
+    default List<PutResult> putAll(List<BlobSource> sources) {
+        List<PutResult> results = new ArrayList<>(sources.size());
+        for (BlobSource src : sources) {
+            try (InputStream in = Files.newInputStream(src.path())) {
+                results.add(PutResult.success(put(src.filename(), src.contentType(), in)));
+            } catch (Exception ex) {
+                results.add(PutResult.failure(ex.getMessage()));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Opens the blob for streaming, or returns null when this backend serves content from its
+     * own URLs (see {@link StoredBlob#url()}) or the key does not exist.
+     */
+    default BlobContent open(String key) throws IOException {
+        return null;
+    }
+
+    void delete(String key) throws IOException;
+
+    record BlobSource(String filename, String contentType, Path path) {
+    }
+
+    record StoredBlob(String key, String url) {
+    }
+
+    record PutResult(StoredBlob blob, String error) {
+        public static PutResult success(StoredBlob blob) { return new PutResult(blob, null); }
+        public static PutResult failure(String error) { return new PutResult(null, error); }
+        public boolean ok() { return blob != null; }
+    }
+
+    /** An open blob; the caller owns the channel and must close it. */
+    record BlobContent(FileChannel channel, Path path, long size, String contentType) {
+    }
+}
@@ -0,0 +1,155 @@
+package com.civicpulse.storage;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Stores blobs on a local or NFS-mounted directory. Writes go to a temp file through a
+ * {@link FileChannel} and are moved into place atomically; reads hand out a {@link FileChannel}
+ * so the file controller can stream with {@code transferTo}/sendfile. A key's extension comes
+ * from the checked content type, never from the client's file name, and only keys with a
+ * {@link BlobStore#MEDIA_TYPES} extension are served as anything but
+ * {@code application/octet-stream}.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.backend", havingValue = "local")
+public class LocalFileSystemBlobStore implements BlobStore {
+
+    @Value("${storage.local.root:./data/blobs}")
+    private String root;
+
+    @Value("${storage.local.public-base-url:/api/v1/files}")
+    private String publicBaseUrl;
+
+    private Path rootPath;
+
+    public LocalFileSystemBlobStore() {
+    }
+
+    public LocalFileSystemBlobStore(String root, String publicBaseUrl) {
+        this.root = root;
+        this.publicBaseUrl = publicBaseUrl;
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        rootPath = Paths.get(root).toAbsolutePath().normalize();
+        Files.createDirectories(rootPath);
+    }
+
+    @Override
+    public String name() {
+        return "local";
+    }
+
+    @Override
+    public StoredBlob put(String filename, String contentType, InputStream in) throws IOException {
+        String key = newKey(contentType);
+        Path target = resolve(key);
+        Path tmp = tempFor(target);
+        try (ReadableByteChannel src = Channels.newChannel(in);
+             FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long pos = 0;
+            long n;
+            while ((n = out.transferFrom(src, pos, 1 << 20)) > 0) {
+                pos += n;
+            }
+        } catch (IOException ex) {
+            Files.deleteIfExists(tmp);
+            throw ex;
+        }
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        return new StoredBlob(key, url(key));
+    }
+
+    /** File-to-file copies stay in the kernel (copy_file_range/sendfile where available). */
+    @Override
+    public List<PutResult> putAll(List<BlobSource> sources) {
+        List<PutResult> results = new ArrayList<>(sources.size());
+        for (BlobSource src : sources) {
+            try {
+                String key = newKey(src.contentType());
+                Path target = resolve(key);
+                Path tmp = tempFor(target);
+                try (FileChannel in = FileChannel.open(src.path(), StandardOpenOption.READ);
+                     FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                    long size = in.size();
+                    long pos = 0;
+                    while (pos < size) {
+                        pos += in.transferTo(pos, size - pos, out);
+                    }
+                } catch (IOException ex) {
+                    Files.deleteIfExists(tmp);
+                    throw ex;
+                }
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+                results.add(PutResult.success(new StoredBlob(key, url(key))));
+            } catch (Exception ex) {
+                results.add(PutResult.failure(ex.getMessage()));
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public BlobContent open(String key) throws IOException {
+        Path path = resolve(key);
+        try {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+            String contentType = MediaTypeFactory.getMediaType(path.getFileName().toString())
+                    .map(t -> BlobStore.mediaType(t.toString()))
+                    .orElse(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+            return new BlobContent(channel, path, channel.size(), contentType);
+        } catch (NoSuchFileException ex) {
+            return null;
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    private String newKey(String contentType) {
+        LocalDate today = LocalDate.now();
+        String type = BlobStore.mediaType(contentType);
+        return String.format("%d/%02d/%02d/%s%s", today.getYear(), today.getMonthValue(), today.getDayOfMonth(),
+                UUID.randomUUID(), type == null ? ".bin" : MEDIA_TYPES.get(type));
+    }
+
+    private Path resolve(String key) {
+        Path path = rootPath.resolve(key).normalize();
+        if (!path.startsWith(rootPath) || path.equals(rootPath))
+            throw new IllegalArgumentException("Invalid blob key");
+        return path;
+    }
+
+    private static Path tempFor(Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        return target.resolveSibling(target.getFileName() + ".part");
+    }
+
+    private String url(String key) {
+        return publicBaseUrl + "/" + key;
+    }
+}
@@ -0,0 +1,5 @@
+-- OTP mail is dropped instead of sent once its code has expired; settled rows are purged after
+-- mail.outbox.retention.ms
+ALTER TABLE email_outbox ADD COLUMN expires_at TIMESTAMP NULL;
+
+CREATE INDEX idx_email_outbox_created ON email_outbox (status, created_at);
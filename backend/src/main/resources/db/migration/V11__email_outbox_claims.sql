@@ -0,0 +1,5 @@
+-- a sender claims rows here (status SENDING, its claim_token) before mailing them, so two nodes
+-- never send the same row; next_attempt_at holds the claim's expiry while it is SENDING
+ALTER TABLE email_outbox ADD COLUMN claim_token VARCHAR(36) NULL;
+
+CREATE INDEX idx_email_outbox_claim ON email_outbox (claim_token);
@@ -0,0 +1,3 @@
+-- a node inserts the key before it runs the request, so a duplicate on another node waits for the
+-- outcome instead of running it again; response_json stays NULL until the request has completed
+ALTER TABLE idempotency_keys MODIFY response_json TEXT NULL;
@@ -0,0 +1,12 @@
+-- existing rows were uploaded synchronously, so they start out as UPLOADED
+ALTER TABLE report_images
+  ADD COLUMN upload_status VARCHAR(20) NOT NULL DEFAULT 'UPLOADED',
+  ADD COLUMN original_filename VARCHAR(255),
+  ADD COLUMN content_type VARCHAR(100),
+  ADD COLUMN size_bytes BIGINT,
+  ADD COLUMN staged_path VARCHAR(500),
+  ADD COLUMN upload_attempts INT DEFAULT 0,
+  ADD COLUMN last_error VARCHAR(500),
+  ADD COLUMN next_attempt_at TIMESTAMP NULL;
+
+CREATE INDEX idx_report_images_pending ON report_images (upload_status, next_attempt_at);
@@ -0,0 +1,15 @@
+-- images are now addressed through a pluggable BlobStore instead of Drive-specific columns
+ALTER TABLE report_images
+  ADD COLUMN storage_backend VARCHAR(20),
+  ADD COLUMN storage_key VARCHAR(500),
+  ADD COLUMN url VARCHAR(1000);
+
+-- every image stored so far lives on Google Drive
+UPDATE report_images
+   SET storage_backend = 'gdrive',
+       storage_key = gdrive_file_id,
+       url = gdrive_link
+ WHERE gdrive_file_id IS NOT NULL;
+
+-- gdrive_file_id / gdrive_link are no longer written; they are kept for one release so a
+-- rollback to the previous build still finds its data, and will be dropped afterwards.
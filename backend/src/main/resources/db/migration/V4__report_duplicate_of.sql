@@ -0,0 +1,2 @@
+ALTER TABLE reports ADD COLUMN duplicate_of BIGINT NULL;
+CREATE INDEX idx_reports_duplicate_of ON reports (duplicate_of);
@@ -0,0 +1,16 @@
+-- mail is written here in the request transaction and delivered by EmailOutboxDispatcher
+CREATE TABLE email_outbox (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  recipient VARCHAR(255) NOT NULL,
+  subject VARCHAR(255) NOT NULL,
+  body_html TEXT NOT NULL,
+  template VARCHAR(50),
+  status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+  attempts INT NOT NULL DEFAULT 0,
+  last_error VARCHAR(500),
+  next_attempt_at TIMESTAMP NULL,
+  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  sent_at TIMESTAMP NULL
+);
+
+CREATE INDEX idx_email_outbox_due ON email_outbox (status, next_attempt_at);
@@ -0,0 +1,9 @@
+-- id blocks for entities whose inserts are JDBC-batched (see ReportStatusHistory)
+CREATE TABLE id_generators (
+  name VARCHAR(64) NOT NULL PRIMARY KEY,
+  next_val BIGINT NOT NULL
+);
+
+-- start well above the rows written with AUTO_INCREMENT
+INSERT INTO id_generators (name, next_val)
+SELECT 'report_status_history', COALESCE(MAX(id), 0) + 100 FROM report_status_history;
@@ -0,0 +1,11 @@
+-- uploads are stored downscaled with a thumbnail next to them; size_bytes is the stored main image
+ALTER TABLE report_images
+  ADD COLUMN thumbnail_storage_key VARCHAR(500),
+  ADD COLUMN thumbnail_url VARCHAR(1000),
+  ADD COLUMN thumbnail_size_bytes BIGINT,
+  ADD COLUMN original_size_bytes BIGINT,
+  ADD COLUMN width INT,
+  ADD COLUMN height INT;
+
+-- earlier images were stored as uploaded
+UPDATE report_images SET original_size_bytes = size_bytes;
@@ -0,0 +1,18 @@
+-- indexes for the access paths in ReportRepository and OtpTokenRepository. InnoDB appends the
+-- primary key to every secondary index, so (x, created_at) also orders ties by id.
+
+-- "my reports": user_id = ? ORDER BY created_at DESC, id DESC. It also serves the user_id foreign
+-- key, so MySQL drops the single-column index it created for that key.
+CREATE INDEX idx_reports_user_created ON reports (user_id, created_at);
+
+-- keyset pages, newest first: unfiltered, by status, by category
+CREATE INDEX idx_reports_created ON reports (created_at);
+CREATE INDEX idx_reports_status_created ON reports (status, created_at);
+CREATE INDEX idx_reports_category_created ON reports (category, created_at);
+
+-- dashboard counters group by every column here, so the rebuild reads only this index
+CREATE INDEX idx_reports_stats ON reports (status, category, assigned_department, created_at);
+
+-- OTP lookup and SELECT ... FOR UPDATE by email; without an index the locking read scans, and
+-- locks, every row in the table
+CREATE INDEX idx_otp_tokens_email ON otp_tokens (email);
@@ -0,0 +1,10 @@
+-- completed POST /api/v1/reports responses by Idempotency-Key, replayed to client retries
+CREATE TABLE idempotency_keys (
+  key_hash CHAR(64) NOT NULL PRIMARY KEY,
+  request_hash CHAR(64) NOT NULL,
+  response_json TEXT NOT NULL,
+  created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  expires_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_idempotency_keys_expires ON idempotency_keys (expires_at);
@@ -0,0 +1,44 @@
+package com.civicpulse.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExpiringCacheTest {
+
+    @Test
+    public void testEntriesExpireAfterTtl() {
+        AtomicLong now = new AtomicLong(1_000);
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, 100, now::get);
+        cache.put("a", "1");
+        cache.put("b", "2", 20);
+        assertEquals("1", cache.get("a"));
+        assertEquals("2", cache.get("b"));
+
+        now.addAndGet(50);
+        assertEquals("1", cache.get("a"));
+        assertNull(cache.get("b"));
+
+        now.addAndGet(50);
+        assertNull(cache.get("a"));
+        assertEquals("3", cache.get("a", k -> "3"));
+        cache.invalidate("a");
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    public void testSizeIsBounded() {
+        AtomicLong now = new AtomicLong();
+        ExpiringCache<Integer, Integer> cache = new ExpiringCache<>(10, 1_000, now::get);
+        for (int i = 0; i < 25; i++) {
+            now.incrementAndGet();
+            cache.put(i, i);
+        }
+        assertTrue(cache.size() <= 10);
+        // the newest entries survive, the ones closest to expiry go first
+        assertEquals(24, cache.get(24));
+        assertNull(cache.get(0));
+    }
+}
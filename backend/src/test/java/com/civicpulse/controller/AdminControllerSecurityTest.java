@@ -0,0 +1,106 @@
+package com.civicpulse.controller;
+
+import com.civicpulse.config.SecurityConfig;
+import com.civicpulse.dto.ReportDtos;
+import com.civicpulse.repository.UserRepository;
+import com.civicpulse.security.AuthenticationCache;
+import com.civicpulse.security.JwtProvider;
+import com.civicpulse.service.AuthService;
+import com.civicpulse.service.ReportExportService;
+import com.civicpulse.service.ReportFeed;
+import com.civicpulse.service.ReportService;
+import com.civicpulse.service.ReportStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs admin requests through the real security filter chain. Tokens are resolved by a mocked
+ * {@link AuthenticationCache}: "user-token" is a ROLE_USER principal, "admin-token" a ROLE_ADMIN one.
+ */
+@WebMvcTest(AdminController.class)
+@Import({SecurityConfig.class, AdminControllerSecurityTest.Beans.class})
+public class AdminControllerSecurityTest {
+
+    @TestConfiguration
+    static class Beans {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired private MockMvc mvc;
+
+    @MockBean private ReportService reportService;
+    @MockBean private AuthService authService;
+    @MockBean private ReportExportService reportExportService;
+    @MockBean private ReportStats reportStats;
+    @MockBean private ReportFeed reportFeed;
+    @MockBean private JwtProvider jwtProvider;
+    @MockBean private AuthenticationCache authenticationCache;
+    @MockBean private UserRepository userRepository;
+
+    @Test
+    public void testUsersCannotRunBulkChanges() throws Exception {
+        givenTokens();
+        String ids = "{\"ids\":[1,2],\"status\":\"RESOLVED\",\"department\":\"roads\"}";
+
+        mvc.perform(as("user-token", put("/api/v1/admin/reports/bulk/status").content(ids)))
+                .andExpect(status().isForbidden());
+        mvc.perform(as("user-token", put("/api/v1/admin/reports/bulk/assign").content(ids)))
+                .andExpect(status().isForbidden());
+        verifyNoInteractions(reportService);
+
+        when(reportService.bulkUpdateStatus(any(), any(), any(), any())).thenReturn(new ReportDtos.BulkResponse());
+        mvc.perform(as("admin-token", put("/api/v1/admin/reports/bulk/status").content(ids)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void testUsersCannotExportReports() throws Exception {
+        givenTokens();
+
+        mvc.perform(as("user-token", get("/api/v1/admin/reports/export").param("format", "csv")))
+                .andExpect(status().isForbidden());
+        verifyNoInteractions(reportExportService);
+    }
+
+    @Test
+    public void testUsersCannotReadStats() throws Exception {
+        givenTokens();
+
+        mvc.perform(as("user-token", get("/api/v1/admin/stats").param("groupBy", "status,category")))
+                .andExpect(status().isForbidden());
+        verifyNoInteractions(reportStats);
+    }
+
+    private void givenTokens() {
+        when(authenticationCache.verify(eq("user-token"), any())).thenReturn("user@example.com");
+        when(authenticationCache.verify(eq("admin-token"), any())).thenReturn("admin@example.com");
+        when(authenticationCache.userDetails(eq("user@example.com"), any())).thenReturn(
+                User.withUsername("user@example.com").password("x").authorities("ROLE_USER").build());
+        when(authenticationCache.userDetails(eq("admin@example.com"), any())).thenReturn(
+                User.withUsername("admin@example.com").password("x").authorities("ROLE_ADMIN").build());
+    }
+
+    private static MockHttpServletRequestBuilder as(String token, MockHttpServletRequestBuilder request) {
+        return request.header("Authorization", "Bearer " + token).contentType(MediaType.APPLICATION_JSON);
+    }
+}
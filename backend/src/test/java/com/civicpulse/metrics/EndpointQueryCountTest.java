@@ -0,0 +1,151 @@
+package com.civicpulse.metrics;
+
+import com.civicpulse.config.MetricsConfig;
+import com.civicpulse.controller.AuthController;
+import com.civicpulse.controller.ReportController;
+import com.civicpulse.dto.AuthDtos;
+import com.civicpulse.dto.ReportDtos;
+import com.civicpulse.entity.Report;
+import com.civicpulse.entity.ReportImage;
+import com.civicpulse.entity.User;
+import com.civicpulse.otp.OtpStore;
+import com.civicpulse.security.JwtProvider;
+import com.civicpulse.service.AuthService;
+import com.civicpulse.service.DuplicateDetector;
+import com.civicpulse.service.EmailService;
+import com.civicpulse.service.GeoIndex;
+import com.civicpulse.service.IdempotencyStore;
+import com.civicpulse.service.ImageUploadPipeline;
+import com.civicpulse.service.ReportDetailCache;
+import com.civicpulse.service.ReportFeed;
+import com.civicpulse.service.ReportService;
+import com.civicpulse.service.SearchIndex;
+import com.civicpulse.service.UploadSessionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.civicpulse.metrics.QueryCount.assertStatements;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Statement counts of controller calls against a real schema (H2). A failure here means an
+ * endpoint started issuing more queries; update the expectation only if that is intended.
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "metrics.sql.tracking.enabled=true",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@Import({MetricsConfig.class, EndpointQueryCountTest.Beans.class, AuthController.class, AuthService.class,
+        ReportController.class, ReportService.class, ReportDetailCache.class})
+public class EndpointQueryCountTest {
+
+    @TestConfiguration
+    static class Beans {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired private TestEntityManager em;
+    @Autowired private AuthController authController;
+    @Autowired private ReportController reportController;
+
+    @MockBean private OtpStore otpStore;
+    @MockBean private PasswordEncoder passwordEncoder;
+    @MockBean private JwtProvider jwtProvider;
+    @MockBean private EmailService emailService;
+    @MockBean private ImageUploadPipeline imageUploadPipeline;
+    @MockBean private DuplicateDetector duplicateDetector;
+    @MockBean private GeoIndex geoIndex;
+    @MockBean private SearchIndex searchIndex;
+    @MockBean private ReportFeed reportFeed;
+    @MockBean private IdempotencyStore idempotencyStore;
+    @MockBean private UploadSessionService uploadSessionService;
+
+    @Test
+    public void testLoginLooksTheUserUpOnce() {
+        User user = user("citizen@example.com");
+        em.clear();
+        when(passwordEncoder.matches("secret", "hash")).thenReturn(true);
+        when(jwtProvider.generateToken(any())).thenReturn("jwt");
+
+        AuthDtos.LoginRequest req = new AuthDtos.LoginRequest();
+        req.setEmail(user.getEmail());
+        req.setPassword("secret");
+        AuthDtos.AuthResponse resp = assertStatements(1, () -> authController.login(req).getBody());
+        assertEquals("jwt", resp.getToken());
+        assertEquals(user.getId(), resp.getUser().getId());
+    }
+
+    @Test
+    public void testMyReportsLoadImagesInTheSameQuery() {
+        User user = user("owner@example.com");
+        for (int i = 0; i < 3; i++) report(user, 2);
+        em.flush();
+        em.clear();
+
+        List<ReportDtos.ReportDetail> reports = assertStatements(1,
+                () -> reportController.getMyReports(user.getId()).getBody());
+        assertEquals(3, reports.size());
+        reports.forEach(r -> assertEquals(2, r.images.size()));
+        assertEquals(6, SqlStats.snapshot().rows());
+    }
+
+    @Test
+    public void testReportDetailIsOneQueryThenCached() {
+        Report report = report(user("detail@example.com"), 2);
+        em.flush();
+        em.clear();
+
+        ServletWebRequest request = new ServletWebRequest(new MockHttpServletRequest("GET", "/api/v1/reports/" + report.getId()));
+        ReportDtos.ReportDetail detail = assertStatements(1,
+                () -> reportController.getReport(report.getId(), request).getBody());
+        assertEquals(2, detail.images.size());
+        assertStatements(0, () -> reportController.getReport(report.getId(),
+                new ServletWebRequest(new MockHttpServletRequest())).getBody());
+    }
+
+    private User user(String email) {
+        User u = new User();
+        u.setEmail(email);
+        u.setName("Test");
+        u.setPassword("hash");
+        u.setRole("ROLE_USER");
+        return em.persistAndFlush(u);
+    }
+
+    private Report report(User user, int images) {
+        Report r = new Report();
+        r.setUser(user);
+        r.setTitle("Pothole");
+        r.setDescription("Deep pothole");
+        r.setCategory("Roads");
+        r.setImages(new ArrayList<>());
+        for (int i = 0; i < images; i++) {
+            ReportImage img = new ReportImage();
+            img.setReport(r);
+            img.setUploadStatus(ReportImage.STATUS_UPLOADED);
+            img.setUrl("https://example.com/" + i + ".jpg");
+            r.getImages().add(img);
+        }
+        return em.persist(r);
+    }
+}
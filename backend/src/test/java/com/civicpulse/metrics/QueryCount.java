@@ -0,0 +1,23 @@
+package com.civicpulse.metrics;
+
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Pins the number of SQL statements a call prepares, so an extra lookup or a lazy load shows up
+ * as a failing test rather than as a slower endpoint. Needs a context with {@code MetricsConfig}
+ * imported so {@link StatementCounter} is installed.
+ */
+public final class QueryCount {
+
+    private QueryCount() {
+    }
+
+    public static <T> T assertStatements(int expected, Supplier<T> call) {
+        SqlStats.reset();
+        T result = call.get();
+        assertEquals(expected, SqlStats.snapshot().statements(), "SQL statements prepared");
+        return result;
+    }
+}
@@ -0,0 +1,67 @@
+package com.civicpulse.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RequestMetricsFilterTest {
+
+    @Test
+    public void testRecordsStatementsPerRequest() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RequestMetricsFilter filter = new RequestMetricsFilter();
+        ReflectionTestUtils.setField(filter, "meterRegistry", registry);
+        ReflectionTestUtils.setField(filter, "jdbcTracking", true);
+        StatementCounter counter = new StatementCounter();
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/reports/7");
+        SqlStats.reset();
+        counter.inspect("select 1"); // left over from an earlier request on this thread
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/v1/reports/{id}");
+            assertEquals("select * from reports", counter.inspect("select * from reports"));
+            counter.inspect("select * from report_images");
+            SqlStats.rowRead();
+            SqlStats.jdbcTime(3_000_000);
+        });
+
+        DistributionSummary summary = registry.get("civicpulse.hibernate.statements")
+                .tags("uri", "/api/v1/reports/{id}", "method", "GET").summary();
+        assertEquals(1, summary.count());
+        assertEquals(2.0, summary.totalAmount());
+        assertEquals(1.0, registry.get("civicpulse.jdbc.rows").summary().totalAmount());
+        assertEquals(3.0, registry.get("civicpulse.jdbc.time").timer().totalTime(TimeUnit.MILLISECONDS));
+        assertTrue(registry.find("civicpulse.sql.budget.exceeded").counters().isEmpty());
+    }
+
+    @Test
+    public void testCountsRequestsOverTheirEndpointBudget() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RequestMetricsFilter filter = new RequestMetricsFilter();
+        ReflectionTestUtils.setField(filter, "meterRegistry", registry);
+        ReflectionTestUtils.setField(filter, "overrides", "GET /api/v1/reports/{id}=1, POST /api/v1/auth/login = 1");
+        filter.init();
+        StatementCounter counter = new StatementCounter();
+
+        for (String uri : new String[]{"/api/v1/reports/{id}", "/api/v1/reports"}) {
+            filter.doFilter(new MockHttpServletRequest("GET", uri), new MockHttpServletResponse(), (req, res) -> {
+                req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, uri);
+                counter.inspect("select * from reports");
+                counter.inspect("select * from report_images");
+            });
+        }
+
+        // the override applies to the detail endpoint only; the list stays within the default of 20
+        assertEquals(1.0, registry.get("civicpulse.sql.budget.exceeded")
+                .tags("uri", "/api/v1/reports/{id}", "method", "GET", "reason", "statements").counter().count());
+        assertEquals(1, registry.find("civicpulse.sql.budget.exceeded").counters().size());
+    }
+}
@@ -0,0 +1,41 @@
+package com.civicpulse.otp;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InMemoryOtpStoreTest {
+
+    @Test
+    public void testCodeIsConsumedOnceAndAttemptsAreLimited() {
+        AtomicLong now = new AtomicLong(1_000);
+        InMemoryOtpStore store = new InMemoryOtpStore(now::get);
+
+        store.put("a@example.com", "123456", Duration.ofMinutes(5));
+        assertEquals(OtpStore.Result.INVALID, store.verify("a@example.com", "000000", 3));
+        assertEquals(OtpStore.Result.OK, store.verify("a@example.com", "123456", 3));
+        assertEquals(OtpStore.Result.NOT_FOUND, store.verify("a@example.com", "123456", 3));
+
+        store.put("b@example.com", "654321", Duration.ofMinutes(5));
+        assertEquals(OtpStore.Result.INVALID, store.verify("b@example.com", "1", 3));
+        assertEquals(OtpStore.Result.INVALID, store.verify("b@example.com", "2", 3));
+        assertEquals(OtpStore.Result.TOO_MANY_ATTEMPTS, store.verify("b@example.com", "3", 3));
+        assertEquals(OtpStore.Result.NOT_FOUND, store.verify("b@example.com", "654321", 3));
+    }
+
+    @Test
+    public void testExpiredCodesAreRejectedAndPurged() {
+        AtomicLong now = new AtomicLong(1_000);
+        InMemoryOtpStore store = new InMemoryOtpStore(now::get);
+        store.put("a@example.com", "123456", Duration.ofMinutes(5));
+        store.put("b@example.com", "123456", Duration.ofMinutes(5));
+
+        now.addAndGet(Duration.ofMinutes(5).toMillis());
+        assertEquals(OtpStore.Result.EXPIRED, store.verify("a@example.com", "123456", 3));
+        store.purgeExpired();
+        assertEquals(0, store.size());
+    }
+}
@@ -0,0 +1,36 @@
+package com.civicpulse.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AuthenticationCacheTest {
+
+    private static UserDetails user(String role) {
+        return User.withUsername("a@example.com").password("x").authorities(role).build();
+    }
+
+    @Test
+    public void testPrincipalLoadedAcrossAnEvictionIsNotCached() {
+        AuthenticationCache cache = new AuthenticationCache();
+        cache.init();
+        AtomicInteger loads = new AtomicInteger();
+
+        // the role changes while the old row is being read: the stale principal must not be kept
+        UserDetails stale = cache.userDetails("a@example.com", email -> {
+            loads.incrementAndGet();
+            cache.evictUser(email);
+            return user("ROLE_ADMIN");
+        });
+        assertTrue(stale.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN")));
+
+        UserDetails fresh = cache.userDetails("a@example.com", email -> { loads.incrementAndGet(); return user("ROLE_USER"); });
+        UserDetails cached = cache.userDetails("a@example.com", email -> { loads.incrementAndGet(); return user("ROLE_ADMIN"); });
+        assertEquals(2, loads.get());
+        assertSame(fresh, cached);
+    }
+}
@@ -17,5 +17,8 @@ public class JwtProviderTest {
         assertTrue(provider.validateToken(token));
         assertEquals("test@example.com", provider.getEmailFromToken(token));
         assertEquals("ROLE_USER", provider.getRoleFromToken(token));
+        assertEquals("test@example.com", provider.parseClaims(token).getSubject());
+        assertNull(provider.parseClaims(token + "x"));
+        assertFalse(provider.validateToken("not-a-token"));
     }
 }
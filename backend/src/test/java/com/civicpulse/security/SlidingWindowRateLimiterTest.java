@@ -0,0 +1,32 @@
+package com.civicpulse.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SlidingWindowRateLimiterTest {
+
+    @Test
+    public void testWindowSlides() {
+        AtomicLong now = new AtomicLong(10_000);
+        SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(3, 1_000, now::get);
+
+        assertEquals(0, limiter.tryAcquire("k"));
+        now.addAndGet(400);
+        assertEquals(0, limiter.tryAcquire("k"));
+        assertEquals(0, limiter.tryAcquire("k"));
+        assertEquals(600, limiter.tryAcquire("k"));
+        assertEquals(0, limiter.tryAcquire("other"));
+
+        // the first event leaves the window; the two at +400 are still in it
+        now.addAndGet(600);
+        assertEquals(0, limiter.tryAcquire("k"));
+        assertEquals(400, limiter.tryAcquire("k"));
+
+        now.addAndGet(2_000);
+        limiter.purge();
+        assertEquals(0, limiter.size());
+    }
+}
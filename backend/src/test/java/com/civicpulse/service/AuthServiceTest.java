@@ -2,7 +2,8 @@ package com.civicpulse.service;
 
 import com.civicpulse.entity.User;
 import com.civicpulse.repository.UserRepository;
-import com.civicpulse.repository.OtpTokenRepository;
+import com.civicpulse.exception.RateLimitedException;
+import com.civicpulse.otp.OtpStore;
 import com.civicpulse.security.JwtProvider;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -18,7 +19,7 @@ public class AuthServiceTest {
     @Mock
     private UserRepository userRepository;
     @Mock
-    private OtpTokenRepository otpTokenRepository;
+    private OtpStore otpStore;
     @Mock
     private JwtProvider jwtProvider;
     @Mock
@@ -43,7 +44,70 @@ public class AuthServiceTest {
         when(userRepository.findByEmail(email)).thenReturn(java.util.Optional.of(user));
         when(passwordEncoder.matches(password, user.getPassword())).thenReturn(true);
         when(jwtProvider.generateToken(user)).thenReturn("jwt-token");
-        String token = authService.login(email, password);
-        assertEquals("jwt-token", token);
+        AuthService.Login login = authService.login(email, password);
+        assertEquals("jwt-token", login.token());
+        assertSame(user, login.user());
+    }
+
+    @Test
+    public void testSendOtpIsRateLimitedPerEmail() {
+        for (int i = 0; i < 5; i++) {
+            authService.sendOtp("spam@example.com", "10.0.0." + i);
+        }
+        RateLimitedException ex = assertThrows(RateLimitedException.class,
+                () -> authService.sendOtp("Spam@example.com", "10.0.0.9"));
+        assertTrue(ex.getRetryAfterSeconds() > 0);
+        verify(otpStore, times(5)).put(eq("spam@example.com"), anyString(), any());
+        verify(emailService, times(5)).sendOtp(eq("spam@example.com"), anyString());
+    }
+
+    @Test
+    public void testThrottledAddressDoesNotUseUpTheEmailLimit() {
+        for (int i = 0; i < 20; i++) {
+            authService.sendOtp("user" + i + "@example.com", "203.0.113.7");
+        }
+        for (int i = 0; i < 5; i++) {
+            assertThrows(RateLimitedException.class, () -> authService.sendOtp("victim@example.com", "203.0.113.7"));
+        }
+        for (int i = 0; i < 5; i++) {
+            authService.sendOtp("victim@example.com", "198.51.100.1");
+        }
+        verify(emailService, times(5)).sendOtp(eq("victim@example.com"), anyString());
+    }
+
+    @Test
+    public void testVerifyOtpMapsStoreResult() {
+        when(otpStore.verify("a@example.com", "000000", 5)).thenReturn(OtpStore.Result.INVALID);
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> authService.verifyOtp("a@example.com", "000000"));
+        assertEquals("Invalid OTP", ex.getMessage());
+
+        User user = new User();
+        user.setEmail("a@example.com");
+        when(otpStore.verify("a@example.com", "123456", 5)).thenReturn(OtpStore.Result.OK);
+        when(userRepository.findByEmail("a@example.com")).thenReturn(java.util.Optional.of(user));
+        when(jwtProvider.generateToken(user)).thenReturn("jwt-token");
+        assertEquals("jwt-token", authService.verifyOtp("a@example.com", "123456").token());
+    }
+
+    @Test
+    public void testUpdateRoleRejectsUnknownRoles() {
+        assertThrows(IllegalArgumentException.class, () -> authService.updateRole(1L, "ROLE_SUPERUSER"));
+        assertThrows(IllegalArgumentException.class, () -> authService.updateRole(1L, null));
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    public void testOtpUsesOneNormalizedEmail() {
+        authService.sendOtp(" Alice@Example.COM ", "10.0.0.1");
+        verify(otpStore).put(eq("alice@example.com"), anyString(), any());
+        verify(emailService).sendOtp(eq("alice@example.com"), anyString());
+
+        User user = new User();
+        user.setEmail("alice@example.com");
+        when(otpStore.verify("alice@example.com", "123456", 5)).thenReturn(OtpStore.Result.OK);
+        when(userRepository.findByEmail("alice@example.com")).thenReturn(java.util.Optional.of(user));
+        when(jwtProvider.generateToken(user)).thenReturn("jwt-token");
+        assertEquals("jwt-token", authService.verifyOtp("ALICE@example.com", "123456").token());
+        verify(userRepository, never()).save(any());
     }
 }
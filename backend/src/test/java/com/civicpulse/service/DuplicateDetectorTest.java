@@ -0,0 +1,64 @@
+package com.civicpulse.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DuplicateDetectorTest {
+
+    private static ReportChangedEvent created(long id, double lat, double lon, String title, String description,
+                                              LocalDateTime createdAt) {
+        return new ReportChangedEvent(ReportChangedEvent.Type.CREATED, id, 1L, null, "NEW", "pothole", null, null,
+                lat, lon, title, description, null, createdAt, createdAt);
+    }
+
+    private DuplicateDetector detector(GeoIndex geo) {
+        DuplicateDetector detector = new DuplicateDetector();
+        ReflectionTestUtils.setField(detector, "geoIndex", geo);
+        return detector;
+    }
+
+    @Test
+    public void testSimilarNearbyReportIsFlagged() {
+        GeoIndex geo = new GeoIndex();
+        DuplicateDetector detector = detector(geo);
+        ReportChangedEvent parent = created(1, 12.9716, 77.5946, "Huge pothole on MG Road",
+                "Deep pothole near the metro station entrance", LocalDateTime.now());
+        geo.onReportChanged(parent);
+        detector.onReportChanged(parent);
+
+        DuplicateDetector.Match match = detector.findDuplicate("Huge pothole on MG road!",
+                "deep pothole near metro station entrance", "pothole", 12.97162, 77.59462);
+        assertNotNull(match);
+        assertEquals(1L, match.reportId());
+
+        assertNull(detector.findDuplicate("Streetlight not working", "Lamp post flickering all night",
+                "pothole", 12.97162, 77.59462));
+        assertNull(detector.findDuplicate("Huge pothole on MG Road", "Deep pothole near the metro station entrance",
+                "pothole", 12.9900, 77.5946));
+    }
+
+    @Test
+    public void testOldAndClosedReportsAreNotCandidates() {
+        GeoIndex geo = new GeoIndex();
+        DuplicateDetector detector = detector(geo);
+        ReportChangedEvent old = created(1, 12.9716, 77.5946, "Garbage pile", "Garbage not collected",
+                LocalDateTime.now().minusDays(30));
+        ReportChangedEvent recent = created(2, 12.9716, 77.5946, "Garbage pile", "Garbage not collected",
+                LocalDateTime.now());
+        for (ReportChangedEvent e : new ReportChangedEvent[]{old, recent}) {
+            geo.onReportChanged(e);
+            detector.onReportChanged(e);
+        }
+        assertEquals(2L, detector.findDuplicate("Garbage pile", "Garbage not collected", "pothole",
+                12.9716, 77.5946).reportId());
+
+        detector.onReportChanged(new ReportChangedEvent(ReportChangedEvent.Type.STATUS_CHANGED, 2L, 1L, "NEW",
+                "RESOLVED", "pothole", null, null, 12.9716, 77.5946, "Garbage pile", "Garbage not collected", null,
+                recent.createdAt(), LocalDateTime.now()));
+        assertNull(detector.findDuplicate("Garbage pile", "Garbage not collected", "pothole", 12.9716, 77.5946));
+    }
+}
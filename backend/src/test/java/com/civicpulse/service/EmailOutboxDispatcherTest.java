@@ -0,0 +1,142 @@
+package com.civicpulse.service;
+
+import com.civicpulse.entity.EmailOutbox;
+import com.civicpulse.repository.EmailOutboxRepository;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class EmailOutboxDispatcherTest {
+    @RegisterExtension
+    static GreenMailExtension smtp = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Mock
+    private EmailOutboxRepository outboxRepository;
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    @Spy
+    private JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+    @InjectMocks
+    private EmailOutboxDispatcher dispatcher;
+
+    public EmailOutboxDispatcherTest() {
+        MockitoAnnotations.openMocks(this);
+        mailSender.setHost("localhost");
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+        ReflectionTestUtils.setField(dispatcher, "from", "noreply@civicpulse.test");
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 2);
+    }
+
+    private static List<EmailOutbox> outbox(int n) {
+        List<EmailOutbox> mails = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            EmailOutbox m = new EmailOutbox();
+            m.setId((long) i + 1);
+            m.setRecipient("user" + i + "@example.com");
+            m.setSubject("Your CivicPulse OTP code");
+            m.setBodyHtml("<p>" + (100000 + i) + "</p>");
+            m.setTemplate("otp");
+            mails.add(m);
+        }
+        return mails;
+    }
+
+    /** The database grants this sender {@code mails} when it claims {@code ids}. */
+    private void claimed(List<Long> ids, List<EmailOutbox> mails) {
+        when(outboxRepository.claim(eq(ids), anyString(), any())).thenAnswer(i -> {
+            mails.forEach(m -> {
+                m.setStatus(EmailOutbox.STATUS_SENDING);
+                m.setClaimToken(i.getArgument(1));
+            });
+            return mails.size();
+        });
+        when(outboxRepository.findByClaimToken(anyString())).thenReturn(mails);
+    }
+
+    @Test
+    public void testBatchIsDeliveredAndMarkedSent() throws Exception {
+        List<EmailOutbox> mails = outbox(3);
+        claimed(List.of(1L, 2L, 3L), mails);
+
+        dispatcher.dispatch(List.of(1L, 2L, 3L));
+
+        MimeMessage[] received = smtp.getReceivedMessages();
+        assertEquals(3, received.length);
+        assertEquals("Your CivicPulse OTP code", received[0].getSubject());
+        // all three went out through a single send call, i.e. one SMTP connection
+        verify(mailSender, times(1)).send(any(MimeMessage[].class));
+        for (EmailOutbox m : mails) {
+            assertEquals(EmailOutbox.STATUS_SENT, m.getStatus());
+            assertNotNull(m.getSentAt());
+            // the OTP is not kept once delivered
+            assertEquals("", m.getBodyHtml());
+            assertNull(m.getClaimToken());
+        }
+        verify(outboxRepository).saveAll(mails);
+    }
+
+    @Test
+    public void testRowsClaimedByAnotherNodeAreNotSent() {
+        when(outboxRepository.claim(eq(List.of(1L, 2L)), anyString(), any())).thenReturn(0);
+
+        dispatcher.dispatch(List.of(1L, 2L));
+
+        assertEquals(0, smtp.getReceivedMessages().length);
+        verify(outboxRepository, never()).findByClaimToken(anyString());
+        verify(outboxRepository, never()).saveAll(any());
+    }
+
+    @Test
+    public void testFailuresBackOffThenDeadLetter() {
+        mailSender.setPort(1); // nothing listens here
+        List<EmailOutbox> mails = outbox(1);
+        EmailOutbox mail = mails.get(0);
+        claimed(List.of(1L), mails);
+
+        dispatcher.dispatch(List.of(1L));
+        assertEquals(EmailOutbox.STATUS_PENDING, mail.getStatus());
+        assertEquals(1, mail.getAttempts());
+        assertNotNull(mail.getNextAttemptAt());
+        assertNotNull(mail.getLastError());
+
+        dispatcher.dispatch(List.of(1L));
+        assertEquals(EmailOutbox.STATUS_DEAD, mail.getStatus());
+        assertNull(mail.getNextAttemptAt());
+        assertEquals("", mail.getBodyHtml());
+        assertEquals(0, smtp.getReceivedMessages().length);
+    }
+
+    @Test
+    public void testExpiredMailIsDroppedInsteadOfSent() throws Exception {
+        List<EmailOutbox> mails = outbox(2);
+        mails.get(0).setExpiresAt(LocalDateTime.now().minusSeconds(1));
+        mails.get(1).setExpiresAt(LocalDateTime.now().plusMinutes(5));
+        claimed(List.of(1L, 2L), mails);
+
+        dispatcher.dispatch(List.of(1L, 2L));
+
+        assertEquals(EmailOutbox.STATUS_EXPIRED, mails.get(0).getStatus());
+        assertEquals("", mails.get(0).getBodyHtml());
+        assertEquals(EmailOutbox.STATUS_SENT, mails.get(1).getStatus());
+        assertEquals(1, smtp.getReceivedMessages().length);
+        assertEquals("user1@example.com", smtp.getReceivedMessages()[0].getAllRecipients()[0].toString());
+    }
+}
@@ -0,0 +1,46 @@
+package com.civicpulse.service;
+
+import com.civicpulse.dto.ReportDtos;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GeoIndexTest {
+
+    private static ReportChangedEvent report(long id, double lat, double lon, String status, String category) {
+        return new ReportChangedEvent(ReportChangedEvent.Type.CREATED, id, 1L, null, status, category, null, null,
+                lat, lon, "t", "d", null, LocalDateTime.now(), LocalDateTime.now());
+    }
+
+    @Test
+    public void testNearbyReturnsReportsInsideRadiusNearestFirst() {
+        GeoIndex index = new GeoIndex();
+        index.onReportChanged(report(1, 12.9716, 77.5946, "NEW", "pothole"));
+        index.onReportChanged(report(2, 12.9720, 77.5950, "NEW", "pothole"));     // ~60 m away
+        index.onReportChanged(report(3, 12.9900, 77.5946, "NEW", "pothole"));     // ~2 km away
+        index.onReportChanged(report(4, 12.9717, 77.5947, "RESOLVED", "garbage"));
+
+        List<ReportDtos.GeoReport> hits = index.nearby(12.9716, 77.5946, 500, null, null, 10);
+        assertEquals(List.of(1L, 4L, 2L), hits.stream().map(h -> h.id).toList());
+        assertTrue(hits.get(2).distanceMeters < 100);
+
+        List<ReportDtos.GeoReport> filtered = index.nearby(12.9716, 77.5946, 500, "NEW", "pothole", 10);
+        assertEquals(List.of(1L, 2L), filtered.stream().map(h -> h.id).toList());
+        assertTrue(index.nearby(12.9716, 77.5946, 500, "UNKNOWN", null, 10).isEmpty());
+    }
+
+    @Test
+    public void testStatusChangeAndMoveAreReflected() {
+        GeoIndex index = new GeoIndex();
+        index.onReportChanged(report(1, 12.9716, 77.5946, "NEW", "pothole"));
+        index.onReportChanged(report(1, 13.0500, 77.6000, "RESOLVED", "pothole"));
+
+        assertTrue(index.nearby(12.9716, 77.5946, 1000, null, null, 10).isEmpty());
+        List<ReportDtos.GeoReport> box = index.within(13.0, 77.5, 13.1, 77.7, "RESOLVED", null, 10);
+        assertEquals(1, box.size());
+        assertEquals(1, index.size());
+    }
+}
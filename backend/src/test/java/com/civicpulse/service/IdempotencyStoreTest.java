@@ -0,0 +1,191 @@
+package com.civicpulse.service;
+
+import com.civicpulse.dto.ReportDtos;
+import com.civicpulse.entity.IdempotencyRecord;
+import com.civicpulse.exception.IdempotencyConflictException;
+import com.civicpulse.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class IdempotencyStoreTest {
+    @Mock
+    private IdempotencyRecordRepository repository;
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    @InjectMocks
+    private IdempotencyStore store;
+
+    public IdempotencyStoreTest() {
+        MockitoAnnotations.openMocks(this);
+        when(repository.findById(any())).thenReturn(Optional.empty());
+        store.init();
+    }
+
+    private static ReportDtos.ReportResponse response(long id) {
+        ReportDtos.ReportResponse r = new ReportDtos.ReportResponse();
+        r.id = id;
+        r.title = "Pothole";
+        r.status = "NEW";
+        return r;
+    }
+
+    private IdempotencyStore.Result<ReportDtos.ReportResponse> submit(String key, String requestHash,
+                                                                       AtomicInteger runs) throws Exception {
+        return store.execute("POST /api/v1/reports", "a@example.com", key, requestHash,
+                ReportDtos.ReportResponse.class, () -> response(100 + runs.incrementAndGet()));
+    }
+
+    @Test
+    public void testRetryIsReplayedAndRecorded() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        IdempotencyStore.Result<ReportDtos.ReportResponse> first = submit("k1", "h", runs);
+        IdempotencyStore.Result<ReportDtos.ReportResponse> retry = submit("k1", "h", runs);
+
+        assertEquals(1, runs.get());
+        assertFalse(first.replayed());
+        assertTrue(retry.replayed());
+        assertEquals(first.value().id, retry.value().id);
+
+        ArgumentCaptor<IdempotencyRecord> saved = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        verify(repository).save(saved.capture());
+        assertEquals("h", saved.getValue().getRequestHash());
+        assertTrue(saved.getValue().getExpiresAt().isAfter(LocalDateTime.now().plusHours(23)));
+        // another key (or caller) is another request
+        submit("k2", "h", runs);
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    public void testKeyReusedForAnotherRequestIsRejected() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        submit("k1", "h1", runs);
+        IdempotencyConflictException ex = assertThrows(IdempotencyConflictException.class,
+                () -> submit("k1", "h2", runs));
+        assertEquals("idempotency_key_reused", ex.getError());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void testRecordFromDatabaseIsReplayedWithoutRunning() throws Exception {
+        String id = IdempotencyStore.hash("POST /api/v1/reports", "a@example.com", "k1");
+        IdempotencyRecord record = new IdempotencyRecord(id, "h", objectMapper.writeValueAsString(response(7)),
+                LocalDateTime.now(), LocalDateTime.now().plusHours(1));
+        when(repository.findById(id)).thenReturn(Optional.of(record));
+        AtomicInteger runs = new AtomicInteger();
+
+        IdempotencyStore.Result<ReportDtos.ReportResponse> r = submit("k1", "h", runs);
+        assertTrue(r.replayed());
+        assertEquals(7L, r.value().id);
+        assertEquals(0, runs.get());
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    public void testFailuresAreNotRecorded() throws Exception {
+        assertThrows(IllegalStateException.class, () -> store.execute("POST /api/v1/reports", "a@example.com",
+                "k1", "h", ReportDtos.ReportResponse.class, () -> { throw new IllegalStateException("drive down"); }));
+        // the claim is released, so a retry on any node runs again
+        verify(repository).deleteById(IdempotencyStore.hash("POST /api/v1/reports", "a@example.com", "k1"));
+        AtomicInteger runs = new AtomicInteger();
+        assertFalse(submit("k1", "h", runs).replayed());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void testDuplicateOnAnotherNodeWaitsForItsRecord() throws Exception {
+        ReflectionTestUtils.setField(store, "pollMillis", 1L);
+        String id = IdempotencyStore.hash("POST /api/v1/reports", "a@example.com", "k1");
+        IdempotencyRecord running = new IdempotencyRecord(id, "h", null, LocalDateTime.now(),
+                LocalDateTime.now().plusMinutes(2));
+        IdempotencyRecord done = new IdempotencyRecord(id, "h", objectMapper.writeValueAsString(response(9)),
+                LocalDateTime.now(), LocalDateTime.now().plusHours(24));
+        when(repository.insertPending(eq(id), any(), any(), any()))
+                .thenThrow(new DataIntegrityViolationException("Duplicate entry"));
+        when(repository.findById(id)).thenReturn(Optional.of(running), Optional.of(running), Optional.of(running),
+                Optional.of(done));
+        AtomicInteger runs = new AtomicInteger();
+
+        IdempotencyStore.Result<ReportDtos.ReportResponse> r = submit("k1", "h", runs);
+        assertTrue(r.replayed());
+        assertEquals(9L, r.value().id);
+        assertEquals(0, runs.get());
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    public void testConcurrentDuplicateWaitsForTheFirstOutcome() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<IdempotencyStore.Result<ReportDtos.ReportResponse>> first = pool.submit(() ->
+                    store.execute("POST /api/v1/reports", "a@example.com", "k1", "h", ReportDtos.ReportResponse.class,
+                            () -> {
+                                started.countDown();
+                                release.await();
+                                return response(100 + runs.incrementAndGet());
+                            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<IdempotencyStore.Result<ReportDtos.ReportResponse>> duplicate = pool.submit(() -> submit("k1", "h", runs));
+            Thread.sleep(100);
+            assertFalse(duplicate.isDone());
+
+            release.countDown();
+            assertFalse(first.get(5, TimeUnit.SECONDS).replayed());
+            assertTrue(duplicate.get(5, TimeUnit.SECONDS).replayed());
+            assertEquals(101L, duplicate.get().value().id);
+            assertEquals(1, runs.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testDuplicateGivesUpWhileTheFirstIsStillRunning() throws Exception {
+        ReflectionTestUtils.setField(store, "waitMillis", 50L);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            pool.submit(() -> store.execute("POST /api/v1/reports", "a@example.com", "k1", "h",
+                    ReportDtos.ReportResponse.class, () -> {
+                        started.countDown();
+                        release.await();
+                        return response(1);
+                    }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            IdempotencyConflictException ex = assertThrows(IdempotencyConflictException.class,
+                    () -> submit("k1", "h", new AtomicInteger()));
+            assertEquals("idempotency_key_in_progress", ex.getError());
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+    }
+}
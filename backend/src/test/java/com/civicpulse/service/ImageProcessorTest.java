@@ -0,0 +1,101 @@
+package com.civicpulse.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ImageProcessorTest {
+
+    // minimal big-endian EXIF APP1 with Orientation (0x0112) and a GPSInfo pointer (0x8825)
+    private static byte[] exifSegment(int orientation) {
+        byte[] tiff = {
+                'M', 'M', 0, 42, 0, 0, 0, 8,
+                0, 2,
+                0x01, 0x12, 0, 3, 0, 0, 0, 1, 0, (byte) orientation, 0, 0,
+                (byte) 0x88, 0x25, 0, 4, 0, 0, 0, 1, 0, 0, 0, 0,
+                0, 0, 0, 0
+        };
+        byte[] header = "Exif\0\0".getBytes(StandardCharsets.ISO_8859_1);
+        int length = 2 + header.length + tiff.length;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(0xFF);
+        out.write(0xE1);
+        out.write(length >> 8);
+        out.write(length);
+        out.writeBytes(header);
+        out.writeBytes(tiff);
+        return out.toByteArray();
+    }
+
+    private static Path photo(int width, int height, int orientation) throws Exception {
+        BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = img.createGraphics();
+        g.setColor(Color.RED);
+        g.fillRect(0, 0, width / 2, height);
+        g.dispose();
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        ImageIO.write(img, "jpeg", jpeg);
+        byte[] plain = jpeg.toByteArray();
+        ByteArrayOutputStream withExif = new ByteArrayOutputStream();
+        withExif.write(plain, 0, 2);                       // SOI
+        withExif.writeBytes(exifSegment(orientation));
+        withExif.write(plain, 2, plain.length - 2);
+        Path file = Files.createTempFile("upload", ".bin");
+        Files.write(file, withExif.toByteArray());
+        return file;
+    }
+
+    private static boolean containsExif(Path file) throws Exception {
+        return new String(Files.readAllBytes(file), StandardCharsets.ISO_8859_1).contains("Exif\0\0");
+    }
+
+    @Test
+    public void testDownscalesAppliesOrientationAndStripsExif() throws Exception {
+        Path source = photo(4000, 3000, 6);
+        assertEquals(6, ImageProcessor.exifOrientation(source));
+        assertTrue(containsExif(source));
+
+        ImageProcessor.Variants v = new ImageProcessor().process(source);
+
+        // rotated 90 degrees, then fitted into 1600
+        assertEquals(1200, v.width());
+        assertEquals(1600, v.height());
+        BufferedImage main = ImageIO.read(v.main().toFile());
+        assertEquals(1200, main.getWidth());
+        BufferedImage thumb = ImageIO.read(v.thumbnail().toFile());
+        assertEquals(320, Math.max(thumb.getWidth(), thumb.getHeight()));
+        assertFalse(containsExif(v.main()));
+        assertFalse(containsExif(v.thumbnail()));
+        assertTrue(v.mainBytes() < Files.size(source));
+        assertTrue(v.thumbnailBytes() < v.mainBytes());
+        // the red left half ends up on top after a clockwise rotation
+        assertTrue(new Color(main.getRGB(600, 100)).getRed() > 200);
+        assertTrue(new Color(main.getRGB(600, 1500)).getRed() < 50);
+    }
+
+    @Test
+    public void testNonImagesAreRejected() throws Exception {
+        Path text = Files.createTempFile("upload", ".bin");
+        Files.writeString(text, "not an image");
+        ImageProcessor processor = new ImageProcessor();
+        assertThrows(IllegalArgumentException.class, () -> processor.check(text));
+        assertNull(processor.process(text));
+        assertEquals(1, ImageProcessor.exifOrientation(text));
+
+        Path photo = photo(400, 300, 1);
+        processor.check(photo);
+        ReflectionTestUtils.setField(processor, "maxPixels", 1000L);
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> processor.check(photo));
+        assertEquals("Image too large: 400x300", ex.getMessage());
+    }
+}
@@ -0,0 +1,223 @@
+package com.civicpulse.service;
+
+import com.civicpulse.entity.Report;
+import com.civicpulse.entity.ReportImage;
+import com.civicpulse.repository.ReportImageRepository;
+import com.civicpulse.storage.BlobStore;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+public class ImageUploadPipelineTest {
+    @Mock
+    private ReportImageRepository reportImageRepository;
+    @Mock
+    private BlobStore blobStore;
+    @Mock
+    private ImageProcessor imageProcessor;
+    @Mock
+    private ReportDetailCache reportDetailCache;
+    @InjectMocks
+    private ImageUploadPipeline pipeline;
+
+    public ImageUploadPipelineTest() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(pipeline, "maxAttempts", 2);
+        ReflectionTestUtils.setField(pipeline, "retryBackoffMs", 1000L);
+        // by default every file processes into a main image and a thumbnail
+        when(imageProcessor.processAll(anyList())).thenAnswer(i -> {
+            List<ImageProcessor.Variants> out = new ArrayList<>();
+            for (Object ignored : (List<?>) i.getArgument(0)) out.add(variants());
+            return out;
+        });
+    }
+
+    private static ImageProcessor.Variants variants() throws Exception {
+        return new ImageProcessor.Variants(Files.createTempFile("staged", ".main.jpg"), 300_000, 1600, 1200,
+                Files.createTempFile("staged", ".thumb.jpg"), 20_000);
+    }
+
+    private static BlobStore.PutResult stored(String key) {
+        return BlobStore.PutResult.success(new BlobStore.StoredBlob(key, "/files/" + key));
+    }
+
+    private ReportImage pendingImage(long id, Path staged) {
+        Report report = new Report();
+        report.setId(100 + id);
+        ReportImage img = new ReportImage();
+        img.setId(id);
+        img.setReport(report);
+        img.setOriginalFilename("pothole-" + id + ".png");
+        img.setContentType("image/png");
+        img.setStagedPath(staged.toString());
+        return img;
+    }
+
+    @Test
+    public void testBatchUploadUpdatesEachImageIndependently() throws Exception {
+        Path ok = Files.createTempFile("staged", ".bin");
+        Path bad = Files.createTempFile("staged", ".bin");
+        ReportImage first = pendingImage(1L, ok);
+        ReportImage second = pendingImage(2L, bad);
+        when(reportImageRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(first, second));
+        when(blobStore.name()).thenReturn("gdrive");
+        when(blobStore.putAll(anyList())).thenReturn(List.of(
+                stored("id"), stored("thumb"),
+                BlobStore.PutResult.failure("drive unavailable"), BlobStore.PutResult.failure("drive unavailable")));
+
+        pipeline.process(List.of(1L, 2L));
+
+        assertEquals(ReportImage.STATUS_UPLOADED, first.getUploadStatus());
+        assertEquals("gdrive", first.getStorageBackend());
+        assertEquals("id", first.getStorageKey());
+        assertEquals("/files/id", first.getUrl());
+        assertNotNull(first.getUploadedAt());
+        assertNull(first.getStagedPath());
+        assertFalse(Files.exists(ok));
+
+        assertEquals(ReportImage.STATUS_PENDING, second.getUploadStatus());
+        assertEquals(1, second.getUploadAttempts());
+        assertNotNull(second.getNextAttemptAt());
+        assertTrue(Files.exists(bad));
+        verify(reportImageRepository).saveAll(List.of(first, second));
+        verify(reportDetailCache).invalidate(101L);
+        verify(reportDetailCache).invalidate(102L);
+    }
+
+    @Test
+    public void testImageIsMarkedFailedAfterMaxAttempts() throws Exception {
+        Path staged = Files.createTempFile("staged", ".bin");
+        ReportImage img = pendingImage(7L, staged);
+        when(reportImageRepository.findAllById(List.of(7L))).thenReturn(List.of(img));
+        when(blobStore.putAll(anyList())).thenReturn(List.of(
+                BlobStore.PutResult.failure("drive unavailable"), BlobStore.PutResult.failure("drive unavailable")));
+
+        pipeline.process(List.of(7L));
+        pipeline.process(List.of(7L));
+
+        assertEquals(ReportImage.STATUS_FAILED, img.getUploadStatus());
+        assertEquals("drive unavailable", img.getLastError());
+        assertNull(img.getStagedPath());
+        assertFalse(Files.exists(staged));
+    }
+
+    @Test
+    public void testProcessedImageIsStoredWithThumbnailAsOnePair() throws Exception {
+        Path staged = Files.createTempFile("staged", ".bin");
+        Path main = Files.createTempFile("staged", ".main.jpg");
+        Path thumb = Files.createTempFile("staged", ".thumb.jpg");
+        ReportImage img = pendingImage(3L, staged);
+        img.setSizeBytes(5_000_000L);
+        when(reportImageRepository.findAllById(List.of(3L))).thenReturn(List.of(img));
+        when(imageProcessor.processAll(List.of(staged)))
+                .thenReturn(List.of(new ImageProcessor.Variants(main, 300_000, 1600, 1200, thumb, 20_000)));
+        when(blobStore.name()).thenReturn("local");
+        when(blobStore.putAll(anyList())).thenReturn(List.of(stored("k1"), BlobStore.PutResult.failure("disk full")));
+
+        pipeline.process(List.of(3L));
+
+        // thumbnail failed: the stored main image is removed and the pair retried
+        verify(blobStore).delete("k1");
+        assertEquals(ReportImage.STATUS_PENDING, img.getUploadStatus());
+        assertEquals("disk full", img.getLastError());
+        assertFalse(Files.exists(main));
+        assertFalse(Files.exists(thumb));
+
+        Files.createFile(main);
+        Files.createFile(thumb);
+        when(blobStore.putAll(anyList())).thenReturn(List.of(stored("k2"), stored("k3")));
+        pipeline.process(List.of(3L));
+
+        assertEquals(ReportImage.STATUS_UPLOADED, img.getUploadStatus());
+        assertEquals("k2", img.getStorageKey());
+        assertEquals("/files/k3", img.getThumbnailUrl());
+        assertEquals(300_000L, img.getSizeBytes());
+        assertEquals(20_000L, img.getThumbnailSizeBytes());
+        assertEquals("image/jpeg", img.getContentType());
+        assertEquals(1600, img.getWidth());
+        assertFalse(Files.exists(staged));
+    }
+
+    @Test
+    public void testUndecodableImageFailsWithoutStoringTheOriginal() throws Exception {
+        Path staged = Files.createTempFile("staged", ".bin");
+        ReportImage img = pendingImage(4L, staged);
+        when(reportImageRepository.findAllById(List.of(4L))).thenReturn(List.of(img));
+        when(imageProcessor.processAll(List.of(staged))).thenReturn(Arrays.asList((ImageProcessor.Variants) null));
+
+        pipeline.process(List.of(4L));
+
+        assertEquals(ReportImage.STATUS_FAILED, img.getUploadStatus());
+        assertNull(img.getStorageKey());
+        assertFalse(Files.exists(staged));
+        verify(blobStore, never()).putAll(anyList());
+    }
+
+    @Test
+    public void testStagingRejectsFilesThatAreNotImages() throws Exception {
+        ReflectionTestUtils.setField(pipeline, "stagingDir", Files.createTempDirectory("staging").toString());
+        ReflectionTestUtils.setField(pipeline, "maxFileSize", 1024L);
+        doThrow(new IllegalArgumentException("Unsupported image format")).when(imageProcessor).check(any());
+        MockMultipartFile heic = new MockMultipartFile("images", "IMG_0001.HEIC", "image/heic", new byte[]{1, 2, 3});
+
+        assertThrows(IllegalArgumentException.class, () -> pipeline.stage(new Report(), heic));
+        try (var staged = Files.list(Path.of((String) ReflectionTestUtils.getField(pipeline, "stagingDir")))) {
+            assertEquals(0, staged.count());
+        }
+    }
+
+    @Test
+    public void testStandaloneUploadStoresOnlyTheReencodedImage() throws Exception {
+        Path dir = Files.createTempDirectory("staging");
+        ReflectionTestUtils.setField(pipeline, "stagingDir", dir.toString());
+        ReflectionTestUtils.setField(pipeline, "maxFileSize", 1024L);
+        ImageProcessor.Variants v = variants();
+        when(imageProcessor.processAll(anyList())).thenReturn(List.of(v));
+        when(blobStore.putAll(anyList())).thenReturn(List.of(stored("k")));
+        MockMultipartFile photo = new MockMultipartFile("file", "IMG_0002.png", "image/png", new byte[]{1, 2, 3});
+
+        assertEquals("k", pipeline.storeNow(photo).key());
+
+        verify(blobStore).putAll(List.of(new BlobStore.BlobSource("IMG_0002.jpg", "image/jpeg", v.main())));
+        assertFalse(Files.exists(v.main()));
+        try (var staged = Files.list(dir)) {
+            assertEquals(0, staged.count());
+        }
+    }
+
+    @Test
+    public void testBatchThatThrowsStillUsesUpAttempts() throws Exception {
+        Path staged = Files.createTempFile("staged", ".bin");
+        ReportImage img = pendingImage(5L, staged);
+        when(reportImageRepository.findAllById(List.of(5L))).thenReturn(List.of(img));
+        when(imageProcessor.processAll(List.of(staged))).thenThrow(new IllegalStateException("decoder crashed"));
+
+        pipeline.process(List.of(5L));
+        assertEquals(ReportImage.STATUS_PENDING, img.getUploadStatus());
+        assertEquals(1, img.getUploadAttempts());
+        assertNotNull(img.getNextAttemptAt());
+
+        reset(imageProcessor);
+        when(imageProcessor.processAll(List.of(staged))).thenReturn(List.of(variants()));
+        when(blobStore.putAll(anyList())).thenThrow(new IllegalStateException("client closed"));
+        pipeline.process(List.of(5L));
+
+        assertEquals(ReportImage.STATUS_FAILED, img.getUploadStatus());
+        assertEquals(2, img.getUploadAttempts());
+        assertFalse(Files.exists(staged));
+    }
+}
@@ -0,0 +1,86 @@
+package com.civicpulse.service;
+
+import com.civicpulse.dto.ReportDtos;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReportDetailCacheTest {
+
+    private static ReportDtos.ReportDetail detail(long id, LocalDateTime updatedAt) {
+        ReportDtos.ReportDetail d = new ReportDtos.ReportDetail();
+        d.id = id;
+        d.status = "NEW";
+        d.updatedAt = updatedAt;
+        d.images = new ArrayList<>();
+        return d;
+    }
+
+    private static ReportDetailCache cache() {
+        ReportDetailCache cache = new ReportDetailCache();
+        cache.init();
+        return cache;
+    }
+
+    @Test
+    public void testHitsSkipTheLoaderUntilTheReportChanges() {
+        ReportDetailCache cache = cache();
+        AtomicInteger loads = new AtomicInteger();
+        LocalDateTime t = LocalDateTime.of(2024, 5, 1, 10, 0);
+
+        ReportDetailCache.View first = cache.get(1L, id -> { loads.incrementAndGet(); return detail(id, t); });
+        ReportDetailCache.View second = cache.get(1L, id -> { loads.incrementAndGet(); return detail(id, t); });
+        assertEquals(1, loads.get());
+        assertSame(first, second);
+        assertTrue(first.etag().startsWith("\"1-") && first.etag().endsWith("\""));
+
+        cache.onReportChanged(new ReportChangedEvent(ReportChangedEvent.Type.STATUS_CHANGED, 1L, 1L, "NEW",
+                "RESOLVED", "pothole", null, null, 0.0, 0.0, "t", "d", null, t, t.plusMinutes(5)));
+        ReportDetailCache.View third = cache.get(1L, id -> { loads.incrementAndGet(); return detail(id, t.plusMinutes(5)); });
+        assertEquals(2, loads.get());
+        assertNotEquals(first.etag(), third.etag());
+    }
+
+    @Test
+    public void testEtagChangesWithRenderedFieldsWithinOneSecond() {
+        LocalDateTime t = LocalDateTime.of(2024, 5, 1, 10, 0);
+        ReportDtos.ReportDetail d = detail(1, t);
+        String created = ReportDetailCache.etag(d);
+        // updated_at is stored to the second, so two changes within it keep the same timestamp
+        d.status = "IN_PROGRESS";
+        String statusChanged = ReportDetailCache.etag(d);
+        d.assignedDepartment = "roads";
+        String assigned = ReportDetailCache.etag(d);
+        d.duplicateOf = 7L;
+        String duplicate = ReportDetailCache.etag(d);
+
+        assertEquals(4, Set.of(created, statusChanged, assigned, duplicate).size());
+        assertEquals(duplicate, ReportDetailCache.etag(d));
+    }
+
+    @Test
+    public void testEtagTracksImageStateAndOverlappingLoadsAreNotCached() {
+        LocalDateTime t = LocalDateTime.of(2024, 5, 1, 10, 0);
+        ReportDtos.ReportDetail pending = detail(1, t);
+        ReportDtos.ImageDto img = new ReportDtos.ImageDto();
+        img.id = 5L;
+        img.uploadStatus = "PENDING";
+        pending.images.add(img);
+        String before = ReportDetailCache.etag(pending);
+        img.uploadStatus = "UPLOADED";
+        img.url = "/api/v1/files/k";
+        assertNotEquals(before, ReportDetailCache.etag(pending));
+
+        ReportDetailCache cache = cache();
+        AtomicInteger loads = new AtomicInteger();
+        // the report changes while the view is being read: the stale result must not be kept
+        cache.get(1L, id -> { loads.incrementAndGet(); cache.invalidate(1L); return detail(id, t); });
+        cache.get(1L, id -> { loads.incrementAndGet(); return detail(id, t); });
+        assertEquals(2, loads.get());
+    }
+}
@@ -0,0 +1,59 @@
+package com.civicpulse.service;
+
+import com.civicpulse.entity.Report;
+import com.civicpulse.entity.User;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReportExportServiceTest {
+    private final ReportExportService exportService = new ReportExportService();
+
+    private static Report report(long id, String title, String description) {
+        User user = new User();
+        user.setId(7L);
+        Report r = new Report();
+        r.setId(id);
+        r.setUser(user);
+        r.setTitle(title);
+        r.setDescription(description);
+        r.setCategory("pothole");
+        r.setLatitude(12.5);
+        r.setLongitude(77.25);
+        r.setCreatedAt(LocalDateTime.of(2024, 1, 2, 3, 4, 5));
+        return r;
+    }
+
+    @Test
+    public void testNdjsonWritesOneObjectPerLine() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long n = exportService.writeNdjson(List.of(report(1, "a", "b"), report(2, "c\nd", "e")).iterator(), out);
+        assertEquals(2, n);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        JsonNode second = new ObjectMapper().readTree(lines[1]);
+        assertEquals(2, second.get("id").asLong());
+        assertEquals(7, second.get("userId").asLong());
+        assertEquals("c\nd", second.get("title").asText());
+        assertTrue(second.get("assignedToId").isNull());
+        assertEquals("2024-01-02T03:04:05", second.get("createdAt").asText());
+    }
+
+    @Test
+    public void testCsvQuotesSpecialCharacters() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.writeCsv(List.of(report(1, "Pothole, big", "said \"deep\"")).iterator(), out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(String.join(",", ReportExportService.COLUMNS), lines[0]);
+        assertTrue(lines[1].startsWith("1,7,\"Pothole, big\",\"said \"\"deep\"\"\",pothole,12.5,77.25,NEW,,,,"));
+    }
+}
@@ -0,0 +1,152 @@
+package com.civicpulse.service;
+
+import com.civicpulse.dto.ReportDtos;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReportFeedTest {
+
+    /** Records what would be written to the client. */
+    static class RecordingEmitter extends SseEmitter {
+        final List<Object> sent = new ArrayList<>();
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            for (var part : builder.build()) sent.add(part.getData());
+        }
+
+        List<Long> eventIds() {
+            return sent.stream().filter(d -> d instanceof ReportDtos.FeedEvent)
+                    .map(d -> ((ReportDtos.FeedEvent) d).reportId).toList();
+        }
+
+        boolean sawText(String text) {
+            return sent.stream().anyMatch(d -> d instanceof String s && s.contains(text));
+        }
+    }
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ReportFeed feed(int replaySize, int bufferSize, Executor executor) {
+        ReportFeed feed = new ReportFeed();
+        ReflectionTestUtils.setField(feed, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(feed, "replaySize", replaySize);
+        ReflectionTestUtils.setField(feed, "bufferSize", bufferSize);
+        feed.start();
+        ReflectionTestUtils.setField(feed, "executor", executor);
+        return feed;
+    }
+
+    private static ReportChangedEvent changed(long reportId, long userId, String status) {
+        return new ReportChangedEvent(ReportChangedEvent.Type.STATUS_CHANGED, reportId, userId, "NEW", status,
+                "pothole", null, null, 12.97, 77.59, "t", "d", null, LocalDateTime.now(), LocalDateTime.now());
+    }
+
+    @Test
+    public void testUsersSeeOwnReportsAndAdminsSeeFilteredStream() {
+        ReportFeed feed = feed(100, 16, Runnable::run);
+        RecordingEmitter alice = new RecordingEmitter();
+        RecordingEmitter resolved = new RecordingEmitter();
+        feed.register(alice, 1L, null, null, null, null);
+        feed.register(resolved, null, "RESOLVED", null, null, null);
+        assertTrue(alice.sawText("heartbeat"));
+
+        feed.onReportChanged(changed(10, 1, "IN_PROGRESS"));
+        feed.onReportChanged(changed(20, 2, "RESOLVED"));
+        feed.onReportChanged(changed(11, 1, "RESOLVED"));
+
+        assertEquals(List.of(10L, 11L), alice.eventIds());
+        assertEquals(List.of(20L, 11L), resolved.eventIds());
+        assertEquals(2, feed.subscriberCount());
+    }
+
+    @Test
+    public void testReconnectReplaysMissedEventsOrAsksForResync() {
+        ReportFeed feed = feed(3, 16, Runnable::run);
+        RecordingEmitter first = new RecordingEmitter();
+        feed.register(first, 1L, null, null, null, null);
+        feed.onReportChanged(changed(10, 1, "IN_PROGRESS"));
+        long seen = ((ReportDtos.FeedEvent) first.sent.stream()
+                .filter(d -> d instanceof ReportDtos.FeedEvent).findFirst().orElseThrow()).id;
+
+        feed.onReportChanged(changed(11, 1, "RESOLVED"));
+        feed.onReportChanged(changed(20, 2, "RESOLVED"));
+        RecordingEmitter resumed = new RecordingEmitter();
+        feed.register(resumed, 1L, null, null, null, seen);
+        assertEquals(List.of(11L), resumed.eventIds());
+
+        // the ring holds 3 events, so after 3 more the old id is gone
+        for (int i = 0; i < 3; i++) feed.onReportChanged(changed(30 + i, 3, "NEW"));
+        RecordingEmitter stale = new RecordingEmitter();
+        feed.register(stale, 1L, null, null, null, seen);
+        assertTrue(stale.eventIds().isEmpty());
+        assertTrue(stale.sent.contains("{}"));
+    }
+
+    @Test
+    public void testSlowSubscriberIsDisconnectedInsteadOfBlockingPublisher() {
+        List<Runnable> neverRun = new ArrayList<>();
+        ReportFeed feed = feed(100, 2, neverRun::add);
+        RecordingEmitter slow = new RecordingEmitter();
+        feed.register(slow, 1L, null, null, null, null);
+
+        for (int i = 0; i < 5; i++) feed.onReportChanged(changed(10 + i, 1, "IN_PROGRESS"));
+
+        assertEquals(0, feed.subscriberCount());
+        assertEquals(1, meterRegistry.get("civicpulse.feed.dropped").counter().count());
+        assertEquals(1, neverRun.size());
+    }
+
+    @Test
+    public void testStalledSendIsDroppedAndOtherSubscribersKeepReceiving() throws Exception {
+        ReportFeed feed = new ReportFeed();
+        ReflectionTestUtils.setField(feed, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(feed, "senders", 1);
+        ReflectionTestUtils.setField(feed, "sendTimeoutMs", 50L);
+        feed.start();
+        CountDownLatch unblock = new CountDownLatch(1);
+        RecordingEmitter stuck = new RecordingEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) {
+                // a client that stopped reading: the write does not return
+                try {
+                    unblock.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        RecordingEmitter healthy = new RecordingEmitter();
+        try {
+            feed.register(stuck, 1L, null, null, null, null);
+            Thread.sleep(100);
+            feed.register(healthy, 2L, null, null, null, null);
+            assertFalse(healthy.sawText("heartbeat"));
+
+            feed.dropStalledSubscribers();
+            for (int i = 0; i < 100 && !healthy.sawText("heartbeat"); i++) Thread.sleep(20);
+            assertTrue(healthy.sawText("heartbeat"));
+            assertEquals(1, feed.subscriberCount());
+            assertEquals(1, meterRegistry.get("civicpulse.feed.dropped").tag("reason", "stalled").counter().count());
+
+            unblock.countDown();
+            ThreadPoolExecutor pool = (ThreadPoolExecutor) ReflectionTestUtils.getField(feed, "executor");
+            for (int i = 0; i < 100 && pool.getCorePoolSize() > 1; i++) Thread.sleep(20);
+            assertEquals(1, pool.getCorePoolSize());
+        } finally {
+            unblock.countDown();
+            feed.stop();
+        }
+    }
+}
@@ -1,15 +1,27 @@
 package com.civicpulse.service;
 
+import com.civicpulse.dto.ReportDtos;
 import com.civicpulse.entity.Report;
+import com.civicpulse.entity.ReportImage;
+import com.civicpulse.entity.ReportStatusHistory;
 import com.civicpulse.entity.User;
 import com.civicpulse.repository.ReportRepository;
+import com.civicpulse.repository.ReportStatusHistoryRepository;
 import com.civicpulse.repository.UserRepository;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.multipart.MultipartFile;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -21,7 +33,15 @@ public class ReportServiceTest {
     @Mock
     private UserRepository userRepository;
     @Mock
-    private GoogleDriveService googleDriveService;
+    private ReportStatusHistoryRepository historyRepository;
+    @Mock
+    private ImageUploadPipeline imageUploadPipeline;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private DuplicateDetector duplicateDetector;
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
     @InjectMocks
     private ReportService reportService;
 
@@ -35,13 +55,116 @@ public class ReportServiceTest {
         user.setId(1L);
         when(userRepository.findById(1L)).thenReturn(java.util.Optional.of(user));
         when(reportRepository.save(any(Report.class))).thenAnswer(i -> i.getArgument(0));
+        when(reportImageRepository.save(any(ReportImage.class))).thenAnswer(i -> i.getArgument(0));
         MultipartFile file = mock(MultipartFile.class);
         when(file.getSize()).thenReturn(1024L);
         when(file.getContentType()).thenReturn("image/png");
-    when(googleDriveService.uploadFile(file)).thenReturn(new GoogleDriveService.DriveFileInfo("id", "link", "contentLink"));
+        ReportImage staged = new ReportImage();
+        staged.setStagedPath("/tmp/staged.bin");
+        when(imageUploadPipeline.stage(any(Report.class), eq(file))).thenReturn(staged);
     Report report = reportService.createReport(1L, "title", "desc", "cat", 0.0, 0.0, new MultipartFile[]{file});
         assertEquals("title", report.getTitle());
         assertEquals(1, report.getImages().size());
-        assertEquals("id", report.getImages().get(0).getGdriveFileId());
+        assertEquals(ReportImage.STATUS_PENDING, report.getImages().get(0).getUploadStatus());
+        verify(imageUploadPipeline).submitAfterCommit(List.of(staged));
+        verify(eventPublisher).publishEvent(any(ReportChangedEvent.class));
+        assertEquals(1, meterRegistry.get("civicpulse.reports.create")
+                .tags("category", "cat", "outcome", "success").timer().count());
+    }
+
+    @Test
+    public void testStagedFilesAreDiscardedWhenSavingAnImageFails() throws Exception {
+        User user = new User();
+        user.setId(1L);
+        when(userRepository.findById(1L)).thenReturn(java.util.Optional.of(user));
+        when(reportRepository.save(any(Report.class))).thenAnswer(i -> i.getArgument(0));
+        MultipartFile first = mock(MultipartFile.class);
+        MultipartFile second = mock(MultipartFile.class);
+        ReportImage stagedFirst = new ReportImage();
+        ReportImage stagedSecond = new ReportImage();
+        when(imageUploadPipeline.stage(any(Report.class), eq(first))).thenReturn(stagedFirst);
+        when(imageUploadPipeline.stage(any(Report.class), eq(second))).thenReturn(stagedSecond);
+        when(reportImageRepository.save(stagedFirst)).thenReturn(stagedFirst);
+        when(reportImageRepository.save(stagedSecond)).thenThrow(new IllegalStateException("connection reset"));
+
+        assertThrows(IllegalStateException.class, () -> reportService.createReport(1L, "title", "desc", "cat",
+                0.0, 0.0, new MultipartFile[]{first, second}));
+        verify(imageUploadPipeline).discard(List.of(stagedFirst, stagedSecond));
+        verify(imageUploadPipeline, never()).submitAfterCommit(any());
+    }
+
+    private ReportDtos.ReportSummary summary(long id, LocalDateTime createdAt) {
+        ReportDtos.ReportSummary row = mock(ReportDtos.ReportSummary.class);
+        when(row.getId()).thenReturn(id);
+        when(row.getCreatedAt()).thenReturn(createdAt);
+        return row;
+    }
+
+    @Test
+    public void testGetReportsPagesWithOpaqueCursor() {
+        ReflectionTestUtils.setField(reportService, "defaultPageSize", 2);
+        ReflectionTestUtils.setField(reportService, "maxPageSize", 100);
+        LocalDateTime t = LocalDateTime.of(2024, 5, 1, 10, 0);
+        List<ReportDtos.ReportSummary> rows = List.of(summary(9, t), summary(8, t), summary(7, t.minusHours(1)));
+        when(reportRepository.findFirstPage(eq("NEW"), isNull(), any())).thenReturn(rows);
+
+        ReportDtos.ReportPage first = reportService.getReports("NEW", null, null, null);
+        assertEquals(2, first.items.size());
+        assertNotNull(first.nextCursor);
+
+        when(reportRepository.findPageAfter(eq("NEW"), isNull(), eq(t), eq(8L), any()))
+                .thenReturn(List.of(rows.get(2)));
+        ReportDtos.ReportPage second = reportService.getReports("NEW", null, first.nextCursor, null);
+        assertEquals(1, second.items.size());
+        assertNull(second.nextCursor);
+        verify(reportRepository).findPageAfter(eq("NEW"), isNull(), eq(t), eq(8L), eq(PageRequest.of(0, 3)));
+    }
+
+    private Report report(long id, String status) {
+        Report r = new Report();
+        r.setId(id);
+        r.setStatus(status);
+        r.setCategory("roads");
+        return r;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testBulkUpdateStatusReportsEachIdAndBatchesHistory() {
+        when(reportRepository.findAllForUpdate(any())).thenReturn(List.of(report(1, "NEW"), report(3, "IN_PROGRESS")));
+
+        ReportDtos.BulkResponse resp = reportService.bulkUpdateStatus(List.of(3L, 1L, 3L, 9L), "RESOLVED",
+                "admin@city.gov", "cleanup drive");
+
+        verify(reportRepository).findAllForUpdate(Set.of(3L, 1L, 9L));
+        verify(reportRepository).updateStatus(eq(List.of(1L, 3L)), eq("RESOLVED"), any());
+        verify(reportRepository, never()).save(any());
+        verify(historyRepository).saveAll(argThat(h -> ((List<ReportStatusHistory>) h).size() == 2));
+        verify(eventPublisher, times(2)).publishEvent(any(ReportChangedEvent.class));
+
+        assertEquals(2, resp.updated);
+        assertEquals(List.of(3L, 1L, 9L), resp.results.stream().map(r -> r.id).toList());
+        assertTrue(resp.results.get(0).success);
+        assertEquals("IN_PROGRESS", resp.results.get(0).previousStatus);
+        assertEquals("NEW", resp.results.get(1).previousStatus);
+        assertFalse(resp.results.get(2).success);
+        assertEquals("Report not found", resp.results.get(2).error);
+    }
+
+    @Test
+    public void testUserReportsAreMappedFromOneFetchedQuery() {
+        Report r = report(4, "NEW");
+        ReportImage img = new ReportImage();
+        img.setId(40L);
+        img.setUploadStatus(ReportImage.STATUS_UPLOADED);
+        img.setThumbnailUrl("/api/v1/files/t");
+        r.setImages(List.of(img));
+        when(reportRepository.findByUserIdOrderByCreatedAtDescIdDesc(1L)).thenReturn(List.of(r));
+
+        List<ReportDtos.ReportDetail> mine = reportService.getUserReports(1L);
+
+        assertEquals(1, mine.size());
+        assertEquals("/api/v1/files/t", mine.get(0).images.get(0).thumbnailUrl);
+        verifyNoInteractions(userRepository, reportImageRepository);
     }
 }
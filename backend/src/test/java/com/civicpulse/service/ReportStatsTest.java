@@ -0,0 +1,108 @@
+package com.civicpulse.service;
+
+import com.civicpulse.dto.ReportDtos;
+import com.civicpulse.repository.ReportRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ReportStatsTest {
+    @Mock
+    private ReportRepository reportRepository;
+    @InjectMocks
+    private ReportStats reportStats;
+
+    public ReportStatsTest() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    private static ReportChangedEvent event(ReportChangedEvent.Type type, long id, String prevStatus, String status,
+                                            String prevDept, String dept, LocalDateTime createdAt) {
+        return new ReportChangedEvent(type, id, 1L, prevStatus, status, "pothole", prevDept, dept,
+                12.0, 77.0, "t", "d", null, createdAt, createdAt);
+    }
+
+    private static ReportRepository.StatsRow row(String status, String category, String dept, LocalDate day, long n) {
+        ReportRepository.StatsRow row = mock(ReportRepository.StatsRow.class);
+        when(row.getStatus()).thenReturn(status);
+        when(row.getCategory()).thenReturn(category);
+        when(row.getDepartment()).thenReturn(dept);
+        when(row.getDay()).thenReturn(day);
+        when(row.getCount()).thenReturn(n);
+        return row;
+    }
+
+    @Test
+    public void testEventsMoveCountsBetweenCells() {
+        LocalDateTime t = LocalDateTime.of(2024, 3, 1, 10, 0);
+        reportStats.onReportChanged(event(ReportChangedEvent.Type.CREATED, 1, null, "NEW", null, null, t));
+        reportStats.onReportChanged(event(ReportChangedEvent.Type.CREATED, 2, null, "NEW", null, null, t.plusDays(1)));
+        reportStats.onReportChanged(event(ReportChangedEvent.Type.ASSIGNED, 1, "NEW", "NEW", null, "roads", t));
+        reportStats.onReportChanged(event(ReportChangedEvent.Type.STATUS_CHANGED, 1, "NEW", "RESOLVED", "roads", "roads", t));
+
+        ReportDtos.StatsResponse byStatus = reportStats.query(Set.of("status"), null, null, null, null, null);
+        assertEquals(2, byStatus.total);
+        assertEquals(2, byStatus.buckets.size());
+
+        ReportDtos.StatsResponse roads = reportStats.query(Set.of(), "RESOLVED", null, "roads", null, null);
+        assertEquals(1, roads.total);
+        assertEquals(1, reportStats.query(Set.of("day"), null, null, null, LocalDate.of(2024, 3, 2), null).total);
+    }
+
+    @Test
+    public void testRebuildReplacesCounters() {
+        reportStats.onReportChanged(event(ReportChangedEvent.Type.CREATED, 1, null, "NEW", null, null,
+                LocalDateTime.now()));
+        List<ReportRepository.StatsRow> rows = List.of(
+                row("NEW", "pothole", null, LocalDate.of(2024, 1, 1), 5),
+                row("RESOLVED", "garbage", "sanitation", LocalDate.of(2024, 1, 2), 3));
+        when(reportRepository.countByStatusCategoryDepartmentDay()).thenReturn(rows);
+        reportStats.rebuild();
+
+        ReportDtos.StatsResponse byCategory = reportStats.query(Set.of("category"), null, null, null, null, null);
+        assertEquals(8, byCategory.total);
+        assertEquals("pothole", byCategory.buckets.get(0).category);
+        assertEquals(5, byCategory.buckets.get(0).count);
+    }
+
+    private static ReportRepository.StatsCell cell(long id, String status, LocalDate day) {
+        ReportRepository.StatsCell c = mock(ReportRepository.StatsCell.class);
+        when(c.getId()).thenReturn(id);
+        when(c.getStatus()).thenReturn(status);
+        when(c.getCategory()).thenReturn("pothole");
+        when(c.getDay()).thenReturn(day);
+        return c;
+    }
+
+    @Test
+    public void testEventsRacingTheSnapshotAreCountedOnce() {
+        LocalDateTime t = LocalDateTime.of(2024, 3, 1, 10, 0);
+        LocalDate day = t.toLocalDate();
+        when(reportRepository.countByStatusCategoryDepartmentDay()).thenAnswer(i -> {
+            // report 1 is created and report 2 resolved while the GROUP BY runs; only the creation
+            // made it into the snapshot, and report 3 is created after it
+            reportStats.onReportChanged(event(ReportChangedEvent.Type.CREATED, 1, null, "NEW", null, null, t));
+            reportStats.onReportChanged(event(ReportChangedEvent.Type.STATUS_CHANGED, 2, "NEW", "RESOLVED", null, null, t));
+            reportStats.onReportChanged(event(ReportChangedEvent.Type.CREATED, 3, null, "NEW", null, null, t));
+            return List.of(row("NEW", "pothole", null, day, 2));
+        });
+        List<ReportRepository.StatsCell> inSnapshot = List.of(cell(1, "NEW", day), cell(2, "NEW", day));
+        when(reportRepository.findStatsCells(List.of(1L, 2L, 3L))).thenReturn(inSnapshot);
+
+        reportStats.rebuild();
+
+        ReportDtos.StatsResponse byStatus = reportStats.query(Set.of("status"), null, null, null, null, null);
+        assertEquals(3, byStatus.total);
+        assertEquals(2, reportStats.query(Set.of(), "NEW", null, null, null, null).total);
+        assertEquals(1, reportStats.query(Set.of(), "RESOLVED", null, null, null, null).total);
+    }
+}
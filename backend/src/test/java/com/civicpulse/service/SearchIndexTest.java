@@ -0,0 +1,62 @@
+package com.civicpulse.service;
+
+import com.civicpulse.dto.ReportDtos;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearchIndexTest {
+
+    private static ReportChangedEvent report(long id, String title, String description, String status,
+                                             String category, double lat, double lon) {
+        return new ReportChangedEvent(ReportChangedEvent.Type.CREATED, id, 1L, null, status, category, null, null,
+                lat, lon, title, description, null, LocalDateTime.now(), LocalDateTime.now());
+    }
+
+    private static List<Long> ids(ReportDtos.SearchPage page) {
+        return page.items.stream().map(h -> h.id).toList();
+    }
+
+    @Test
+    public void testRanksTitleMatchesAndRareTermsHigher() {
+        SearchIndex index = new SearchIndex();
+        index.onReportChanged(report(1, "Streetlight out", "The pothole nearby is also getting worse", "NEW",
+                "streetlight", 12.97, 77.59));
+        index.onReportChanged(report(2, "Huge potholes on MG Road", "Two deep potholes near the metro", "NEW",
+                "pothole", 12.97, 77.59));
+        index.onReportChanged(report(3, "Garbage pile", "Garbage not collected for a week", "NEW",
+                "garbage", 12.97, 77.59));
+
+        ReportDtos.SearchPage page = index.search("pothole", null, null, null, null, null, 0, 10);
+        assertEquals(List.of(2L, 1L), ids(page));
+        assertEquals(2, page.total);
+        assertTrue(page.items.get(0).score > page.items.get(1).score);
+
+        assertEquals(List.of(3L), ids(index.search("GARBAGE &amp; waste", null, null, null, null, null, 0, 10)));
+        assertTrue(index.search("the of", null, null, null, null, null, 0, 10).items.isEmpty());
+    }
+
+    @Test
+    public void testFiltersPaginationAndStatusUpdates() {
+        SearchIndex index = new SearchIndex();
+        index.onReportChanged(report(1, "Water leak", "Pipe burst", "NEW", "water", 12.9716, 77.5946));
+        index.onReportChanged(report(2, "Water leak", "Pipe burst", "NEW", "water", 12.9720, 77.5950));
+        index.onReportChanged(report(3, "Water leak", "Pipe burst", "NEW", "water", 13.0500, 77.6000));
+
+        // equal scores fall back to newest first
+        assertEquals(List.of(3L, 2L), ids(index.search("leak", null, null, null, null, null, 0, 2)));
+        assertEquals(List.of(1L), ids(index.search("leak", null, null, null, null, null, 1, 2)));
+        assertEquals(List.of(2L, 1L), ids(index.search("leak", null, null, 12.9716, 77.5946, 500.0, 0, 10)));
+        assertTrue(index.search("leak", null, "roads", null, null, null, 0, 10).items.isEmpty());
+
+        index.onReportChanged(new ReportChangedEvent(ReportChangedEvent.Type.STATUS_CHANGED, 2L, 1L, "NEW",
+                "RESOLVED", "water", null, null, 12.9720, 77.5950, "Water leak", "Pipe burst", null,
+                LocalDateTime.now(), LocalDateTime.now()));
+        assertEquals(List.of(2L), ids(index.search("leak", "RESOLVED", null, null, null, null, 0, 10)));
+        assertEquals(List.of(3L, 1L), ids(index.search("leak", "NEW", null, null, null, null, 0, 10)));
+        assertEquals(3, index.size());
+    }
+}
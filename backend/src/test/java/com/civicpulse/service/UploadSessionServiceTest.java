@@ -0,0 +1,100 @@
+package com.civicpulse.service;
+
+import com.civicpulse.exception.UploadConflictException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UploadSessionServiceTest {
+    @TempDir
+    Path dir;
+
+    private UploadSessionService service() throws IOException {
+        UploadSessionService service = new UploadSessionService();
+        ReflectionTestUtils.setField(service, "sessionDir", dir.toString());
+        ReflectionTestUtils.setField(service, "maxSize", 1024L);
+        service.init();
+        return service;
+    }
+
+    private static byte[] bytes(int n) {
+        byte[] b = new byte[n];
+        for (int i = 0; i < n; i++) b[i] = (byte) i;
+        return b;
+    }
+
+    /** A request body whose connection drops after {@code limit} bytes. */
+    private static InputStream broken(byte[] data, int limit) {
+        return new InputStream() {
+            int pos;
+
+            @Override
+            public int read() throws IOException {
+                if (pos == limit) throw new IOException("connection reset");
+                return data[pos++] & 0xff;
+            }
+        };
+    }
+
+    @Test
+    public void testDroppedChunkResumesFromLastWrittenByte() throws Exception {
+        UploadSessionService service = service();
+        byte[] data = bytes(300);
+        UploadSessionService.Session s = service.create("a@example.com", "photo.jpg", "image/jpeg", data.length);
+
+        assertEquals(100, service.write(s.id(), "a@example.com", 0, new ByteArrayInputStream(data, 0, 100)));
+        assertThrows(IOException.class, () -> service.write(s.id(), "a@example.com", 100, broken(Arrays.copyOfRange(data, 100, 300), 50)));
+        assertEquals(150, service.get(s.id(), "a@example.com").received());
+        assertFalse(s.complete());
+
+        // a resent overlap is fine, a gap is not
+        assertEquals(300, service.write(s.id(), "a@example.com", 120, new ByteArrayInputStream(data, 120, 180)));
+        assertTrue(s.complete());
+        assertArrayEquals(data, Files.readAllBytes(s.path()));
+    }
+
+    @Test
+    public void testGapsOverrunsAndOtherOwnersAreRejected() throws Exception {
+        UploadSessionService service = service();
+        UploadSessionService.Session s = service.create("a@example.com", "p.jpg", "image/jpeg", 10);
+
+        UploadConflictException gap = assertThrows(UploadConflictException.class,
+                () -> service.write(s.id(), "a@example.com", 5, new ByteArrayInputStream(bytes(5))));
+        assertEquals("offset_mismatch", gap.getError());
+        assertEquals(0, gap.getOffset());
+        assertThrows(IllegalArgumentException.class,
+                () -> service.write(s.id(), "a@example.com", 0, new ByteArrayInputStream(bytes(11))));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.write(s.id(), "b@example.com", 0, new ByteArrayInputStream(bytes(1))));
+        assertThrows(IllegalArgumentException.class, () -> service.create("a@example.com", "big.jpg", "image/jpeg", 2048));
+        assertThrows(IllegalArgumentException.class, () -> service.create("a@example.com", "clip.mp4", "video/mp4", 10));
+        assertThrows(IllegalArgumentException.class, () -> service.create("a@example.com", "x.exe", "application/octet-stream", 10));
+    }
+
+    @Test
+    public void testOnlyCompleteSessionsAreTakenAndOnlyOnce() throws Exception {
+        UploadSessionService service = service();
+        UploadSessionService.Session done = service.create("a@example.com", "p.jpg", "image/jpeg", 4);
+        service.write(done.id(), "a@example.com", 0, new ByteArrayInputStream(bytes(4)));
+        UploadSessionService.Session partial = service.create("a@example.com", "q.jpg", "image/jpeg", 4);
+
+        assertThrows(IllegalArgumentException.class, () -> service.take(List.of(done.id(), partial.id()), "a@example.com"));
+        // nothing was taken by the failed call
+        assertEquals(List.of(done), service.take(List.of(done.id(), done.id()), "a@example.com"));
+        assertThrows(IllegalArgumentException.class, () -> service.take(List.of(done.id()), "a@example.com"));
+        assertTrue(Files.exists(done.path()));
+
+        service.abort(partial.id(), "a@example.com");
+        assertFalse(Files.exists(partial.path()));
+    }
+}
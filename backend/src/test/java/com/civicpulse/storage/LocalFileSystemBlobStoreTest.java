@@ -0,0 +1,79 @@
+package com.civicpulse.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LocalFileSystemBlobStoreTest {
+    @TempDir
+    Path root;
+
+    private LocalFileSystemBlobStore store() throws Exception {
+        LocalFileSystemBlobStore store = new LocalFileSystemBlobStore(root.toString(), "/api/v1/files");
+        store.init();
+        return store;
+    }
+
+    @Test
+    public void testPutThenOpenReturnsSameBytes() throws Exception {
+        LocalFileSystemBlobStore store = store();
+        byte[] data = "pothole on 5th street".getBytes(StandardCharsets.UTF_8);
+
+        BlobStore.StoredBlob blob = store.put("photo.JPG", "image/jpeg", new ByteArrayInputStream(data));
+
+        assertTrue(blob.key().endsWith(".jpg"));
+        assertEquals("/api/v1/files/" + blob.key(), blob.url());
+        BlobStore.BlobContent content = store.open(blob.key());
+        try (var channel = content.channel()) {
+            ByteBuffer buf = ByteBuffer.allocate((int) content.size());
+            channel.read(buf);
+            assertArrayEquals(data, buf.array());
+        }
+        assertEquals("image/jpeg", content.contentType());
+    }
+
+    @Test
+    public void testPutAllCopiesStagedFiles() throws Exception {
+        LocalFileSystemBlobStore store = store();
+        Path staged = Files.writeString(Files.createTempFile("staged", ".bin"), "image-bytes");
+
+        List<BlobStore.PutResult> results = store.putAll(List.of(
+                new BlobStore.BlobSource("a.png", "image/png", staged),
+                new BlobStore.BlobSource("b.png", "image/png", root.resolve("missing.bin"))));
+
+        assertTrue(results.get(0).ok());
+        assertEquals("image-bytes", Files.readString(root.resolve(results.get(0).blob().key())));
+        assertFalse(results.get(1).ok());
+    }
+
+    @Test
+    public void testKeysCannotEscapeTheRoot() throws Exception {
+        LocalFileSystemBlobStore store = store();
+        assertThrows(IllegalArgumentException.class, () -> store.open("../../etc/passwd"));
+        assertNull(store.open("2024/01/01/unknown.png"));
+    }
+
+    @Test
+    public void testKeyExtensionFollowsTheCheckedContentType() throws Exception {
+        LocalFileSystemBlobStore store = store();
+        byte[] page = "<script>alert(1)</script>".getBytes(StandardCharsets.UTF_8);
+
+        BlobStore.StoredBlob html = store.put("x.html", "text/html", new ByteArrayInputStream(page));
+        BlobStore.StoredBlob svg = store.put("x.svg", "image/jpeg; charset=utf-8", new ByteArrayInputStream(page));
+
+        assertTrue(html.key().endsWith(".bin"));
+        assertEquals("application/octet-stream", store.open(html.key()).contentType());
+        assertTrue(svg.key().endsWith(".jpg"));
+        assertEquals("image/jpeg", store.open(svg.key()).contentType());
+        Files.writeString(Files.createDirectories(root.resolve("2024/01/01")).resolve("old.svg"), "<svg/>");
+        assertEquals("application/octet-stream", store.open("2024/01/01/old.svg").contentType());
+    }
+}